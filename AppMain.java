@@ -13,6 +13,8 @@ public class AppMain
     public static void main(String[] args) throws Exception
     {
         Model m = new Model();
+        m.getSearchStats().register(); // the search statistics can be watched with jconsole
+        m.getMoveLatencies().reportAtShutdown(System.out);
         View v = new View();
         Controller controller = new Controller(m, v);
         v.setController(controller);
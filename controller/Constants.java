@@ -1,10 +1,9 @@
 package controller;
-import java.awt.Font;
-import java.awt.Color;
 
 /**
  * Interface containing all constants used throughout the Game of Amazons project.
- * Includes board dimensions, starting positions, colors, fonts, and enums for game states.
+ * Includes board dimensions, starting positions, and enums for game states.
+ * (the fonts and colors of the view are in view.ViewConstants)
   * @author OFIR AVIANI | 18.03.2025
  */
 
@@ -21,15 +20,6 @@ public interface Constants
     // down, up, right, left, down-right, up-left, down-left, up-right 
     public static final int DIRECTIONS[][] = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1},  {1, -1}, {-1, 1}};
 
-    // some constants for view
-    public static final Font FONT_BUTTONS = new Font("Arial Unicode MS", Font.PLAIN, 15);
-    public static final Font FONT_LABEL = new Font("Arial", Font.PLAIN, 20);
-    public static final int ICON_SIZE = 50;
-    public static final Color lightBrownBackGround = new Color(240, 220, 150);
-    public static final Color darkBrownBackGround = new Color(100, 50, 20);
-    public static final Color clickableBackGround = new Color(200, 150, 95);
-    public static final Color greenAiMoveColor = new Color(30, 180, 60);
-
 
     // temporary variables for shorter and more organized board matrices
     public static final CellContent empty = CellContent.EMPTY; 
@@ -96,6 +86,14 @@ public interface Constants
         RANDOM,
         EASY,
         MEDIUM,
-        HARD
+        HARD,
+        EXPERT,
+        MCTS // a Monte Carlo tree search (see model.MctsSearch)
+    }
+
+    // represents the static evaluations the AI can score its moves with
+    enum EvaluationType{
+        COMPLEX, // complexEvaluationFunction() - reachability and mobility
+        TERRITORY // TerritoryEvaluator - queen and king distances to every square
     }
 }
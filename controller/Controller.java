@@ -1,5 +1,7 @@
 package controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import model.IModel;
 import view.IView;
 import controller.Constants.CellContent;
@@ -181,6 +183,17 @@ public class Controller
         return model.getAiMove(opponent, playerSign);
     }
 
+    /**
+     * Requests an AI-generated move without waiting for it - the AI thinks on a background thread.
+     * @param opponent the type of AI opponent
+     * @param playerSign the current player's color
+     * @return a future of the selected move, that can be cancelled to stop the AI
+     */
+    public CompletableFuture<Move> getAIMoveAsync(OpponentType opponent, PlayerColor playerSign)
+    {
+        return model.getAiMoveAsync(opponent, playerSign);
+    }
+
     /**
      * Creates a randomly generated board layout.
      */
@@ -0,0 +1,63 @@
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures how many bytes a thread allocated, with the allocation counter of the JVM
+ * (com.sun.management.ThreadMXBean.getThreadAllocatedBytes - no profiler or agent is needed).
+ * The AI moves count the allocation of their thread (see SearchStats.getAllocatedBytes()),
+ * and tools.AllocationBudgetCheck fails when a hot path allocates more than its budget.
+ * On a JVM without the counter, every measure is UNSUPPORTED.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public final class AllocationTracker
+{
+    public static final long UNSUPPORTED = -1;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+    private AllocationTracker()
+    {
+    }
+
+    // the thread bean, with its allocation counter on (or null if the JVM doesn't have one)
+    private static com.sun.management.ThreadMXBean threadBean()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if(!sunBean.isThreadAllocatedMemorySupported())
+            return null;
+        if(!sunBean.isThreadAllocatedMemoryEnabled())
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+    }
+
+    public static boolean isSupported()
+    {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * returns how many bytes the current thread allocated since it started (UNSUPPORTED if the JVM can't tell)
+     */
+    public static long currentThreadAllocatedBytes()
+    {
+        return THREAD_BEAN == null ? UNSUPPORTED : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * returns how many bytes the current thread allocated since an earlier measure
+     * @param before the earlier currentThreadAllocatedBytes()
+     * @return the bytes, or UNSUPPORTED
+     */
+    public static long allocatedSince(long before)
+    {
+        if(before == UNSUPPORTED)
+            return UNSUPPORTED;
+        return currentThreadAllocatedBytes() - before;
+    }
+}
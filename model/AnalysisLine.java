@@ -0,0 +1,64 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+import controller.Move;
+
+/**
+ * One line of an analysis (see AnalysisResult): a move of the analyzed position, its search score,
+ * and its principal variation - the moves both players are expected to play after it.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class AnalysisLine
+{
+    private final Move move;
+    private final double score;
+    private final List<Move> principalVariation; // starts with the move
+
+    AnalysisLine(Move move, double score, List<Move> principalVariation)
+    {
+        this.move = move;
+        this.score = score;
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+    }
+
+    public Move getMove()
+    {
+        return move;
+    }
+
+    /**
+     * returns the score of the move, for the player that plays it (between -2000 and 2000)
+     */
+    public double getScore()
+    {
+        return score;
+    }
+
+    /**
+     * returns the expected line: the move, then the best replies the search found, one ply after the other
+     * (it is never longer than the depth of the analysis, and may be shorter)
+     */
+    public List<Move> getPrincipalVariation()
+    {
+        return principalVariation;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder line = new StringBuilder(String.format("%8.1f ", score));
+        for (Move lineMove : principalVariation)
+            line.append(' ').append(moveName(lineMove));
+        return line.toString();
+    }
+
+    // a move as (row,col)-(row,col)/(row,col): from, to, arrow
+    private static String moveName(Move move)
+    {
+        return "(" + move.getJumpsFromRow() + "," + move.getJumpsFromCol() + ")-(" + move.getJumpsToRow() + "," + move.getJumpsToCol()
+            + ")/(" + move.getShootsAtRow() + "," + move.getShootsAtCol() + ")";
+    }
+}
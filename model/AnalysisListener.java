@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Receives the results of an analysis (see Model.analyze()).
+ * The calls come on the listener thread of the analysis, one at a time, never more often than its throttle -
+ * when the search improves faster, only the newest result is delivered.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public interface AnalysisListener
+{
+    /**
+     * called when the search finished a deeper iteration
+     */
+    public void analysisUpdated(AnalysisResult result);
+
+    /**
+     * called once, when the analysis ended (it got to its max depth, or was stopped) - with its last result
+     * (not called if the search failed, see AnalysisSession.getResult())
+     */
+    public void analysisFinished(AnalysisResult result);
+}
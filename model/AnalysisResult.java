@@ -0,0 +1,72 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A snapshot of an analysis (see Model.analyze()): the best lines of the position after the deepest iteration
+ * the search finished, from the best down, with the depth, nodes and time it took to get there.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class AnalysisResult
+{
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final List<AnalysisLine> lines;
+
+    AnalysisResult(int depth, long nodes, long elapsedNanos, List<AnalysisLine> lines)
+    {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * returns the depth of the iteration the lines are from (1 for the static scores, 0 if the player cannot move)
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * returns how many positions the search visited until then
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * returns the best lines, from the best down (empty if the player cannot move)
+     */
+    public List<AnalysisLine> getLines()
+    {
+        return lines;
+    }
+
+    /**
+     * returns the best line (null if the player cannot move)
+     */
+    public AnalysisLine getBestLine()
+    {
+        return lines.isEmpty() ? null : lines.get(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder(String.format("depth %d, %d nodes, %.1f ms", depth, nodes, elapsedNanos / 1e6));
+        for (int i = 0; i < lines.size(); i++)
+            result.append(String.format("%n%2d. ", i + 1)).append(lines.get(i));
+        return result.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A running analysis (see Model.analyze()).
+ * The search runs on its own thread, and reports the best lines of every iteration it finishes;
+ * a second thread delivers them to the listener, at most once every throttle period, so a slow listener
+ * never slows the search - the results it missed are replaced by newer ones.
+ * The analysis runs until it gets to its max depth or is stopped, and then the listener gets its last result.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class AnalysisSession
+{
+    public static final long DEFAULT_THROTTLE_MILLIS = 100;
+
+    private final AnalysisListener listener;
+    private final long throttleNanos;
+    private final AtomicBoolean stopSignal = new AtomicBoolean(false);
+    private final CompletableFuture<AnalysisResult> result = new CompletableFuture<AnalysisResult>();
+    private final long startTime = System.nanoTime();
+    private volatile AnalysisResult latestResult; // the last result of the search (null before the first one)
+    private AnalysisResult pendingResult; // the result the listener didn't get yet (guarded by this)
+    private boolean searchDone; // guarded by this
+    private Throwable searchError; // why the search failed (guarded by this, null if it didn't)
+
+    /**
+     * @param listener gets the results (may be null, to only read them from the session)
+     * @param throttleMillis the shortest time between two updates of the listener
+     */
+    AnalysisSession(AnalysisListener listener, long throttleMillis)
+    {
+        this.listener = listener;
+        throttleNanos = throttleMillis * 1_000_000;
+    }
+
+    /**
+     * starts the search and listener threads
+     * @param search runs the search, and reports its iterations to publish()
+     */
+    void start(Runnable search)
+    {
+        Thread listenerThread = new Thread(this::deliverResults, "amazons-analysis-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        Thread searchThread = new Thread(() -> {
+            Throwable error = null;
+            try
+            {
+                search.run();
+            }
+            catch (Throwable e)
+            {
+                error = e;
+            }
+            searchDone(error);
+        }, "amazons-analysis");
+        searchThread.setDaemon(true); // an analysis shouldn't keep the application running
+        searchThread.start();
+    }
+
+    /**
+     * returns the signal the search stops at
+     */
+    AtomicBoolean getStopSignal()
+    {
+        return stopSignal;
+    }
+
+    /**
+     * keeps a new result of the search, for the listener (called on the search thread)
+     */
+    synchronized void publish(AnalysisResult newResult)
+    {
+        latestResult = newResult;
+        pendingResult = newResult;
+        notifyAll();
+    }
+
+    private synchronized void searchDone(Throwable error)
+    {
+        searchDone = true;
+        searchError = error;
+        notifyAll();
+    }
+
+    /**
+     * stops the search as soon as possible (the listener then gets the result of the deepest iteration it finished)
+     */
+    public void stop()
+    {
+        stopSignal.set(true);
+    }
+
+    /**
+     * returns whether the analysis ended, and its last result was delivered
+     */
+    public boolean isFinished()
+    {
+        return result.isDone();
+    }
+
+    /**
+     * returns the newest result of the search, whether or not the listener got it yet (null before the first one)
+     */
+    public AnalysisResult getLatestResult()
+    {
+        return latestResult;
+    }
+
+    /**
+     * returns a future that is completed with the last result, after the listener got it
+     * (or completed exceptionally, if the search or the listener failed)
+     */
+    public CompletableFuture<AnalysisResult> getResult()
+    {
+        return result;
+    }
+
+    /**
+     * the loop of the listener thread: waits for new results, and delivers the newest one once the throttle period passed
+     */
+    private void deliverResults()
+    {
+        try
+        {
+            long nextDelivery = System.nanoTime();
+            while(true)
+            {
+                AnalysisResult update;
+                synchronized (this)
+                {
+                    while(!searchDone && (pendingResult == null || System.nanoTime() - nextDelivery < 0))
+                    {
+                        if(pendingResult == null)
+                            wait();
+                        else
+                            TimeUnit.NANOSECONDS.timedWait(this, nextDelivery - System.nanoTime());
+                    }
+                    if(searchDone)
+                        break; // the last result is delivered as the final one
+                    update = pendingResult;
+                    pendingResult = null;
+                }
+                if(listener != null)
+                    listener.analysisUpdated(update);
+                nextDelivery = System.nanoTime() + throttleNanos;
+            }
+
+            Throwable error;
+            synchronized (this)
+            {
+                error = searchError;
+            }
+            if(error != null)
+            {
+                result.completeExceptionally(error);
+                return;
+            }
+            AnalysisResult finalResult = latestResult;
+            if(finalResult == null) // the player cannot move
+                finalResult = new AnalysisResult(0, 0, System.nanoTime() - startTime, new ArrayList<AnalysisLine>());
+            if(listener != null)
+                listener.analysisFinished(finalResult);
+            result.complete(finalResult);
+        }
+        catch (InterruptedException e)
+        {
+            stop();
+            result.completeExceptionally(e);
+        }
+        catch (RuntimeException e)
+        {
+            stop(); // a listener that fails ends the analysis
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,611 @@
+package model;
+
+import java.util.Arrays;
+
+import controller.Constants;
+import controller.Position;
+import static controller.Constants.PlayerColor.*;
+import static controller.Constants.CellContent.*;
+
+/**
+ * A bitboard representation of the 10x10 board of the Game of the Amazons.
+ * Every layer (white amazons, black amazons, white arrows, black arrows) is a set of 100 bits,
+ * kept in a pair of longs: squares 0-63 in the low word, and squares 64-99 in the high word.
+ * The index of a square is row * BOARD_COLS + col.
+ * Occupancy tests, move generation and flood fills are done with word-level operations,
+ * instead of scanning a matrix of CellContent cell by cell.
+ * The board also keeps its Zobrist hash, updated incrementally with every change.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class BitBoard implements Constants
+{
+    public static final int SQUARES = BOARD_ROWS * BOARD_COLS;
+
+    // masks of the squares that exist on the board (the high word only uses 36 of its bits)
+    public static final long FULL_LO = -1L;
+    public static final long FULL_HI = (1L << (SQUARES - 64)) - 1;
+
+    // masks without the leftmost / rightmost column, used so shifts won't wrap around rows
+    private static final long NOT_COL0_LO, NOT_COL0_HI, NOT_COL9_LO, NOT_COL9_HI;
+
+    // RAY_LO[d][sq], RAY_HI[d][sq] - all the squares from sq (not included) to the edge of the board in direction d
+    private static final long[][] RAY_LO = new long[8][SQUARES];
+    private static final long[][] RAY_HI = new long[8][SQUARES];
+
+    // the (up to 8) squares touching a square
+    private static final long[] KING_LO = new long[SQUARES];
+    private static final long[] KING_HI = new long[SQUARES];
+
+    // the direction from one square to another (index from * SQUARES + to), or NO_DIRECTION if they aren't on one line
+    private static final int NO_DIRECTION = -1;
+    private static final byte[] DIRECTION_BETWEEN = new byte[SQUARES * SQUARES];
+
+    // one Position object for each square, shared by everyone (a Position never changes)
+    private static final Position[] POSITIONS = new Position[SQUARES];
+
+    static
+    {
+        long col0Lo = 0, col0Hi = 0, col9Lo = 0, col9Hi = 0;
+        for (int row = 0; row < BOARD_ROWS; row++)
+        {
+            int first = square(row, 0), last = square(row, BOARD_COLS - 1);
+            if(first < 64) col0Lo |= 1L << first; else col0Hi |= 1L << (first - 64);
+            if(last < 64) col9Lo |= 1L << last; else col9Hi |= 1L << (last - 64);
+        }
+        NOT_COL0_LO = ~col0Lo;
+        NOT_COL0_HI = ~col0Hi & FULL_HI;
+        NOT_COL9_LO = ~col9Lo;
+        NOT_COL9_HI = ~col9Hi & FULL_HI;
+
+        Arrays.fill(DIRECTION_BETWEEN, (byte) NO_DIRECTION);
+        for (int sq = 0; sq < SQUARES; sq++)
+        {
+            int row = rowOf(sq), col = colOf(sq);
+            POSITIONS[sq] = new Position(row, col);
+            for (int d = 0; d < 8; d++)
+            {
+                int tempRow = row + DIRECTIONS[d][0], tempCol = col + DIRECTIONS[d][1];
+                if(isOnBoard(tempRow, tempCol))
+                {
+                    int kingSq = square(tempRow, tempCol);
+                    if(kingSq < 64) KING_LO[sq] |= 1L << kingSq; else KING_HI[sq] |= 1L << (kingSq - 64);
+                }
+                while(isOnBoard(tempRow, tempCol))
+                {
+                    int raySq = square(tempRow, tempCol);
+                    if(raySq < 64) RAY_LO[d][sq] |= 1L << raySq; else RAY_HI[d][sq] |= 1L << (raySq - 64);
+                    DIRECTION_BETWEEN[sq * SQUARES + raySq] = (byte) d;
+                    tempRow += DIRECTIONS[d][0];
+                    tempCol += DIRECTIONS[d][1];
+                }
+            }
+        }
+    }
+
+    private long whiteAmazonsLo, whiteAmazonsHi;
+    private long blackAmazonsLo, blackAmazonsHi;
+    private long whiteArrowsLo, whiteArrowsHi;
+    private long blackArrowsLo, blackArrowsHi;
+    private long hash; // Zobrist hash of the pieces on the board
+
+    /**
+     * constructs an empty BitBoard
+     */
+    public BitBoard()
+    {
+    }
+
+    /**
+     * constructs a BitBoard with the same contents as a matrix of cells
+     * @param cells the board to copy
+     */
+    public BitBoard(CellContent[][] cells)
+    {
+        setFromCells(cells);
+    }
+
+    /**
+     * constructs a copy of another BitBoard
+     * @param other the board to copy
+     */
+    public BitBoard(BitBoard other)
+    {
+        copyFrom(other);
+    }
+
+    /**
+     * copies all the layers of another BitBoard into this one
+     */
+    public void copyFrom(BitBoard other)
+    {
+        whiteAmazonsLo = other.whiteAmazonsLo; whiteAmazonsHi = other.whiteAmazonsHi;
+        blackAmazonsLo = other.blackAmazonsLo; blackAmazonsHi = other.blackAmazonsHi;
+        whiteArrowsLo = other.whiteArrowsLo; whiteArrowsHi = other.whiteArrowsHi;
+        blackArrowsLo = other.blackArrowsLo; blackArrowsHi = other.blackArrowsHi;
+        hash = other.hash;
+    }
+
+    /**
+     * empties the whole board
+     */
+    public void clear()
+    {
+        whiteAmazonsLo = whiteAmazonsHi = 0;
+        blackAmazonsLo = blackAmazonsHi = 0;
+        whiteArrowsLo = whiteArrowsHi = 0;
+        blackArrowsLo = blackArrowsHi = 0;
+        hash = 0;
+    }
+
+    /**
+     * sets the contents of the board from a matrix of cells
+     */
+    public void setFromCells(CellContent[][] cells)
+    {
+        clear();
+        for (int row = 0; row < BOARD_ROWS; row++)
+        {
+            for (int col = 0; col < BOARD_COLS; col++)
+            {
+                setContent(row, col, cells[row][col]);
+            }
+        }
+    }
+
+    /**
+     * returns the contents of the board as a new matrix of cells
+     */
+    public CellContent[][] toCells()
+    {
+        CellContent[][] cells = new CellContent[BOARD_ROWS][BOARD_COLS];
+        for (int row = 0; row < BOARD_ROWS; row++)
+        {
+            for (int col = 0; col < BOARD_COLS; col++)
+            {
+                cells[row][col] = getContent(row, col);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * returns the index of a square
+     */
+    public static int square(int row, int col)
+    {
+        return row * BOARD_COLS + col;
+    }
+
+    public static int rowOf(int sq)
+    {
+        return sq / BOARD_COLS;
+    }
+
+    public static int colOf(int sq)
+    {
+        return sq % BOARD_COLS;
+    }
+
+    /**
+     * returns the Position of a square (the same object every time, so no Position is created)
+     */
+    public static Position positionOf(int sq)
+    {
+        return POSITIONS[sq];
+    }
+
+    private static boolean isOnBoard(int row, int col)
+    {
+        return row >= 0 && row < BOARD_ROWS && col >= 0 && col < BOARD_COLS;
+    }
+
+    // checks a single bit of a layer
+    private static boolean hasBit(long lo, long hi, int sq)
+    {
+        if(sq < 64)
+            return (lo >>> sq & 1L) != 0;
+        return (hi >>> (sq - 64) & 1L) != 0;
+    }
+
+    /**
+     * returns what is in a square
+     */
+    public CellContent getContent(int sq)
+    {
+        if(hasBit(whiteAmazonsLo, whiteAmazonsHi, sq))
+            return WHITE_AMAZON;
+        if(hasBit(blackAmazonsLo, blackAmazonsHi, sq))
+            return BLACK_AMAZON;
+        if(hasBit(whiteArrowsLo, whiteArrowsHi, sq))
+            return WHITE_ARROW;
+        if(hasBit(blackArrowsLo, blackArrowsHi, sq))
+            return BLACK_ARROW;
+        return EMPTY;
+    }
+
+    public CellContent getContent(int row, int col)
+    {
+        return getContent(square(row, col));
+    }
+
+    /**
+     * puts a content in a square, replacing whatever was there
+     */
+    public void setContent(int sq, CellContent content)
+    {
+        hash ^= Zobrist.contentKey(getContent(sq), sq) ^ Zobrist.contentKey(content, sq);
+        long clearLo = sq < 64 ? ~(1L << sq) : -1L;
+        long clearHi = sq < 64 ? -1L : ~(1L << (sq - 64));
+        whiteAmazonsLo &= clearLo; whiteAmazonsHi &= clearHi;
+        blackAmazonsLo &= clearLo; blackAmazonsHi &= clearHi;
+        whiteArrowsLo &= clearLo; whiteArrowsHi &= clearHi;
+        blackArrowsLo &= clearLo; blackArrowsHi &= clearHi;
+
+        long bitLo = ~clearLo, bitHi = ~clearHi;
+        switch (content)
+        {
+            case WHITE_AMAZON:
+                whiteAmazonsLo |= bitLo; whiteAmazonsHi |= bitHi; break;
+            case BLACK_AMAZON:
+                blackAmazonsLo |= bitLo; blackAmazonsHi |= bitHi; break;
+            case WHITE_ARROW:
+                whiteArrowsLo |= bitLo; whiteArrowsHi |= bitHi; break;
+            case BLACK_ARROW:
+                blackArrowsLo |= bitLo; blackArrowsHi |= bitHi; break;
+            case EMPTY:
+                break;
+        }
+    }
+
+    public void setContent(int row, int col, CellContent content)
+    {
+        setContent(square(row, col), content);
+    }
+
+    /**
+     * returns the Zobrist hash of the pieces on the board (without the player to play)
+     */
+    public long getHash()
+    {
+        return hash;
+    }
+
+    public long occupiedLo()
+    {
+        return whiteAmazonsLo | blackAmazonsLo | whiteArrowsLo | blackArrowsLo;
+    }
+
+    public long occupiedHi()
+    {
+        return whiteAmazonsHi | blackAmazonsHi | whiteArrowsHi | blackArrowsHi;
+    }
+
+    public long emptyLo()
+    {
+        return ~occupiedLo();
+    }
+
+    public long emptyHi()
+    {
+        return ~occupiedHi() & FULL_HI;
+    }
+
+    public long amazonsLo(PlayerColor color)
+    {
+        return color == WHITE ? whiteAmazonsLo : blackAmazonsLo;
+    }
+
+    public long amazonsHi(PlayerColor color)
+    {
+        return color == WHITE ? whiteAmazonsHi : blackAmazonsHi;
+    }
+
+    public boolean isEmpty(int sq)
+    {
+        return !hasBit(occupiedLo(), occupiedHi(), sq);
+    }
+
+    public boolean isEmpty(int row, int col)
+    {
+        return isEmpty(square(row, col));
+    }
+
+    public boolean isAmazonOf(int sq, PlayerColor color)
+    {
+        return hasBit(amazonsLo(color), amazonsHi(color), sq);
+    }
+
+    /**
+     * counts the empty squares of the board
+     */
+    public int countEmpty()
+    {
+        return SQUARES - Long.bitCount(occupiedLo()) - Long.bitCount(occupiedHi());
+    }
+
+    /**
+     * writes the squares of the amazons of a player into an array
+     * @return the number of amazons written
+     */
+    public int amazonSquares(PlayerColor color, int[] squares)
+    {
+        return squaresOf(amazonsLo(color), amazonsHi(color), squares);
+    }
+
+    /**
+     * writes the indexes of all the set bits of a layer into an array, in increasing order
+     * @return the number of squares written
+     */
+    public static int squaresOf(long lo, long hi, int[] squares)
+    {
+        int count = 0;
+        while(lo != 0)
+        {
+            squares[count++] = Long.numberOfTrailingZeros(lo);
+            lo &= lo - 1;
+        }
+        while(hi != 0)
+        {
+            squares[count++] = 64 + Long.numberOfTrailingZeros(hi);
+            hi &= hi - 1;
+        }
+        return count;
+    }
+
+    // toggles a square in an amazon layer
+    private void flipAmazon(PlayerColor color, int sq)
+    {
+        hash ^= Zobrist.amazonKey(color, sq);
+        if(color == WHITE)
+        {
+            if(sq < 64) whiteAmazonsLo ^= 1L << sq; else whiteAmazonsHi ^= 1L << (sq - 64);
+        }
+        else
+        {
+            if(sq < 64) blackAmazonsLo ^= 1L << sq; else blackAmazonsHi ^= 1L << (sq - 64);
+        }
+    }
+
+    // toggles a square in an arrow layer
+    private void flipArrow(PlayerColor color, int sq)
+    {
+        hash ^= Zobrist.arrowKey(sq);
+        if(color == WHITE)
+        {
+            if(sq < 64) whiteArrowsLo ^= 1L << sq; else whiteArrowsHi ^= 1L << (sq - 64);
+        }
+        else
+        {
+            if(sq < 64) blackArrowsLo ^= 1L << sq; else blackArrowsHi ^= 1L << (sq - 64);
+        }
+    }
+
+    /**
+     * performs a move - the amazon jumps from one square to another, and shoots an arrow
+     */
+    public void doMove(PlayerColor color, int from, int to, int arrow)
+    {
+        flipAmazon(color, from);
+        flipAmazon(color, to);
+        flipArrow(color, arrow);
+    }
+
+    /**
+     * undoes a move that was performed with doMove()
+     */
+    public void undoMove(PlayerColor color, int from, int to, int arrow)
+    {
+        flipArrow(color, arrow);
+        flipAmazon(color, to);
+        flipAmazon(color, from);
+    }
+
+    /**
+     * finds all empty squares reachable from a square in a straight line (like a queen in chess).
+     * the result is written to out[0] (low word) and out[1] (high word)
+     */
+    public void queenReach(int sq, long[] out)
+    {
+        queenReach(sq, occupiedLo(), occupiedHi(), out);
+    }
+
+    /**
+     * finds the squares reachable from a square in a straight line, for a given occupancy
+     * for each direction, the first blocker is found with a single bit scan of the ray
+     */
+    public static void queenReach(int sq, long occLo, long occHi, long[] out)
+    {
+        raysReach(sq, occLo, occHi, NO_DIRECTION, 0, 0, out);
+    }
+
+    /**
+     * scans the rays of a square, and writes the squares they reach (added to a given set of squares) to out
+     * @param skippedDirection a direction that isn't scanned (or NO_DIRECTION)
+     */
+    private static void raysReach(int sq, long occLo, long occHi, int skippedDirection, long reachLo, long reachHi, long[] out)
+    {
+        for (int d = 0; d < 8; d++)
+        {
+            if(d == skippedDirection)
+                continue;
+            long rayLo = RAY_LO[d][sq], rayHi = RAY_HI[d][sq];
+            long blockLo = rayLo & occLo, blockHi = rayHi & occHi;
+            if((blockLo | blockHi) != 0)
+            {
+                int blocker;
+                if(DIRECTION_GROWS[d]) // the nearest blocker has the lowest index
+                    blocker = blockLo != 0 ? Long.numberOfTrailingZeros(blockLo) : 64 + Long.numberOfTrailingZeros(blockHi);
+                else // the nearest blocker has the highest index
+                    blocker = blockHi != 0 ? 127 - Long.numberOfLeadingZeros(blockHi) : 63 - Long.numberOfLeadingZeros(blockLo);
+
+                // removing the blocker and everything behind it
+                rayLo &= ~RAY_LO[d][blocker];
+                rayHi &= ~RAY_HI[d][blocker];
+                if(blocker < 64) rayLo &= ~(1L << blocker); else rayHi &= ~(1L << (blocker - 64));
+            }
+            reachLo |= rayLo;
+            reachHi |= rayHi;
+        }
+        out[0] = reachLo;
+        out[1] = reachHi;
+    }
+
+    /**
+     * finds the squares an amazon can shoot at after jumping from one square to another, without changing the board -
+     * the origin is treated as empty.
+     * The origin is only on the ray that goes back from the destination to it, and that ray is built from the reach of the jump
+     * (the squares between the two squares, the origin itself, and what the origin reaches beyond it),
+     * so only the other seven rays are scanned.
+     * @param from the square the amazon jumps from (still occupied on the board)
+     * @param to the square the amazon jumps to (must be in jumpReach)
+     * @param jumpReach the squares reachable from the origin (from queenReach()), it may be the same array as out
+     * @param out where the result is written (low and high words)
+     */
+    public void arrowReach(int from, int to, long[] jumpReach, long[] out)
+    {
+        int back = directionBetween(to, from);
+        long backLo = (RAY_LO[back][to] & ~RAY_LO[back][from]) | (jumpReach[0] & RAY_LO[back][from]);
+        long backHi = (RAY_HI[back][to] & ~RAY_HI[back][from]) | (jumpReach[1] & RAY_HI[back][from]);
+        raysReach(to, occupiedLo(), occupiedHi(), back, backLo, backHi, out);
+    }
+
+    /**
+     * finds the squares an amazon can shoot at after jumping from one square to another (with the origin treated as empty),
+     * when the reach of the jump isn't known yet
+     */
+    public void arrowReach(int from, int to, long[] out)
+    {
+        queenReach(from, out);
+        if(hasBit(out[0], out[1], to))
+        {
+            arrowReach(from, to, out, out);
+            return;
+        }
+        // not a legal jump - the rays of the destination are scanned as if the origin was empty
+        long occLo = occupiedLo(), occHi = occupiedHi();
+        if(from < 64) occLo &= ~(1L << from); else occHi &= ~(1L << (from - 64));
+        queenReach(to, occLo, occHi, out);
+    }
+
+    /**
+     * returns the number of the direction that leads from one square to another (they must be on the same line)
+     */
+    public static int directionBetween(int fromSq, int toSq)
+    {
+        int d = DIRECTION_BETWEEN[fromSq * SQUARES + toSq];
+        if(d == NO_DIRECTION)
+            throw new IllegalArgumentException("The squares are not on the same line");
+        return d;
+    }
+
+    // whether moving in a direction increases the index of the square: down, right, down-right, down-left
+    private static final boolean[] DIRECTION_GROWS = {true, false, true, false, true, false, true, false};
+
+    /**
+     * counts the free squares from a square to the first blocker in a direction
+     */
+    public int freeLength(int sq, int directionNum)
+    {
+        long rayLo = RAY_LO[directionNum][sq], rayHi = RAY_HI[directionNum][sq];
+        long blockLo = rayLo & occupiedLo(), blockHi = rayHi & occupiedHi();
+        if((blockLo | blockHi) == 0)
+            return Long.bitCount(rayLo) + Long.bitCount(rayHi);
+
+        int blocker;
+        if(DIRECTION_GROWS[directionNum])
+            blocker = blockLo != 0 ? Long.numberOfTrailingZeros(blockLo) : 64 + Long.numberOfTrailingZeros(blockHi);
+        else
+            blocker = blockHi != 0 ? 127 - Long.numberOfLeadingZeros(blockHi) : 63 - Long.numberOfLeadingZeros(blockLo);
+        return Long.bitCount(rayLo & ~RAY_LO[directionNum][blocker]) + Long.bitCount(rayHi & ~RAY_HI[directionNum][blocker]) - 1;
+    }
+
+    /**
+     * returns whether a square has at least one empty neighbour (an amazon there can move)
+     */
+    public boolean hasEmptyNeighbour(int sq)
+    {
+        return (KING_LO[sq] & emptyLo()) != 0 || (KING_HI[sq] & emptyHi()) != 0;
+    }
+
+    /**
+     * returns whether none of the amazons of a player can move
+     */
+    public boolean isGameOver(PlayerColor color)
+    {
+        long emptyLo = emptyLo(), emptyHi = emptyHi();
+        long amLo = amazonsLo(color), amHi = amazonsHi(color);
+        // all the squares touching the amazons, in one dilation step
+        long aroundLo = kingStepLo(amLo, amHi), aroundHi = kingStepHi(amLo, amHi);
+        return (aroundLo & emptyLo) == 0 && (aroundHi & emptyHi) == 0;
+    }
+
+    public static long kingMaskLo(int sq)
+    {
+        return KING_LO[sq];
+    }
+
+    public static long kingMaskHi(int sq)
+    {
+        return KING_HI[sq];
+    }
+
+    /**
+     * the low word of all the squares touching the given set of squares
+     */
+    public static long kingStepLo(long lo, long hi)
+    {
+        long rightLo = (lo << 1) & NOT_COL0_LO;
+        long leftLo = ((lo >>> 1) | (hi << 63)) & NOT_COL9_LO;
+        long horizontal = lo | rightLo | leftLo;
+        long horizontalHi = hi | ((hi << 1 | lo >>> 63) & NOT_COL0_HI) | ((hi >>> 1) & NOT_COL9_HI);
+        // moving the widened row one row down and one row up
+        long downLo = horizontal << BOARD_COLS;
+        long upLo = (horizontal >>> BOARD_COLS) | (horizontalHi << (64 - BOARD_COLS));
+        return rightLo | leftLo | downLo | upLo;
+    }
+
+    /**
+     * the high word of all the squares touching the given set of squares
+     */
+    public static long kingStepHi(long lo, long hi)
+    {
+        long rightHi = ((hi << 1) | (lo >>> 63)) & NOT_COL0_HI;
+        long leftHi = (hi >>> 1) & NOT_COL9_HI;
+        long horizontalLo = lo | ((lo << 1) & NOT_COL0_LO) | (((lo >>> 1) | (hi << 63)) & NOT_COL9_LO);
+        long horizontal = hi | rightHi | leftHi;
+        long downHi = (horizontal << BOARD_COLS) | (horizontalLo >>> (64 - BOARD_COLS));
+        long upHi = horizontal >>> BOARD_COLS;
+        return (rightHi | leftHi | downHi | upHi) & FULL_HI;
+    }
+
+    /**
+     * flood fills a set of squares through king steps, without leaving a mask.
+     * since a queen move is a line of king steps, these are exactly the squares reachable with queen moves.
+     * the result is written to out[0] (low word) and out[1] (high word)
+     */
+    public static void floodFill(long seedLo, long seedHi, long maskLo, long maskHi, long[] out)
+    {
+        long lo = seedLo & maskLo, hi = seedHi & maskHi;
+        while(true)
+        {
+            long nextLo = (lo | kingStepLo(lo, hi)) & maskLo;
+            long nextHi = (hi | kingStepHi(lo, hi)) & maskHi;
+            if(nextLo == lo && nextHi == hi)
+                break;
+            lo = nextLo;
+            hi = nextHi;
+        }
+        out[0] = lo;
+        out[1] = hi;
+    }
+
+    /**
+     * finds the empty squares that can be reached by one or more queen moves from the amazons of a player
+     */
+    public void reachableTerritory(PlayerColor color, long[] out)
+    {
+        long amLo = amazonsLo(color), amHi = amazonsHi(color);
+        floodFill(kingStepLo(amLo, amHi), kingStepHi(amLo, amHi), emptyLo(), emptyHi(), out);
+    }
+}
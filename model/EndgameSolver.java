@@ -0,0 +1,190 @@
+package model;
+
+import controller.Constants;
+
+/**
+ * An exact solver for the end of the game, once the board has fully split -
+ * when no amazon can ever get to a square an amazon of the other color can get to.
+ * From then on each player just plays in their own areas, and the player that runs out of moves first loses,
+ * so the game is decided by how many moves each player can still make.
+ * That is not always the number of empty squares in their areas: an area can be "defective",
+ * so that an amazon has to leave some of its squares behind.
+ * The solver finds the exact number with a depth-first search over the moves of the amazons in each area
+ * (an area together with the amazons in it is searched on its own). Results are memoized by the empty squares
+ * and the amazons of the area, which fully describe it, so they stay correct for every later search too.
+ * A search that visits more positions than its node budget gives up, and the area is UNKNOWN.
+ * A solver is not thread safe - each thread should use its own.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class EndgameSolver implements Constants
+{
+    public static final int UNKNOWN = -1;
+    public static final int NODE_BUDGET = 200000; // positions a solve may visit before giving up
+    public static final int EVALUATION_NODE_BUDGET = 5000; // the budget of a solve inside a search, where it runs for many positions
+    public static final int MEMO_SIZE_BITS = 16;
+
+    // the memo, a direct-mapped table: an area is kept by its empty squares and amazons, with the moves that can be made in it
+    private final long[] memoEmptyLo = new long[1 << MEMO_SIZE_BITS];
+    private final long[] memoEmptyHi = new long[1 << MEMO_SIZE_BITS];
+    private final long[] memoAmazonsLo = new long[1 << MEMO_SIZE_BITS];
+    private final long[] memoAmazonsHi = new long[1 << MEMO_SIZE_BITS];
+    private final int[] memoMoves = new int[1 << MEMO_SIZE_BITS]; // 0 for an empty slot (areas with no moves are not kept)
+
+    // reach buffers for each depth of the search (every move fills a square, so it can't go deeper than the squares)
+    private final long[][] jumpReach = new long[BitBoard.SQUARES + 1][2];
+    private final long[][] arrowReach = new long[BitBoard.SQUARES + 1][2];
+    private final long[] area = new long[2];
+    private int nodes, nodeBudget;
+    private boolean isOverBudget;
+
+    /**
+     * returns whether the board has fully split - no area of empty squares and amazons holds amazons of both colors
+     * (amazons that touch each other are in the same area, since one of them may move and free its square for the other)
+     */
+    public boolean isFullySplit(BitBoard board)
+    {
+        long whiteLo = board.amazonsLo(PlayerColor.WHITE), whiteHi = board.amazonsHi(PlayerColor.WHITE);
+        long blackLo = board.amazonsLo(PlayerColor.BLACK), blackHi = board.amazonsHi(PlayerColor.BLACK);
+        BitBoard.floodFill(whiteLo, whiteHi, board.emptyLo() | whiteLo | blackLo, board.emptyHi() | whiteHi | blackHi, area);
+        return (area[0] & blackLo) == 0 && (area[1] & blackHi) == 0;
+    }
+
+    /**
+     * finds how many moves a player can still make, on a board that has fully split
+     * @param board the board (it is not changed)
+     * @param color the player
+     * @param nodeBudget how many positions the search of each area may visit
+     * @return the largest number of moves the player can make, or UNKNOWN if one of their areas was too big to solve
+     */
+    public int movesLeft(BitBoard board, PlayerColor color, int nodeBudget)
+    {
+        long amazonsLo = board.amazonsLo(color), amazonsHi = board.amazonsHi(color);
+        long maskLo = board.emptyLo() | amazonsLo, maskHi = board.emptyHi() | amazonsHi;
+        int total = 0;
+        // each area is found from an amazon that isn't in an area yet, and solved with all the amazons in it
+        while(amazonsLo != 0 || amazonsHi != 0)
+        {
+            long seedLo = amazonsLo & -amazonsLo;
+            long seedHi = seedLo == 0 ? amazonsHi & -amazonsHi : 0;
+            BitBoard.floodFill(seedLo, seedHi, maskLo, maskHi, area);
+            long areaLo = area[0], areaHi = area[1];
+
+            int moves = maxMoves(areaLo & ~amazonsLo, areaHi & ~amazonsHi, areaLo & amazonsLo, areaHi & amazonsHi, nodeBudget);
+            if(moves == UNKNOWN)
+                return UNKNOWN;
+            total += moves;
+            amazonsLo &= ~areaLo;
+            amazonsHi &= ~areaHi;
+        }
+        return total;
+    }
+
+    /**
+     * finds the largest number of moves a group of amazons can make in a sealed area
+     * @param emptyLo the empty squares of the area (low word), and emptyHi the high word
+     * @param amazonsLo the amazons in the area (low word), and amazonsHi the high word - all of one color
+     * @param nodeBudget how many positions the search may visit
+     * @return the number of moves, or UNKNOWN if the search went over its budget
+     */
+    public int maxMoves(long emptyLo, long emptyHi, long amazonsLo, long amazonsHi, int nodeBudget)
+    {
+        this.nodeBudget = nodeBudget;
+        nodes = 0;
+        isOverBudget = false;
+        int moves = search(emptyLo, emptyHi, amazonsLo, amazonsHi, 0);
+        return isOverBudget ? UNKNOWN : moves;
+    }
+
+    // the depth-first search of maxMoves()
+    private int search(long emptyLo, long emptyHi, long amazonsLo, long amazonsHi, int depth)
+    {
+        if(++nodes > nodeBudget)
+        {
+            isOverBudget = true;
+            return 0;
+        }
+
+        int slot = slotOf(emptyLo, emptyHi, amazonsLo, amazonsHi);
+        if(memoMoves[slot] != 0 && memoEmptyLo[slot] == emptyLo && memoEmptyHi[slot] == emptyHi
+            && memoAmazonsLo[slot] == amazonsLo && memoAmazonsHi[slot] == amazonsHi)
+            return memoMoves[slot];
+
+        // every move fills a square, so the amazons can't make more moves than the empty squares
+        int upperBound = Long.bitCount(emptyLo) + Long.bitCount(emptyHi);
+        long occupiedLo = ~emptyLo, occupiedHi = ~emptyHi & BitBoard.FULL_HI; // everything outside the area is blocked
+        long[] jumps = jumpReach[depth], arrows = arrowReach[depth];
+        int best = 0;
+
+        long leftLo = amazonsLo, leftHi = amazonsHi;
+        while((leftLo != 0 || leftHi != 0) && best < upperBound)
+        {
+            int from;
+            if(leftLo != 0)
+            {
+                from = Long.numberOfTrailingZeros(leftLo);
+                leftLo &= leftLo - 1;
+            }
+            else
+            {
+                from = 64 + Long.numberOfTrailingZeros(leftHi);
+                leftHi &= leftHi - 1;
+            }
+            long fromLo = from < 64 ? 1L << from : 0, fromHi = from < 64 ? 0 : 1L << (from - 64);
+
+            BitBoard.queenReach(from, occupiedLo, occupiedHi, jumps);
+            long toSetLo = jumps[0], toSetHi = jumps[1];
+            while((toSetLo != 0 || toSetHi != 0) && best < upperBound)
+            {
+                int to;
+                if(toSetLo != 0)
+                {
+                    to = Long.numberOfTrailingZeros(toSetLo);
+                    toSetLo &= toSetLo - 1;
+                }
+                else
+                {
+                    to = 64 + Long.numberOfTrailingZeros(toSetHi);
+                    toSetHi &= toSetHi - 1;
+                }
+                long toLo = to < 64 ? 1L << to : 0, toHi = to < 64 ? 0 : 1L << (to - 64);
+
+                // after the jump the square the amazon left is empty, and the one it got to is not
+                long jumpedEmptyLo = (emptyLo | fromLo) & ~toLo, jumpedEmptyHi = (emptyHi | fromHi) & ~toHi;
+                long jumpedAmazonsLo = (amazonsLo & ~fromLo) | toLo, jumpedAmazonsHi = (amazonsHi & ~fromHi) | toHi;
+                BitBoard.queenReach(to, ~jumpedEmptyLo, ~jumpedEmptyHi & BitBoard.FULL_HI, arrows);
+                long arrowSetLo = arrows[0], arrowSetHi = arrows[1];
+                while((arrowSetLo != 0 || arrowSetHi != 0) && best < upperBound)
+                {
+                    long arrowLo = arrowSetLo & -arrowSetLo;
+                    long arrowHi = arrowLo == 0 ? arrowSetHi & -arrowSetHi : 0;
+                    arrowSetLo &= ~arrowLo;
+                    arrowSetHi &= ~arrowHi;
+
+                    int moves = 1 + search(jumpedEmptyLo & ~arrowLo, jumpedEmptyHi & ~arrowHi, jumpedAmazonsLo, jumpedAmazonsHi, depth + 1);
+                    if(isOverBudget)
+                        return 0;
+                    if(moves > best)
+                        best = moves;
+                }
+            }
+        }
+
+        if(best > 0)
+        {
+            memoEmptyLo[slot] = emptyLo;
+            memoEmptyHi[slot] = emptyHi;
+            memoAmazonsLo[slot] = amazonsLo;
+            memoAmazonsHi[slot] = amazonsHi;
+            memoMoves[slot] = best;
+        }
+        return best;
+    }
+
+    private static int slotOf(long emptyLo, long emptyHi, long amazonsLo, long amazonsHi)
+    {
+        long mixed = (emptyLo * 0x9E3779B97F4A7C15L) ^ (emptyHi * 0xC2B2AE3D27D4EB4FL)
+            ^ (amazonsLo * 0x165667B19E3779F9L) ^ (amazonsHi * 0x27D4EB2F165667C5L);
+        return (int) (mixed >>> (64 - MEMO_SIZE_BITS));
+    }
+}
@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * The buffers of the static evaluations of one thread (see Model.complexEvaluationFunction()),
+ * so evaluating a board allocates nothing: the territories and areas are filled in these buffers
+ * instead of new arrays, and the table lookups read into the same entry.
+ * A buffer is only used between two calls of the evaluation, so nested evaluations can share them.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+final class EvaluationBuffers
+{
+    final long[] playerTerritory = new long[2]; // the squares the player can reach (low and high words)
+    final long[] opponentTerritory = new long[2]; // the squares the opponent can reach
+    final long[] area = new long[2]; // the squares of one flood fill
+    final TranspositionTable.Entry evaluationEntry = new TranspositionTable.Entry(); // for the static scores
+    final TranspositionTable.Entry responseEntry = new TranspositionTable.Entry(); // for the best responses
+}
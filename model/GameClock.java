@@ -0,0 +1,93 @@
+package model;
+
+import controller.Constants;
+import static controller.Constants.PlayerColor.*;
+
+/**
+ * A chess-style game clock: each player has a main time, and gets an increment after every move they play.
+ * The clock also decides how much of the remaining time the AI may use for its next move.
+ * All the times are in milliseconds.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class GameClock implements Constants
+{
+    public static final int MIN_MOVES_TO_GO = 6; // never plan for fewer moves than this, the game may go on longer
+    public static final long SAFETY_MARGIN = 50; // kept on the clock for the overhead around the search
+    public static final long MIN_BUDGET = 10;
+
+    private final long incrementMillis;
+    private long whiteRemaining, blackRemaining;
+
+    /**
+     * constructs a GameClock object
+     * @param mainTimeMillis the time each player starts with
+     * @param incrementMillis the time added to a player's clock after each of their moves
+     */
+    public GameClock(long mainTimeMillis, long incrementMillis)
+    {
+        if(mainTimeMillis <= 0 || incrementMillis < 0)
+            throw new IllegalArgumentException("Invalid time control");
+        this.incrementMillis = incrementMillis;
+        whiteRemaining = mainTimeMillis;
+        blackRemaining = mainTimeMillis;
+    }
+
+    public long getRemainingMillis(PlayerColor color)
+    {
+        return color == WHITE ? whiteRemaining : blackRemaining;
+    }
+
+    public long getIncrementMillis()
+    {
+        return incrementMillis;
+    }
+
+    /**
+     * returns whether a player ran out of time
+     */
+    public boolean isFlagged(PlayerColor color)
+    {
+        return getRemainingMillis(color) < 0;
+    }
+
+    /**
+     * decides how long a player may think about their next move.
+     * Every move fills one square, so a player has at most about half of the empty squares left to play,
+     * but the last moves of a game (filling separated territories) are quick - the player plans for a third of them.
+     * @param color the player that should play
+     * @param emptySquares how many empty squares the board has
+     * @return the time budget of the move
+     */
+    public long allocateMillis(PlayerColor color, int emptySquares)
+    {
+        long remaining = getRemainingMillis(color);
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, emptySquares / 3);
+        long budget = remaining / movesToGo + incrementMillis * 3 / 4;
+        budget = Math.min(budget, remaining - SAFETY_MARGIN);
+        return Math.max(budget, MIN_BUDGET);
+    }
+
+    /**
+     * charges a player for a move they played, and adds the increment to their clock
+     * @param color the player that played
+     * @param usedMillis how long the move took
+     */
+    public void moveDone(PlayerColor color, long usedMillis)
+    {
+        long remaining = getRemainingMillis(color) - usedMillis;
+        if(remaining >= 0) // a player whose time ran out doesn't get the increment
+            remaining += incrementMillis;
+
+        if(color == WHITE)
+            whiteRemaining = remaining;
+        else
+            blackRemaining = remaining;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GameClock [White: " + whiteRemaining + "ms, Black: " + blackRemaining + "ms, Increment: " + incrementMillis + "ms]";
+    }
+}
@@ -0,0 +1,169 @@
+package model;
+
+import controller.Constants;
+import controller.Position;
+import static controller.Constants.PlayerColor.*;
+
+/**
+ * The state of a game that the AI searches: the board (with its hash), the player that should play,
+ * the amazons of each player, the number of empty squares, the paths matrix, and the regions of the empty squares.
+ * Everything is updated incrementally by make(), and restored by unmake() from an undo stack,
+ * so no part of the state is ever rebuilt from the whole board during a search.
+ * The state works on its own copy of the board.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class GameState implements Constants
+{
+    private final Model model;
+    private final BitBoard board;
+    private final int[][][] pathsMat;
+    private final Position[] whiteAmazons, blackAmazons;
+    private final RegionPartition regions;
+    private PlayerColor colorToPlay;
+    private int emptySquares;
+    private final long[] counts = new long[SearchStats.COUNTERS]; // what a search on the state did (see SearchStats)
+
+    // the moves that were made, so they can be undone (every move fills a square, so there can't be more than the squares)
+    private final int[] undoStack = new int[BitBoard.SQUARES];
+    private int undoSize;
+
+    /**
+     * constructs a GameState object
+     * @param model the model whose incremental update functions are used
+     * @param board the board of the state (it is copied)
+     * @param colorToPlay the color of the player that should play now
+     */
+    public GameState(Model model, BitBoard board, PlayerColor colorToPlay)
+    {
+        this.model = model;
+        this.board = new BitBoard(board);
+        this.colorToPlay = colorToPlay;
+        pathsMat = model.pathsForWholeBoard(this.board);
+        whiteAmazons = model.amazonsForPlayerSign(this.board, WHITE);
+        blackAmazons = model.amazonsForPlayerSign(this.board, BLACK);
+        emptySquares = this.board.countEmpty();
+        regions = new RegionPartition(this.board);
+    }
+
+    /**
+     * the player that should play now performs a move
+     * @param packedMove the move (see PackedMove)
+     */
+    public void make(int packedMove)
+    {
+        model.doMoveOnBoard(board, colorToPlay, packedMove);
+        model.updatePathsMatrix(board, pathsMat, packedMove);
+        model.updateAmazonArr(amazonsOf(colorToPlay), packedMove);
+        regions.make(PackedMove.from(packedMove), PackedMove.to(packedMove), PackedMove.arrow(packedMove));
+        emptySquares--;
+        undoStack[undoSize++] = packedMove;
+        colorToPlay = model.otherColor(colorToPlay);
+        counts[SearchStats.NODES]++;
+    }
+
+    /**
+     * undoes the last move that was made
+     */
+    public void unmake()
+    {
+        int packedMove = undoStack[--undoSize];
+        colorToPlay = model.otherColor(colorToPlay);
+        model.undoMoveOnBoard(board, colorToPlay, packedMove);
+        model.undoUpdateAmazonArr(amazonsOf(colorToPlay), packedMove);
+        model.undoUpdatePathsMatrix(board, pathsMat, packedMove);
+        regions.unmake();
+        emptySquares++;
+    }
+
+    public BitBoard getBoard()
+    {
+        return board;
+    }
+
+    public int[][][] getPathsMat()
+    {
+        return pathsMat;
+    }
+
+    public RegionPartition getRegions()
+    {
+        return regions;
+    }
+
+    public Position[] amazonsOf(PlayerColor color)
+    {
+        return color == WHITE ? whiteAmazons : blackAmazons;
+    }
+
+    public PlayerColor getColorToPlay()
+    {
+        return colorToPlay;
+    }
+
+    /**
+     * returns the color of the player that played the last move (the one that doesn't play now)
+     */
+    public PlayerColor getColorPlayed()
+    {
+        return model.otherColor(colorToPlay);
+    }
+
+    public int getEmptySquares()
+    {
+        return emptySquares;
+    }
+
+    /**
+     * returns how many moves were made since the state was created
+     */
+    public int getPly()
+    {
+        return undoSize;
+    }
+
+    /**
+     * returns how many moves were made on the state since it was created (the positions a search on it visited)
+     */
+    public long getNodes()
+    {
+        return counts[SearchStats.NODES];
+    }
+
+    /**
+     * counts one more of a SearchStats counter (EVALUATIONS, TABLE_PROBES...)
+     */
+    public void count(int counter)
+    {
+        counts[counter]++;
+    }
+
+    public void count(int counter, long amount)
+    {
+        counts[counter] += amount;
+    }
+
+    /**
+     * returns the counts of the searches on the state (indexed by the SearchStats counters, with the nodes)
+     */
+    public long[] getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * returns the hash of the position - the board and the player that should play
+     */
+    public long getKey()
+    {
+        return board.getHash() ^ Zobrist.sideKey(colorToPlay);
+    }
+
+    /**
+     * returns whether the player that should play now cannot move (read from the paths matrix)
+     */
+    public boolean isGameOver()
+    {
+        return model.isGameOver(pathsMat, amazonsOf(colorToPlay));
+    }
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.util.concurrent.CompletableFuture;
+
 import controller.Constants.*;
 import controller.Position;
 import controller.Move;
@@ -43,6 +45,14 @@ public interface IModel
 
     public Move getAiMove(OpponentType opponent, PlayerColor playerSign);
 
+    public Move getAiMove(OpponentType opponent, PlayerColor playerSign, long timeBudgetMillis);
+
+    public Move getAiMove(OpponentType opponent, PlayerColor playerSign, GameClock clock);
+
+    public CompletableFuture<Move> getAiMoveAsync(OpponentType opponent, PlayerColor playerSign);
+
+    public AnalysisSession analyze(PlayerColor playerToPlay, int lines, AnalysisListener listener);
+
     public void randomBoard();
 
 }
@@ -0,0 +1,111 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, like an HDR histogram: the values under 256 have a bucket each, and every power of two
+ * above is split into 128 linear buckets, so every value is kept with an error of less than 1/128 (under 1%),
+ * from a microsecond to days, in a fixed array of counts.
+ * Recording is allocation-free and lock-free (an atomic increment), so many threads can record together.
+ * The values are in microseconds.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class LatencyHistogram
+{
+    public static final int SUB_BUCKET_BITS = 8;
+    public static final long MAX_VALUE = (1L << 40) - 1; // larger values are recorded as this (about 12 days)
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS, HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * returns the bucket of a value: the values under 256 have a bucket each, and every power of two above
+     * is split into 128 buckets (its top 8 bits)
+     */
+    static int indexOf(long value)
+    {
+        if(value < SUB_BUCKETS)
+            return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // at least 1
+        int top = (int) (value >>> shift); // between 128 and 255
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+    }
+
+    /**
+     * returns the largest value of a bucket
+     */
+    static long highestValueOf(int index)
+    {
+        if(index < SUB_BUCKETS)
+            return index;
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = HALF_SUB_BUCKETS + (index - SUB_BUCKETS) % HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * records a latency
+     * @param micros the latency, in microseconds
+     */
+    public void record(long micros)
+    {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        long currentMax = max.get();
+        while(value > currentMax && !max.compareAndSet(currentMax, value))
+            currentMax = max.get();
+    }
+
+    public long getCount()
+    {
+        return totalCount.get();
+    }
+
+    /**
+     * returns the largest latency that was recorded (exactly, not by its bucket)
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * returns the latency that a part of the recorded latencies are at or under
+     * (the largest value of its bucket, and never more than the max)
+     * @param percentile between 0 and 100
+     * @return the latency in microseconds, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long total = totalCount.get();
+        if(total == 0)
+            return 0;
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts.get(i);
+            if(seen >= countAtPercentile)
+                return Math.min(highestValueOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * empties the histogram (latencies recorded while it is reset may be lost)
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts.set(i, 0);
+        totalCount.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,154 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import controller.Move;
+import controller.Constants.PlayerColor;
+
+/**
+ * A Lazy SMP parallel search.
+ * The main thread and N-1 helper threads run the same iterative deepening search (SearchEngine) on the same position,
+ * each with its own board, and all of them share one lock-free transposition table.
+ * Helpers order their moves a bit differently, so they search other parts of the tree first,
+ * and the main search finds their results in the table instead of searching them again.
+ * The move of the main search is the one that is played; the helpers are stopped when it finishes.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class LazySmpSearch
+{
+    private final Model model;
+    private final TranspositionTable table;
+    private final int threads;
+    private final int maxDepth;
+    private long nodes; // positions visited by all the threads in the last search
+    private long[] counts = new long[SearchStats.COUNTERS]; // the counts of all the threads in the last search
+    private SearchEngine mainEngine; // the engine whose move is played
+    private long deadline = SearchEngine.NO_DEADLINE;
+    private AtomicBoolean externalStopSignal; // stops the whole search from outside (may be null)
+    private int lines = 1; // the lines of the main search (see SearchEngine.setLines())
+    private SearchEngine.IterationListener iterationListener; // gets the iterations of the main search (may be null)
+
+    /**
+     * constructs a LazySmpSearch object
+     * @param model the model whose move generation and evaluation are used
+     * @param table the transposition table shared by all the threads
+     * @param threads how many threads search (including the main one)
+     * @param maxDepth the deepest iteration of the search (in plies)
+     */
+    public LazySmpSearch(Model model, TranspositionTable table, int threads, int maxDepth)
+    {
+        this.model = model;
+        this.table = table;
+        this.threads = threads;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * makes the search stop at a time, instead of at its max depth
+     * (only the main search watches the time - the helpers stop with it)
+     * @param deadline the time to stop, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     */
+    public void setDeadline(long deadline)
+    {
+        this.deadline = deadline;
+    }
+
+    /**
+     * sets a signal that stops the search from outside (the main search stops, and the helpers stop with it)
+     */
+    public void setStopSignal(AtomicBoolean stopSignal)
+    {
+        externalStopSignal = stopSignal;
+    }
+
+    /**
+     * makes the main search find several best lines (the helpers still search for the best move only)
+     */
+    public void setLines(int lines)
+    {
+        this.lines = lines;
+    }
+
+    /**
+     * sets the listener that gets the best lines after every iteration of the main search (null for none)
+     */
+    public void setIterationListener(SearchEngine.IterationListener iterationListener)
+    {
+        this.iterationListener = iterationListener;
+    }
+
+    /**
+     * finds the best move for a player with all the threads
+     * @param rootBoard the board to search (it is not changed)
+     * @param playerToPlay the color of the player that should play now
+     * @return the move found by the main search, or null if the player cannot move
+     */
+    public Move search(BitBoard rootBoard, PlayerColor playerToPlay)
+    {
+        AtomicBoolean stopSignal = new AtomicBoolean(false);
+        SearchEngine[] helpers = new SearchEngine[threads - 1];
+        Thread[] helperThreads = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++)
+        {
+            int helperId = i + 1;
+            SearchEngine helper = new SearchEngine(model, table, maxDepth, helperId, stopSignal);
+            BitBoard helperBoard = new BitBoard(rootBoard); // the root board may change after the main search returns
+            helpers[i] = helper;
+            helperThreads[i] = new Thread(() -> helper.search(helperBoard, playerToPlay), "lazy-smp-helper-" + helperId);
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+
+        mainEngine = new SearchEngine(model, table, maxDepth, 0, externalStopSignal);
+        mainEngine.setDeadline(deadline);
+        mainEngine.setLines(lines);
+        mainEngine.setIterationListener(iterationListener);
+        Move bestMove = mainEngine.search(rootBoard, playerToPlay);
+
+        stopSignal.set(true);
+        nodes = mainEngine.getNodes();
+        counts = mainEngine.getCounts().clone();
+        for (int i = 0; i < helperThreads.length; i++)
+        {
+            try
+            {
+                helperThreads[i].join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            nodes += helpers[i].getNodes();
+            long[] helperCounts = helpers[i].getCounts();
+            for (int j = 0; j < counts.length; j++)
+                counts[j] += helperCounts[j];
+        }
+        return bestMove;
+    }
+
+    /**
+     * returns how many positions all the threads visited in the last search
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * returns the counts of all the threads in the last search (indexed by the SearchStats counters)
+     */
+    public long[] getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * returns the main search of the last search - its depth, best move changes and phase times are the ones of the move
+     */
+    public SearchEngine getMainEngine()
+    {
+        return mainEngine;
+    }
+}
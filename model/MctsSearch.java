@@ -0,0 +1,464 @@
+package model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * A Monte Carlo tree search (UCT) for the MCTS level.
+ * Each playout walks down the tree by the UCT rule, adds one new node, plays a few random moves from it,
+ * and scores the position it got to with the static evaluation (turned into a chance to win).
+ * The result goes back up the path, for the player that moved into each node.
+ * Amazons has thousands of moves in a position, so the children of a node are added by progressive widening:
+ * a node visited n times may have up to WIDENING_FACTOR * sqrt(n) + 1 children, and each new child is the best
+ * (by the easy evaluation) of a few random moves that aren't children yet. So the tree never keeps move lists.
+ * The search is tree parallel: all the threads walk the same tree, each with its own GameState, and a thread
+ * adds a virtual loss to the nodes of its path until its playout is back, so the other threads try other paths.
+ * The search ends after a number of playouts (by all the threads together), at a deadline, or by a stop signal,
+ * and plays the child of the root that was visited the most.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class MctsSearch implements Constants
+{
+    public static final int DEFAULT_PLAYOUTS = 20000;
+    public static final int PLAYOUT_DEPTH = 4; // random moves in a playout, before it is scored
+    public static final double EXPLORATION = 0.4; // the UCT exploration constant
+    public static final double WIDENING_FACTOR = 1.5;
+    public static final int WIDENING_SAMPLES = 6; // random moves compared to pick a new child
+    public static final int VIRTUAL_LOSS = 1; // visits (with no win) added to the nodes of a path that is being played out
+    public static final double SCORE_SCALE = 10; // the score at which the chance to win is 1 / (1 + e^-1)
+    public static final long SEED = 0x5EED_3C75L;
+
+    private final Model model;
+    private final int threads;
+    private final int playouts;
+    private long deadline = SearchEngine.NO_DEADLINE;
+    private AtomicBoolean stopSignal; // may be null
+    private final AtomicInteger playoutsLeft = new AtomicInteger();
+    private Node root;
+    private long nodes; // the moves all the threads made in the last search
+    private long[] counts = new long[SearchStats.COUNTERS]; // the counts of all the threads in the last search
+    private int depthReached; // the deepest node of the tree in the last search (in plies from the root)
+
+    /**
+     * a node of the tree - the position after a move.
+     * the statistics are kept for the player that made the move, and changed only while holding the node's lock
+     * (they are volatile, so the UCT rule can read them without it)
+     */
+    private static final class Node
+    {
+        final int move;
+        volatile int visits;
+        volatile double wins;
+        volatile int virtualLosses;
+        Node[] children = new Node[2];
+        int childCount;
+        boolean isTerminal; // the player to play has no moves
+
+        Node(int move)
+        {
+            this.move = move;
+        }
+
+        synchronized void addVirtualLoss()
+        {
+            virtualLosses += VIRTUAL_LOSS;
+        }
+
+        synchronized void update(double result)
+        {
+            visits++;
+            wins += result;
+            virtualLosses -= VIRTUAL_LOSS;
+        }
+
+        void addChild(Node child)
+        {
+            if(childCount == children.length)
+                children = Arrays.copyOf(children, childCount * 2);
+            children[childCount++] = child;
+        }
+    }
+
+    /**
+     * the things each thread searches with, so a playout allocates nothing
+     */
+    private final class Worker implements Runnable
+    {
+        final GameState state;
+        final SplittableRandom random;
+        final Node[] path = new Node[BitBoard.SQUARES + 1];
+        final long[] jumps = new long[2], shots = new long[2];
+        final int[] amazonSquares = new int[Math.max(WHITE_AMAZON_NUMBER, BLACK_AMAZON_NUMBER)];
+        int deepestPath; // the longest path from the root this thread walked down the tree
+
+        Worker(BitBoard rootBoard, PlayerColor playerToPlay, int workerId)
+        {
+            state = new GameState(model, rootBoard, playerToPlay);
+            random = new SplittableRandom(SEED + workerId);
+        }
+
+        @Override
+        public void run()
+        {
+            while(playoutsLeft.getAndDecrement() > 0 && !shouldStop())
+                playout(this);
+        }
+    }
+
+    /**
+     * constructs a MctsSearch object
+     * @param model the model whose move generation and evaluation are used
+     * @param threads how many threads search (including the one that calls search())
+     * @param playouts how many playouts all the threads make together
+     */
+    public MctsSearch(Model model, int threads, int playouts)
+    {
+        if(threads < 1 || playouts < 1)
+            throw new IllegalArgumentException("At least one thread and one playout are needed");
+        this.model = model;
+        this.threads = threads;
+        this.playouts = playouts;
+    }
+
+    /**
+     * makes the search stop at a time, even if not all the playouts were made
+     * @param deadline the time to stop, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     */
+    public void setDeadline(long deadline)
+    {
+        this.deadline = deadline;
+    }
+
+    /**
+     * sets a signal that stops the search from outside
+     */
+    public void setStopSignal(AtomicBoolean stopSignal)
+    {
+        this.stopSignal = stopSignal;
+    }
+
+    private boolean shouldStop()
+    {
+        return (stopSignal != null && stopSignal.get()) || (deadline != SearchEngine.NO_DEADLINE && System.nanoTime() > deadline);
+    }
+
+    /**
+     * finds a move for a player
+     * @param rootBoard the board to search (it is not changed)
+     * @param playerToPlay the color of the player that should play now
+     * @return the child of the root that was visited the most, or null if the player cannot move
+     */
+    public Move search(BitBoard rootBoard, PlayerColor playerToPlay)
+    {
+        root = new Node(PackedMove.NONE);
+        playoutsLeft.set(playouts);
+
+        Worker[] workers = new Worker[threads];
+        Thread[] helperThreads = new Thread[threads - 1];
+        for (int i = 0; i < helperThreads.length; i++)
+        {
+            workers[i + 1] = new Worker(rootBoard, playerToPlay, i + 1);
+            helperThreads[i] = new Thread(workers[i + 1], "mcts-worker-" + (i + 1));
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+        workers[0] = new Worker(rootBoard, playerToPlay, 0);
+        workers[0].run();
+        for (Thread helperThread : helperThreads)
+        {
+            try
+            {
+                helperThread.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        nodes = 0;
+        counts = new long[SearchStats.COUNTERS];
+        depthReached = 0;
+        for (Worker worker : workers)
+        {
+            nodes += worker.state.getNodes();
+            long[] workerCounts = worker.state.getCounts();
+            for (int i = 0; i < counts.length; i++)
+                counts[i] += workerCounts[i];
+            depthReached = Math.max(depthReached, worker.deepestPath);
+        }
+
+        Node best = null;
+        synchronized(root)
+        {
+            for (int i = 0; i < root.childCount; i++)
+            {
+                Node child = root.children[i];
+                if(best == null || child.visits > best.visits)
+                    best = child;
+            }
+        }
+        if(best == null)
+            return null;
+        Move move = PackedMove.toMove(best.move);
+        move.setScore(scoreOf(best));
+        return move;
+    }
+
+    /**
+     * returns how many playouts were made in the last search
+     */
+    public int getPlayouts()
+    {
+        return root == null ? 0 : root.visits;
+    }
+
+    /**
+     * returns how many moves all the threads made in the last search (down the tree, in the playouts and to pick new children)
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * returns the counts of all the threads in the last search (indexed by the SearchStats counters)
+     */
+    public long[] getCounts()
+    {
+        return counts;
+    }
+
+    /**
+     * returns how deep the tree of the last search got (in plies from the root, without the random playouts)
+     */
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+
+    /**
+     * turns the win rate of a node back into a score like the one of the static evaluation
+     */
+    private static double scoreOf(Node node)
+    {
+        double winRate = Math.min(0.999, Math.max(0.001, node.wins / Math.max(1, node.visits)));
+        return SCORE_SCALE * Math.log(winRate / (1 - winRate));
+    }
+
+    /**
+     * one playout: down the tree to a new node (or a finished game), a few random moves from it, and back up
+     */
+    private void playout(Worker worker)
+    {
+        GameState state = worker.state;
+        Node[] path = worker.path;
+        int length = 0;
+        Node node = root;
+        node.addVirtualLoss();
+        path[length++] = node;
+
+        double result; // for the player that moved into the last node of the path
+        while(true)
+        {
+            Node next = null;
+            boolean isNew = false, isTerminal;
+            synchronized(node)
+            {
+                if(!node.isTerminal && node.childCount < maxChildren(node.visits))
+                {
+                    next = widen(node, worker);
+                    isNew = next != null;
+                }
+                if(next == null && !node.isTerminal)
+                    next = selectChild(node);
+                isTerminal = node.isTerminal;
+            }
+            if(isTerminal)
+            {
+                result = 1; // the player to play can't move, so the player that moved here wins
+                break;
+            }
+
+            next.addVirtualLoss();
+            state.make(next.move);
+            path[length++] = next;
+            node = next;
+            if(isNew)
+            {
+                result = randomPlayout(worker);
+                break;
+            }
+        }
+
+        if(length - 1 > worker.deepestPath)
+            worker.deepestPath = length - 1;
+        for (int i = length - 1; i > 0; i--)
+            state.unmake();
+        for (int i = length - 1; i >= 0; i--)
+        {
+            path[i].update(result);
+            result = 1 - result;
+        }
+    }
+
+    /**
+     * how many children a node may have after a number of visits
+     */
+    private static int maxChildren(int visits)
+    {
+        return 1 + (int) (WIDENING_FACTOR * Math.sqrt(visits));
+    }
+
+    /**
+     * adds a child to a node (the state is at the node, and the node's lock is held):
+     * the best of a few random moves that aren't children yet, by the easy evaluation
+     * @return the new child, or null if all the moves that were tried are children already
+     * (or the player has no moves, and then the node is marked terminal)
+     */
+    private Node widen(Node node, Worker worker)
+    {
+        GameState state = worker.state;
+        int bestMove = PackedMove.NONE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int sample = 0; sample < WIDENING_SAMPLES; sample++)
+        {
+            int move = randomMove(worker);
+            if(move == PackedMove.NONE)
+            {
+                node.isTerminal = node.childCount == 0;
+                return null;
+            }
+            if(move == bestMove || isChild(node, move))
+                continue;
+            state.make(move);
+            double score = model.easyEvaluationFunction(state);
+            state.unmake();
+            if(score > bestScore)
+            {
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+        if(bestMove == PackedMove.NONE)
+            return null;
+        Node child = new Node(bestMove);
+        node.addChild(child);
+        return child;
+    }
+
+    private static boolean isChild(Node node, int move)
+    {
+        for (int i = 0; i < node.childCount; i++)
+            if(node.children[i].move == move)
+                return true;
+        return false;
+    }
+
+    /**
+     * picks the child with the best UCT value (with the virtual losses of the paths being played out)
+     */
+    private static Node selectChild(Node node)
+    {
+        double logVisits = Math.log(Math.max(1, node.visits + node.virtualLosses));
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.childCount; i++)
+        {
+            Node child = node.children[i];
+            int visits = child.visits + child.virtualLosses;
+            double value = visits == 0 ? Double.POSITIVE_INFINITY
+                : child.wins / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+            if(value > bestValue)
+            {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * plays a few random moves from the state and scores the position it gets to (the state is restored after)
+     * @return the chance to win of the player that played the last move before the playout
+     */
+    private double randomPlayout(Worker worker)
+    {
+        GameState state = worker.state;
+        PlayerColor mover = state.getColorPlayed();
+        int plies = 0;
+        double result;
+        while(true)
+        {
+            if(plies == PLAYOUT_DEPTH)
+            {
+                // the evaluation is for the player that played last
+                double winChance = 1 / (1 + Math.exp(-model.cachedComplexEvaluation(state) / SCORE_SCALE));
+                result = state.getColorPlayed() == mover ? winChance : 1 - winChance;
+                break;
+            }
+            int move = randomMove(worker);
+            if(move == PackedMove.NONE)
+            {
+                result = state.getColorToPlay() == mover ? 0 : 1; // the player to play lost
+                break;
+            }
+            state.make(move);
+            plies++;
+        }
+        for (int i = 0; i < plies; i++)
+            state.unmake();
+        return result;
+    }
+
+    /**
+     * picks a random move of the player to play: a random amazon that can move, a random jump, and a random arrow.
+     * works only with bitboards and the worker's buffers, so it allocates nothing
+     * @return the packed move, or PackedMove.NONE if the player has no moves
+     */
+    private int randomMove(Worker worker)
+    {
+        BitBoard board = worker.state.getBoard();
+        int count = board.amazonSquares(worker.state.getColorToPlay(), worker.amazonSquares);
+        int first = worker.random.nextInt(count);
+        for (int i = 0; i < count; i++)
+        {
+            int from = worker.amazonSquares[(first + i) % count];
+            board.queenReach(from, worker.jumps);
+            int jumpCount = Long.bitCount(worker.jumps[0]) + Long.bitCount(worker.jumps[1]);
+            if(jumpCount == 0)
+                continue;
+            int to = nthSquare(worker.jumps, worker.random.nextInt(jumpCount));
+            board.arrowReach(from, to, worker.jumps, worker.shots);
+            // the amazon can always shoot back at the square it left
+            int arrow = nthSquare(worker.shots, worker.random.nextInt(Long.bitCount(worker.shots[0]) + Long.bitCount(worker.shots[1])));
+            return PackedMove.pack(from, to, arrow);
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * returns the square of the n-th set bit of a bitboard layer (counting from 0)
+     */
+    private static int nthSquare(long[] squares, int n)
+    {
+        long lo = squares[0];
+        int loCount = Long.bitCount(lo);
+        if(n >= loCount)
+        {
+            long hi = squares[1];
+            for (int i = loCount; i < n; i++)
+                hi &= hi - 1;
+            return 64 + Long.numberOfTrailingZeros(hi);
+        }
+        for (int i = 0; i < n; i++)
+            lo &= lo - 1;
+        return Long.numberOfTrailingZeros(lo);
+    }
+}
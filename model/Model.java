@@ -1,10 +1,13 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 //import controller.Controller;
 import controller.Move;
@@ -13,6 +16,7 @@ import controller.Constants;
 import static controller.Constants.PlayerColor.*;
 import static controller.Constants.CellContent.*;
 import static controller.Constants.OpponentType.*;
+import static controller.Constants.EvaluationType.*;
 
 
 /**
@@ -25,18 +29,169 @@ import static controller.Constants.OpponentType.*;
 public class Model implements IModel, Constants
 {
     //private Controller controller;
-    private CellContent[][] boardState; //each square is empty or has white/black amazon/arrow
+    private BitBoard boardState; //each square is empty or has white/black amazon/arrow
     private PlayerColor colorToPlayNow; // whose turn is it now
+    private TranspositionTable transpositionTable; // positions the AI already evaluated, kept between moves
+    private int searchThreads; // how many threads the AI searches with
+    private ForkJoinPool searchPool; // created on the first parallel search
+    private ExecutorService aiExecutor; // runs the asynchronous AI moves, created on the first one
+    private volatile EvaluationType evaluationType = COMPLEX; // the static evaluation of the MEDIUM, HARD and EXPERT levels
+    private final ThreadLocal<TerritoryEvaluator> territoryEvaluators = ThreadLocal.withInitial(TerritoryEvaluator::new);
+    private final ThreadLocal<EndgameSolver> endgameSolvers = ThreadLocal.withInitial(EndgameSolver::new);
+    private final ThreadLocal<EvaluationBuffers> evaluationBuffers = ThreadLocal.withInitial(EvaluationBuffers::new);
+    private volatile Tablebase tablebase; // the endgame tablebase of small contested areas (null if there is none)
+    private volatile OpeningBook openingBook; // the moves of the first positions of the game (null if there is none)
+    private volatile int mctsPlayouts = MctsSearch.DEFAULT_PLAYOUTS; // how long the MCTS level thinks
+    private final SearchStatsRecorder searchStats = new SearchStatsRecorder(); // what the AI did, over all its moves
+    private final MoveLatencyRecorder moveLatencies = new MoveLatencyRecorder(); // how long the AI moves took
+
+    static
+    {
+        // both are slow to start, and would otherwise start in the time budget of the first AI move
+        SearchEvents.load();
+        AllocationTracker.isSupported();
+    }
 
     /**
      * construcs a Model object
      */
     public Model()
     {
-        boardState = new CellContent[BOARD_ROWS][BOARD_COLS];
+        this(1);
+    }
+
+    /**
+     * construcs a Model object whose AI checks its candidate moves in parallel
+     * @param searchThreads how many threads to use (1 for a sequential search)
+     */
+    public Model(int searchThreads)
+    {
+        boardState = new BitBoard();
+        transpositionTable = new TranspositionTable();
+        tablebase = Tablebase.openDefault();
+        openingBook = OpeningBook.openDefault();
+        setSearchThreads(searchThreads);
         resetBoard();       
     }
 
+    /**
+     * sets the endgame tablebase the evaluation and the search probe (null for none)
+     */
+    public void setTablebase(Tablebase tablebase)
+    {
+        if(tablebase != this.tablebase)
+            transpositionTable.clear(); // the scores of endgame positions may change
+        this.tablebase = tablebase;
+    }
+
+    public Tablebase getTablebase()
+    {
+        return tablebase;
+    }
+
+    /**
+     * sets the opening book HARD and EXPERT play from before they search (null for none)
+     */
+    public void setOpeningBook(OpeningBook openingBook)
+    {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook()
+    {
+        return openingBook;
+    }
+
+    /**
+     * sets how many playouts the MCTS level makes for a move (with all its threads together)
+     */
+    public void setMctsPlayouts(int mctsPlayouts)
+    {
+        if(mctsPlayouts < 1)
+            throw new IllegalArgumentException("At least one playout is needed");
+        this.mctsPlayouts = mctsPlayouts;
+    }
+
+    public int getMctsPlayouts()
+    {
+        return mctsPlayouts;
+    }
+
+    /**
+     * returns how many positions the AI visited (moves it made while searching) since the model was created,
+     * over all its levels and threads
+     */
+    public long getSearchedNodes()
+    {
+        return searchStats.getNodes();
+    }
+
+    /**
+     * returns the statistics of the AI moves of the model - the totals, and the stats of the last move.
+     * The recorder is also a JMX MBean (see SearchStatsRecorder.register()).
+     */
+    public SearchStatsRecorder getSearchStats()
+    {
+        return searchStats;
+    }
+
+    /**
+     * returns the latency histograms of the AI moves of the model, with their budgets and listeners
+     */
+    public MoveLatencyRecorder getMoveLatencies()
+    {
+        return moveLatencies;
+    }
+
+    /**
+     * sets how many threads the AI searches with.
+     * With more than one thread, the candidates of complexAiMove() are split between the workers of a fork-join pool
+     * (the chosen move is the same for any number of threads), and the EXPERT search runs as a Lazy SMP search.
+     * @param searchThreads how many threads to use (1 for a sequential search)
+     */
+    public void setSearchThreads(int searchThreads)
+    {
+        if(searchThreads < 1)
+            throw new IllegalArgumentException("At least one search thread is needed");
+        if(searchPool != null && searchPool.getParallelism() != searchThreads)
+        {
+            searchPool.shutdown();
+            searchPool = null;
+        }
+        this.searchThreads = searchThreads;
+    }
+
+    public int getSearchThreads()
+    {
+        return searchThreads;
+    }
+
+    /**
+     * sets the static evaluation the AI scores its moves with (see cachedComplexEvaluation())
+     * the transposition table is cleared, since the scores it keeps are of the old evaluation
+     */
+    public void setEvaluationType(EvaluationType evaluationType)
+    {
+        if(this.evaluationType != evaluationType)
+        {
+            this.evaluationType = evaluationType;
+            transpositionTable.clear();
+        }
+    }
+
+    public EvaluationType getEvaluationType()
+    {
+        return evaluationType;
+    }
+
+    /**
+     * forgets the positions the AI already evaluated (the transposition table), so the next search starts from nothing
+     */
+    public void clearSearchCache()
+    {
+        transpositionTable.clear();
+    }
+
 
     // wrapper for resetBoard()
     @Override
@@ -49,27 +204,21 @@ public class Model implements IModel, Constants
      * Resets the board to the default starting state - 
      * clears out the arrows, and places the amazons in their standard positions.
      */
-    public void resetBoard(CellContent[][] board)
+    public void resetBoard(BitBoard board)
     {
         // clear board
-        for (int row = 0; row < BOARD_ROWS; row++)
-         {
-             for (int col = 0; col < BOARD_COLS; col++)
-             {
-                boardState[row][col] = CellContent.EMPTY;
-            }
-        }
+        board.clear();
 
         // put the white and black amazon on the board
         for (int i = 0; i < BLACK_AMAZONS_START_UP.length; i++)
         {
             int row = BLACK_AMAZONS_START_UP[i][0], col = BLACK_AMAZONS_START_UP[i][1];
-            board[row][col] = CellContent.BLACK_AMAZON;
+            board.setContent(row, col, CellContent.BLACK_AMAZON);
         }
         for (int i = 0; i < WHITE_AMAZONS_START_UP.length; i++)
         {
             int row = WHITE_AMAZONS_START_UP[i][0], col = WHITE_AMAZONS_START_UP[i][1];
-            board[row][col] = CellContent.WHITE_AMAZON;
+            board.setContent(row, col, CellContent.WHITE_AMAZON);
         }
         
         colorToPlayNow = WHITE;
@@ -106,36 +255,22 @@ public class Model implements IModel, Constants
             return;
         }
 
-        for (int i = 0; i < BOARD_ROWS; i++)
-        {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                boardState[i][j] = boardToCopy[i][j];
-            }
-        }
+        boardState.setFromCells(boardToCopy);
     }
 
     // wrapper for getBoardCopy()
     @Override
     public CellContent[][] getBoardCopy()
     {
-        return getBoardCopy(boardState);
+        return boardState.toCells();
     }
 
     /**
      * returns a copy of the board
      */
-    public CellContent[][] getBoardCopy(CellContent[][] board)
+    public BitBoard getBoardCopy(BitBoard board)
     {
-        CellContent[][] copyOfBoard = new CellContent[BOARD_ROWS][BOARD_COLS];
-        for (int i = 0; i < BOARD_ROWS; i++)
-        {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                copyOfBoard[i][j] = board[i][j];
-            }
-        }
-        return copyOfBoard;
+        return new BitBoard(board);
     }
 
     /**
@@ -179,30 +314,37 @@ public class Model implements IModel, Constants
     /**
      * recieves a position, and finds all empty squares reachable from it in a straight line (like a queen in chess).
      */
-    public Position[] getReachableSquares(CellContent[][] board, Position pos)
+    public Position[] getReachableSquares(BitBoard board, Position pos)
     {
-        ArrayList<Position> reachableArrList = new ArrayList<Position>();
-        int tempRow, tempCol;
-        // idea by my twin brother Guy:
-        int rowDiff, colDiff;
-        for (int i = 0; i < 8; i++)
-        {
-            rowDiff = DIRECTIONS[i][0];
-            colDiff = DIRECTIONS[i][1];
-            tempRow = pos.getRow() + rowDiff;
-            tempCol = pos.getCol() + colDiff;
-            while(isInBoard(tempRow, tempCol) && board[tempRow][tempCol] == EMPTY)
-            {
-                reachableArrList.add(new Position(tempRow, tempCol));
-                tempRow += rowDiff;
-                tempCol += colDiff;
-            }
-        }
-        
-        Position[] reachableArr = new Position[reachableArrList.size()];
-        for (int i = 0; i < reachableArr.length; i++)
-            reachableArr[i] = reachableArrList.get(i);
-        return reachableArr;
+        long[] reach = new long[2];
+        board.queenReach(BitBoard.square(pos.getRow(), pos.getCol()), reach);
+        return positionsOfMask(reach[0], reach[1]);
+    }
+
+    /**
+     * converts a set of squares of a bitboard layer to an array of positions
+     * @param lo the low word of the layer
+     * @param hi the high word of the layer
+     * @return array of the positions in the layer
+     */
+    public Position[] positionsOfMask(long lo, long hi)
+    {
+        int[] squares = new int[Long.bitCount(lo) + Long.bitCount(hi)];
+        BitBoard.squaresOf(lo, hi, squares);
+        Position[] positions = new Position[squares.length];
+        for (int i = 0; i < squares.length; i++)
+            positions[i] = BitBoard.positionOf(squares[i]);
+        return positions;
+    }
+
+    /**
+     * returns whether a square is in a set of squares of a bitboard layer
+     */
+    public boolean isSquareInMask(long lo, long hi, int sq)
+    {
+        if(sq < 64)
+            return (lo >>> sq & 1L) != 0;
+        return (hi >>> (sq - 64) & 1L) != 0;
     }
 
     // wrapper for canReachFromTo()
@@ -219,10 +361,12 @@ public class Model implements IModel, Constants
      * @param pos2 second position
      * @return
      */
-    public boolean canReachFromTo(CellContent[][] board, Position pos1, Position pos2)
+    public boolean canReachFromTo(BitBoard board, Position pos1, Position pos2)
     {
-        Position reachables[] = getReachableSquares(board, pos1);
-        return isPosInArr(reachables, pos2); // checking if the second position can be reached by the first one.
+        long[] reach = new long[2];
+        board.queenReach(BitBoard.square(pos1.getRow(), pos1.getCol()), reach);
+        // checking if the second position can be reached by the first one.
+        return isSquareInMask(reach[0], reach[1], BitBoard.square(pos2.getRow(), pos2.getCol()));
     }
 
     
@@ -236,18 +380,19 @@ public class Model implements IModel, Constants
     /**
      * returns to which squares an amazon can shoot after jumping from one square to another
      * assuming there is an amazon at jumpsFrom, and that it can jump to jumpTo
+     * (the board isn't copied - the origin is treated as empty, see BitBoard.arrowReach())
      * @return array of squares to shoot at
      */
-    public Position[] shootablesAfterJump(CellContent[][] board, Position jumpsFrom, Position jumpsTo)
+    public Position[] shootablesAfterJump(BitBoard board, Position jumpsFrom, Position jumpsTo)
     {
         if(!(isInBoard(jumpsFrom) && isInBoard(jumpsTo)))
         {
             System.out.println("Unvalid values");
             return null;
         }
-        CellContent[][] boardCopy = getBoardCopy(board);
-        boardCopy[jumpsFrom.getRow()][jumpsFrom.getCol()] = EMPTY;
-        return getReachableSquares(boardCopy, jumpsTo);
+        long[] reach = new long[2];
+        board.arrowReach(BitBoard.square(jumpsFrom.getRow(), jumpsFrom.getCol()), BitBoard.square(jumpsTo.getRow(), jumpsTo.getCol()), reach);
+        return positionsOfMask(reach[0], reach[1]);
     }
 
     // wrapper for canShootAfterJump()
@@ -259,12 +404,11 @@ public class Model implements IModel, Constants
     /**
      * Returns true if shooting to shootsAt is legal after jumping.
      */
-    public boolean canShootAfterJump(CellContent[][] board, Position jumpsFrom, Position jumpsTo, Position shootsAt)
+    public boolean canShootAfterJump(BitBoard board, Position jumpsFrom, Position jumpsTo, Position shootsAt)
     {
-        Position[] shootables = shootablesAfterJump(board, jumpsFrom, jumpsTo);
-        if (isPosInArr(shootables, shootsAt))
-            return true;
-        return false;
+        long[] reach = new long[2];
+        board.arrowReach(BitBoard.square(jumpsFrom.getRow(), jumpsFrom.getCol()), BitBoard.square(jumpsTo.getRow(), jumpsTo.getCol()), reach);
+        return isSquareInMask(reach[0], reach[1], BitBoard.square(shootsAt.getRow(), shootsAt.getCol()));
     }
 
     /**
@@ -322,7 +466,7 @@ public class Model implements IModel, Constants
      * Checkes if a move is legal on a given board with the specified player turn.
      * @return true if the move is legal, false otherwise
      */
-    public boolean isLegalMove(CellContent[][] board, PlayerColor colorToPlay, Move moveToPlay)
+    public boolean isLegalMove(BitBoard board, PlayerColor colorToPlay, Move moveToPlay)
     {
         if(moveToPlay == null)
         {
@@ -338,7 +482,7 @@ public class Model implements IModel, Constants
             return false;
         }
 
-        CellContent squareSign = board[moveToPlay.getJumpsFromRow()][moveToPlay.getJumpsFromCol()];
+        CellContent squareSign = board.getContent(moveToPlay.getJumpsFromRow(), moveToPlay.getJumpsFromCol());
         if(squareSign!= BLACK_AMAZON && squareSign != WHITE_AMAZON) 
         {
             System.out.println(" Illegal move. There is no amazon in this square.");
@@ -354,14 +498,14 @@ public class Model implements IModel, Constants
 
         Position jumpFrom = new Position (moveToPlay.getJumpsFromRow(), moveToPlay.getJumpsFromCol());
         Position jumpsTo = new Position(moveToPlay.getJumpsToRow(), moveToPlay.getJumpsToCol());
-        if(!canReachFromTo(jumpFrom, jumpsTo))
+        if(!canReachFromTo(board, jumpFrom, jumpsTo))
         {
             System.out.println(" Illegal move. Amazon cannot jump to that square.");
             return false;
         }
 
         Position shootsAt = new Position(moveToPlay.getShootsAtRow(), moveToPlay.getShootsAtCol());
-        if(!canShootAfterJump(jumpFrom, jumpsTo, shootsAt))
+        if(!canShootAfterJump(board, jumpFrom, jumpsTo, shootsAt))
         {
             System.out.println(" Illegal move. Amazon cannot shoot at that square.");
             return false;
@@ -413,28 +557,11 @@ public class Model implements IModel, Constants
     /**
      * Returns positions of all amazons for the current player.
      */
-    public Position[] amazonsForPlayerSign(CellContent[][] board, PlayerColor playerSign)
+    public Position[] amazonsForPlayerSign(BitBoard board, PlayerColor playerSign)
     {
-        Position[] amazonsArr;
-        if(playerSign == WHITE)
-            amazonsArr = new Position[WHITE_AMAZON_NUMBER];
-        else
-            amazonsArr = new Position[BLACK_AMAZON_NUMBER];
         // There are supposed to be 4 amazons for each color
         // But in the future different versions could be added, with different numbers of amazons
-        int counter = 0;
-        for (int i = 0; i < BOARD_ROWS; i++)
-        {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                if(board[i][j] == playerSignToAmazonSign(playerSign))
-                {
-                    amazonsArr[counter] = new Position(i, j);
-                    counter+=1;
-                }
-            }
-        }
-        return amazonsArr;
+        return positionsOfMask(board.amazonsLo(playerSign), board.amazonsHi(playerSign));
     }
 
     // wrapper for freeAmazonsForPlayerSign()
@@ -447,20 +574,26 @@ public class Model implements IModel, Constants
     /**
      * Returns the positions of the free amazons for a given player, on the provided board state.
      */
-    public Position[] freeAmazonsForPlayerSign(CellContent[][] board, PlayerColor playerSign)
+    public Position[] freeAmazonsForPlayerSign(BitBoard board, PlayerColor playerSign)
     {
-        ArrayList<Position> freeAmazonsList = new ArrayList<Position>();
-        Position[] amazons = amazonsForPlayerSign(board, playerSign);
-        for (int i = 0; i < amazons.length; i++)
+        // the free amazons are collected into a mask, so only the returned array is allocated
+        long freeLo = 0, freeHi = 0;
+        long amLo = board.amazonsLo(playerSign), amHi = board.amazonsHi(playerSign);
+        while(amLo != 0)
         {
-            if(getReachableSquares(board, amazons[i]).length != 0)
-                freeAmazonsList.add(amazons[i]);
+            int sq = Long.numberOfTrailingZeros(amLo);
+            if(board.hasEmptyNeighbour(sq))
+                freeLo |= 1L << sq;
+            amLo &= amLo - 1;
         }
-        
-        Position[] freeAmazonsArr = new Position[freeAmazonsList.size()];
-        for (int i = 0; i < freeAmazonsList.size(); i++)
-            freeAmazonsArr[i] = freeAmazonsList.get(i);
-        return freeAmazonsArr;
+        while(amHi != 0)
+        {
+            int sq = Long.numberOfTrailingZeros(amHi);
+            if(board.hasEmptyNeighbour(64 + sq))
+                freeHi |= 1L << sq;
+            amHi &= amHi - 1;
+        }
+        return positionsOfMask(freeLo, freeHi);
     }
 
     /**
@@ -483,16 +616,27 @@ public class Model implements IModel, Constants
     /**
      * returns whether the game is over or not
      */
-    public boolean isGameOver(CellContent[][] board, PlayerColor colorToPlay)
+    public boolean isGameOver(BitBoard board, PlayerColor colorToPlay)
     {
-        Position[] amazonPositions = amazonsForPlayerSign(board, colorToPlay);
-        for (int i = 0; i < amazonPositions.length; i++)
+        // an amazon can move if and only if one of the squares touching it is empty,
+        // so it is enough to check the squares around all the amazons at once
+        return board.isGameOver(colorToPlay);
+    }
+
+    /**
+     * returns whether none of the given amazons can move, by the matrix of paths (allocates nothing)
+     * an amazon can move if and only if it has a free path in some direction
+     * @param pathsMat the matrix of paths of the board
+     * @param amazons the amazons of the player to check
+     */
+    public boolean isGameOver(int[][][] pathsMat, Position[] amazons)
+    {
+        for (int i = 0; i < amazons.length; i++)
         {
-            Position[] reachables = getReachableSquares(board, amazonPositions[i]);
-            if(reachables.length!=0)
-                return false; // the amazon can move
+            if(!isIsolatedAmzon(pathsMat, amazons[i]))
+                return false;
         }
-        return true; // The current player cannot move any amazon, they lost
+        return true;
     }
 
     /**
@@ -516,10 +660,7 @@ public class Model implements IModel, Constants
         colorToPlayNow = otherColor(colorToPlayNow);
 
         if(isGameOver())
-        {
-            System.out.println("Game Over | " + getWinner().name() + " won");
-            return;
-        }
+            System.out.println("Game Over | " + otherColor(colorToPlayNow).name() + " won");
     }
 
     /**
@@ -528,7 +669,7 @@ public class Model implements IModel, Constants
      * @param colorToPlay the color of the one playing now
      * @param moveToPlay the move to be played
      */
-    public void playMove(CellContent[][] board, PlayerColor colorToPlay, Move moveToPlay)
+    public void playMove(BitBoard board, PlayerColor colorToPlay, Move moveToPlay)
     {
         //printBoard(board);
         if(!isLegalMove(board, colorToPlay, moveToPlay))
@@ -537,12 +678,7 @@ public class Model implements IModel, Constants
             return;
         }
 
-        CellContent amazonSign = playerSignToAmazonSign(colorToPlay);
-        CellContent arrowSign = playerSignToArrowSign(colorToPlay);
-
-        board[moveToPlay.getJumpsFromRow()][moveToPlay.getJumpsFromCol()] = EMPTY;
-        board[moveToPlay.getJumpsToRow()][moveToPlay.getJumpsToCol()] = amazonSign;
-        board[moveToPlay.getShootsAtRow()][moveToPlay.getShootsAtCol()] = arrowSign;
+        doMoveOnBoard(board, colorToPlay, moveToPlay);
 
         System.out.println("Move played successfully!\n");
     }
@@ -557,13 +693,13 @@ public class Model implements IModel, Constants
      * prints the board - used for debugging the code
      * @param board the board to print
      */
-    public void printBoard(CellContent[][] board)
+    public void printBoard(BitBoard board)
     {
         for (int i = 0; i < BOARD_ROWS; i++)
         {
             for (int j = 0; j < BOARD_COLS; j++)
             {
-                switch (board[i][j])
+                switch (board.getContent(i, j))
                 {
                     case WHITE_AMAZON:
                         System.out.print("WH_AMAZON  "); break;
@@ -593,20 +729,29 @@ public class Model implements IModel, Constants
      * @param fromPos the position of the amazon
      * @return array of possible moves
      */
-    public Move[] movesForAmazon(CellContent[][] board, Position fromPos)
+    public Move[] movesForAmazon(BitBoard board, Position fromPos)
     {
         ArrayList<Move> possibleMovesList = new ArrayList<Move>();
-        CellContent cell = board[fromPos.getRow()][fromPos.getCol()];
+        CellContent cell = board.getContent(fromPos.getRow(), fromPos.getCol());
         if(cell != WHITE_AMAZON && cell != BLACK_AMAZON)
             return null;
-        
-        Position[] squaresToJumpTo = getReachableSquares(board, fromPos);
-        for (int i = 0; i < squaresToJumpTo.length; i++)
+
+        int from = BitBoard.square(fromPos.getRow(), fromPos.getCol());
+        int[] squaresToJumpTo = new int[BOARD_ROWS + BOARD_COLS + 2 * Math.max(BOARD_ROWS, BOARD_COLS)];
+        int[] shootables = new int[squaresToJumpTo.length + 1];
+        long[] jumpReach = new long[2], shotReach = new long[2];
+        board.queenReach(from, jumpReach);
+        int jumpsCount = BitBoard.squaresOf(jumpReach[0], jumpReach[1], squaresToJumpTo);
+        for (int i = 0; i < jumpsCount; i++)
         {
-            Position[] shootablesForJump = shootablesAfterJump(board, fromPos, squaresToJumpTo[i]);
-            for (int j = 0; j < shootablesForJump.length; j++)
+            int to = squaresToJumpTo[i];
+            // the amazon left its square, so the arrow can be shot through it (or at it)
+            board.arrowReach(from, to, jumpReach, shotReach);
+            int shootsCount = BitBoard.squaresOf(shotReach[0], shotReach[1], shootables);
+            for (int j = 0; j < shootsCount; j++)
             {
-                Move tmpMove = new Move(fromPos, squaresToJumpTo[i], shootablesForJump[j]);
+                int arrow = shootables[j];
+                Move tmpMove = new Move(fromPos.getRow(), fromPos.getCol(), BitBoard.rowOf(to), BitBoard.colOf(to), BitBoard.rowOf(arrow), BitBoard.colOf(arrow));
                 possibleMovesList.add(tmpMove);
             }
         }
@@ -643,52 +788,386 @@ public class Model implements IModel, Constants
      * @param playerSign the player that should play now
      * @return array of moves that can be played
      */
-    public Move[] allPossibleMoves(CellContent[][] board, PlayerColor playerSign)
+    public Move[] allPossibleMoves(BitBoard board, PlayerColor playerSign)
     {
-        ArrayList<Move> possibleMovesList = new ArrayList<Move>();
-        Position[] amazons = amazonsForPlayerSign(playerSign);
-        for (int i = 0; i < amazons.length; i++)
+        MoveBuffer possibleMoves = new MoveBuffer();
+        possibleMoves.generate(board, playerSign);
+        Move[] movesArr = new Move[possibleMoves.size()];
+        for (int i = 0; i < possibleMoves.size(); i++)
+            movesArr[i] = PackedMove.toMove(possibleMoves.getMove(i));
+        return movesArr;
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level.
+     */
+    @Override
+    public Move getAiMove(OpponentType opponentType, PlayerColor playerSign)
+    {
+        return getAiMoveBefore(opponentType, playerSign, SearchEngine.NO_DEADLINE);
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level, within a time budget.
+     * @param timeBudgetMillis how long the AI may think
+     */
+    @Override
+    public Move getAiMove(OpponentType opponentType, PlayerColor playerSign, long timeBudgetMillis)
+    {
+        return getAiMoveBefore(opponentType, playerSign, System.nanoTime() + timeBudgetMillis * 1_000_000);
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level, with the time of a game clock.
+     * The budget of the move is decided by the clock, and the time the move took is charged to it.
+     * @param clock the clock of the game
+     */
+    @Override
+    public Move getAiMove(OpponentType opponentType, PlayerColor playerSign, GameClock clock)
+    {
+        long start = System.nanoTime();
+        long budget = clock.allocateMillis(playerSign, countEmptySquares(boardState));
+        Move aiMove = getAiMoveBefore(opponentType, playerSign, start + budget * 1_000_000);
+        clock.moveDone(playerSign, (System.nanoTime() - start) / 1_000_000);
+        return aiMove;
+    }
+
+    /**
+     * Starts looking for the AI move on a background thread, and returns right away.
+     * The search runs on a snapshot of the current board, so the board can be changed while it runs.
+     * Cancelling the returned future (with cancel()) stops the search as soon as possible.
+     * Requests run one at a time, in the order they were made.
+     * @return a future that is completed with the move (or null if the player cannot move)
+     */
+    @Override
+    public CompletableFuture<Move> getAiMoveAsync(OpponentType opponentType, PlayerColor playerSign)
+    {
+        BitBoard snapshot = getBoardCopy(boardState);
+        AtomicBoolean stopSignal = new AtomicBoolean(false);
+        CompletableFuture<Move> aiMoveFuture = new CompletableFuture<Move>()
         {
-            Move[] movesForAmazon = movesForAmazon(amazons[i]);
-            for (int j = 0; j < movesForAmazon.length; j++)
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning)
             {
-                possibleMovesList.add(movesForAmazon[j]);
+                stopSignal.set(true);
+                return super.cancel(mayInterruptIfRunning);
             }
-        }
+        };
 
-        Move[] movesArr = new Move[possibleMovesList.size()];
-        for (int i = 0; i < possibleMovesList.size(); i++)
-            movesArr[i] = possibleMovesList.get(i);
-        return movesArr;
+        getAiExecutor().execute(() -> {
+            if(aiMoveFuture.isDone()) // cancelled before it started
+                return;
+            try
+            {
+                aiMoveFuture.complete(getAiMove(snapshot, opponentType, playerSign, SearchEngine.NO_DEADLINE, stopSignal));
+            }
+            catch (Throwable e)
+            {
+                aiMoveFuture.completeExceptionally(e);
+            }
+        });
+        return aiMoveFuture;
     }
 
     /**
-     * Gets the AI move for a given opponent difficulty level.
+     * Starts analyzing the current board for a player, and returns right away (see the other analyze()).
+     * The analysis runs on a snapshot of the board, deepens until it is stopped, and reports at the default throttle.
+     * @param lines how many best moves to find
+     * @param listener gets the results on the listener thread of the analysis (may be null)
      */
     @Override
-    public Move getAiMove(OpponentType opponentType, PlayerColor playerSign)
+    public AnalysisSession analyze(PlayerColor playerToPlay, int lines, AnalysisListener listener)
+    {
+        return analyze(getBoardCopy(boardState), playerToPlay, lines, SearchEngine.MAX_TIMED_DEPTH, listener,
+            AnalysisSession.DEFAULT_THROTTLE_MILLIS);
+    }
+
+    /**
+     * Starts analyzing a board for a player on a background thread, and returns right away.
+     * The EXPERT search deepens one ply at a time, and after every iteration it finishes the best lines
+     * (each move with its score and expected continuation) are streamed to the listener, at most once every throttle period.
+     * All the lines come from one search, in which every root move gets a full window (see SearchEngine.setLines()),
+     * instead of searching the position again for every line.
+     * The analysis ends at the max depth, or when the session is stopped.
+     * @param board the board to analyze (it must not be changed while the analysis runs)
+     * @param lines how many best moves to find
+     * @param maxDepth the deepest iteration (in plies)
+     * @param listener gets the results on the listener thread of the analysis (may be null)
+     * @param throttleMillis the shortest time between two updates of the listener
+     * @return the session, to stop the analysis and read its results
+     */
+    public AnalysisSession analyze(BitBoard board, PlayerColor playerToPlay, int lines, int maxDepth, AnalysisListener listener, long throttleMillis)
+    {
+        AnalysisSession session = new AnalysisSession(listener, throttleMillis);
+        session.start(() -> {
+            transpositionTable.newSearch();
+            if(searchThreads > 1)
+            {
+                LazySmpSearch smpSearch = new LazySmpSearch(this, transpositionTable, searchThreads, maxDepth);
+                smpSearch.setStopSignal(session.getStopSignal());
+                smpSearch.setLines(lines);
+                smpSearch.setIterationListener(session::publish);
+                smpSearch.search(board, playerToPlay);
+                return;
+            }
+            SearchEngine engine = new SearchEngine(this, transpositionTable, maxDepth, 0, session.getStopSignal());
+            engine.setLines(lines);
+            engine.setIterationListener(session::publish);
+            engine.search(board, playerToPlay);
+        });
+        return session;
+    }
+
+    // returns the executor of the asynchronous AI moves, and creates it if needed
+    private synchronized ExecutorService getAiExecutor()
+    {
+        if(aiExecutor == null)
+        {
+            aiExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread aiThread = new Thread(task, "amazons-ai");
+                aiThread.setDaemon(true); // an AI move shouldn't keep the application running
+                return aiThread;
+            });
+        }
+        return aiExecutor;
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level, found before a deadline.
+     * A move is always returned (if there is one) - the best one found so far when the time runs out.
+     * RANDOM, EASY and MEDIUM do a single quick pass and don't look at the deadline.
+     * HARD stops checking its candidate moves at the deadline.
+     * EXPERT deepens its search as long as there is time (without a deadline, up to its default depth).
+     * @param deadline the time to stop, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     */
+    public Move getAiMoveBefore(OpponentType opponentType, PlayerColor playerSign, long deadline)
     {
+        return getAiMove(boardState, opponentType, playerSign, deadline, null);
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level on a board.
+     * @param board the board to check
+     * @param deadline the time to stop, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     * @param stopSignal when set, HARD and EXPERT stop as soon as possible and return the best move found so far (may be null)
+     */
+    public Move getAiMove(BitBoard board, OpponentType opponentType, PlayerColor playerSign, long deadline, AtomicBoolean stopSignal)
+    {
+        return getAiMoveWithStats(board, opponentType, playerSign, deadline, stopSignal).getMove();
+    }
+
+    /**
+     * Gets the AI move for a given opponent difficulty level on a board, with the statistics of its search
+     * (they are also kept as the last stats of getSearchStats()).
+     * @param board the board to check
+     * @param deadline the time to stop, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     * @param stopSignal when set, HARD and EXPERT stop as soon as possible and return the best move found so far (may be null)
+     * @return the stats, with the move (a null move if the player cannot move)
+     */
+    public SearchStats getAiMoveWithStats(BitBoard board, OpponentType opponentType, PlayerColor playerSign, long deadline, AtomicBoolean stopSignal)
+    {
+        SearchEvents.AiMove event = SearchEvents.beginAiMove();
+        long start = System.nanoTime();
+        long[] totalsBefore = searchStats.startMove();
+        long bytesBefore = AllocationTracker.currentThreadAllocatedBytes();
+        Move aiMove = searchAiMove(board, opponentType, playerSign, deadline, stopSignal);
+        long bytes = AllocationTracker.allocatedSince(bytesBefore);
+        if(bytes != AllocationTracker.UNSUPPORTED)
+            searchStats.add(SearchStats.ALLOCATED_BYTES, bytes);
+        long nanos = System.nanoTime() - start;
+        SearchStats stats = searchStats.moveDone(opponentType, aiMove, totalsBefore, nanos);
+        moveLatencies.record(opponentType, board.countEmpty(), nanos);
+        SearchEvents.endAiMove(event, opponentType, board, playerSign, stats);
+        return stats;
+    }
+
+    // getAiMove() without the stats of the move
+    private Move searchAiMove(BitBoard board, OpponentType opponentType, PlayerColor playerSign, long deadline, AtomicBoolean stopSignal)
+    {
+        transpositionTable.newSearch();
         switch (opponentType)
         {
             case RANDOM:
-                return randAiMove(boardState, playerSign);
+                return randAiMove(board, playerSign);
             case EASY:
-                return plainAiMove(boardState, EASY, playerSign);
+                return plainAiMove(board, EASY, playerSign);
             case MEDIUM:
-                return plainAiMove(boardState, MEDIUM, playerSign);
+                return plainAiMove(board, MEDIUM, playerSign);
             case HARD:
-                return complexAiMove(boardState, playerSign);
+                Move knownMove = knownMove(board, playerSign);
+                if(knownMove != null)
+                    return knownMove;
+                return complexAiMove(board, playerSign, deadline, stopSignal);
+            case EXPERT:
+                knownMove = knownMove(board, playerSign);
+                if(knownMove != null)
+                    return knownMove;
+                int maxDepth = deadline == SearchEngine.NO_DEADLINE ? SearchEngine.DEFAULT_MAX_DEPTH : SearchEngine.MAX_TIMED_DEPTH;
+                if(searchThreads > 1)
+                {
+                    LazySmpSearch smpSearch = new LazySmpSearch(this, transpositionTable, searchThreads, maxDepth);
+                    smpSearch.setDeadline(deadline);
+                    smpSearch.setStopSignal(stopSignal);
+                    Move smpMove = smpSearch.search(board, playerSign);
+                    searchStats.add(smpSearch.getCounts());
+                    recordSearch(smpSearch.getMainEngine());
+                    return smpMove;
+                }
+                SearchEngine engine = new SearchEngine(this, transpositionTable, maxDepth, 0, stopSignal);
+                engine.setDeadline(deadline);
+                Move engineMove = engine.search(board, playerSign);
+                searchStats.add(engine.getCounts());
+                recordSearch(engine);
+                return engineMove;
+            case MCTS:
+                knownMove = knownMove(board, playerSign);
+                if(knownMove != null)
+                    return knownMove;
+                long mctsStart = System.nanoTime();
+                MctsSearch mctsSearch = new MctsSearch(this, searchThreads, mctsPlayouts);
+                mctsSearch.setDeadline(deadline);
+                mctsSearch.setStopSignal(stopSignal);
+                Move mctsMove = mctsSearch.search(board, playerSign);
+                searchStats.add(mctsSearch.getCounts());
+                searchStats.addPhase(SearchStats.Phase.DEEP_SEARCH, System.nanoTime() - mctsStart);
+                searchStats.searchDone(mctsSearch.getDepthReached(), 0);
+                return mctsMove;
         }
         return null;
     }
 
+    /**
+     * finds a move that doesn't need a search - in the opening book, or by the endgame solver and tablebase -
+     * and records the time of each lookup
+     * @return the move, or null if it must be searched
+     */
+    private Move knownMove(BitBoard board, PlayerColor playerSign)
+    {
+        long start = System.nanoTime();
+        Move knownMove = bookMove(board, playerSign);
+        long bookEnd = System.nanoTime();
+        searchStats.addPhase(SearchStats.Phase.BOOK, bookEnd - start);
+        if(knownMove != null)
+            return knownMove;
+        knownMove = endgameMove(board, playerSign);
+        searchStats.addPhase(SearchStats.Phase.ENDGAME, System.nanoTime() - bookEnd);
+        return knownMove;
+    }
+
+    // records the depth, best move changes and phase times of an EXPERT search
+    private void recordSearch(SearchEngine engine)
+    {
+        searchStats.addPhase(SearchStats.Phase.ROOT_SCORING, engine.getRootScoringNanos());
+        searchStats.addPhase(SearchStats.Phase.DEEP_SEARCH, engine.getDeepSearchNanos());
+        searchStats.searchDone(engine.getDepthReached(), engine.getBestMoveChanges());
+    }
+
+    /**
+     * finds a move of a player in the opening book
+     * @param board the board to check
+     * @param playerSign the player that should play
+     * @return the move, or null if there is no book or the position isn't in it
+     */
+    public Move bookMove(BitBoard board, PlayerColor playerSign)
+    {
+        OpeningBook openingBook = this.openingBook;
+        if(openingBook == null)
+            return null;
+        int move = openingBook.probe(board, playerSign);
+        return move == PackedMove.NONE ? null : PackedMove.toMove(move);
+    }
+
+    /**
+     * finds the best move of a player once the board has fully split, with the EndgameSolver:
+     * a move that leaves the player as many moves as possible.
+     * If one small area is still contested, a winning move is looked up in the tablebase instead.
+     * @param board the board to check
+     * @param playerSign the player that should play
+     * @return the move, with its decided score, or null if the board hasn't split or is too big to solve
+     */
+    public Move endgameMove(BitBoard board, PlayerColor playerSign)
+    {
+        EndgameSolver solver = endgameSolvers.get();
+        if(!solver.isFullySplit(board))
+            return tablebaseMove(board, playerSign);
+        int playerMoves = solver.movesLeft(board, playerSign, EndgameSolver.NODE_BUDGET);
+        int opponentMoves = solver.movesLeft(board, otherColor(playerSign), EndgameSolver.NODE_BUDGET);
+        if(playerMoves == EndgameSolver.UNKNOWN || opponentMoves == EndgameSolver.UNKNOWN || playerMoves == 0)
+            return null;
+
+        MoveBuffer possibleMoves = new MoveBuffer();
+        possibleMoves.generate(board, playerSign);
+        BitBoard boardCopy = getBoardCopy(board);
+        for (int i = 0; i < possibleMoves.size(); i++)
+        {
+            int move = possibleMoves.getMove(i);
+            doMoveOnBoard(boardCopy, playerSign, move);
+            int movesAfter = solver.movesLeft(boardCopy, playerSign, EndgameSolver.NODE_BUDGET);
+            undoMoveOnBoard(boardCopy, playerSign, move);
+            if(movesAfter == playerMoves - 1) // the move doesn't waste any square
+            {
+                Move chosenMove = PackedMove.toMove(move);
+                chosenMove.setScore(solvedScore(movesAfter, opponentMoves));
+                return chosenMove;
+            }
+        }
+        return null; // shouldn't happen
+    }
+
+    /**
+     * finds a winning move of a player with the tablebase - a move after which the opponent loses
+     * @param board the board to check
+     * @param playerSign the player that should play
+     * @return the move, with a decided score, or null if there is no tablebase, the board doesn't match it,
+     * or the player can't win
+     */
+    private Move tablebaseMove(BitBoard board, PlayerColor playerSign)
+    {
+        Tablebase tablebase = this.tablebase;
+        EndgameSolver solver = endgameSolvers.get();
+        if(tablebase == null || tablebase.probe(board, playerSign, solver, EndgameSolver.NODE_BUDGET) != Tablebase.WIN)
+            return null;
+
+        MoveBuffer possibleMoves = new MoveBuffer();
+        possibleMoves.generate(board, playerSign);
+        BitBoard boardCopy = getBoardCopy(board);
+        PlayerColor opponentSign = otherColor(playerSign);
+        for (int i = 0; i < possibleMoves.size(); i++)
+        {
+            int move = possibleMoves.getMove(i);
+            doMoveOnBoard(boardCopy, playerSign, move);
+            // after a move the board may have fully split, which the tablebase also covers (with no contested area)
+            int result = tablebase.probe(boardCopy, opponentSign, solver, EndgameSolver.NODE_BUDGET);
+            undoMoveOnBoard(boardCopy, playerSign, move);
+            if(result == Tablebase.LOSS)
+            {
+                Move chosenMove = PackedMove.toMove(move);
+                chosenMove.setScore(Tablebase.WIN_SCORE);
+                return chosenMove;
+            }
+        }
+        return null; // some area was too big for the solver
+    }
+
+    /**
+     * the score of a board that has fully split, for the player that has just played (the opponent plays next)
+     * the opponent loses if they run out of moves first, so the player wins if they have at least as many moves left
+     * @return a score between 1900 and 2000 for a win, and between -2000 and -1900 for a loss
+     */
+    private double solvedScore(int playerMoves, int opponentMoves)
+    {
+        if(playerMoves >= opponentMoves)
+            return 1900 + Math.min(99, playerMoves - opponentMoves + 1);
+        return -1900 - Math.min(99, opponentMoves - playerMoves);
+    }
+
     /**
      * finds a random legal move for a given board and player
      * @param board the board to check
      * @param playerSign the player that should play
      * @return a random legal move
      */
-    public Move randAiMove(CellContent[][] board, PlayerColor playerSign)
+    public Move randAiMove(BitBoard board, PlayerColor playerSign)
     {
         Move[] possibleMoves = allPossibleMoves(board, playerSign);
         if(possibleMoves.length == 0)
@@ -724,140 +1203,391 @@ public class Model implements IModel, Constants
      * @param playerToPlay the color of the player that should play now
      * @return the best Move found by the check
      */
-    public Move plainAiMove(CellContent[][] board, OpponentType opponentType, PlayerColor playerToPlay)
+    public Move plainAiMove(BitBoard board, OpponentType opponentType, PlayerColor playerToPlay)
     {
-        Move[] possibleMoves = allPossibleMoves(board, playerToPlay);
-        if(possibleMoves.length == 0)
+        long start = System.nanoTime();
+        GameState state = new GameState(this, board, playerToPlay);
+        MoveBuffer possibleMoves = new MoveBuffer();
+
+        int best = scorePlainMoves(state, opponentType, possibleMoves);
+        searchStats.add(state.getCounts());
+        searchStats.addPhase(SearchStats.Phase.ROOT_SCORING, System.nanoTime() - start);
+        searchStats.searchDone(1, 0);
+        if(best == -1)
             return null;
-        int emptySquares = countEmptySquares(board);
-        CellContent[][] boardCopy = getBoardCopy();
-        int[][][] pathsMat = pathsForWholeBoard(board);
-        Position[] playerAmazons = amazonsForPlayerSign(board, playerToPlay);
-        Position[] opponentAmazons = amazonsForPlayerSign(board, otherColor(playerToPlay));
+        return possibleMoves.toMove(best);
+    }
 
+    /**
+     * generates the moves of the player that should play in a state into a buffer,
+     * and scores each one with a static evaluation (EASY or MEDIUM).
+     * The moves are made and unmade on the state, so it is returned to its position before the check.
+     * @param state the state to check
+     * @param opponentType the evaluation to use (EASY / MEDIUM)
+     * @param possibleMoves the buffer to fill
+     * @return the index of the best move in the buffer, or -1 if the player cannot move
+     */
+    public int scorePlainMoves(GameState state, OpponentType opponentType, MoveBuffer possibleMoves)
+    {
+        return scorePlainMoves(state, opponentType, possibleMoves, SearchEngine.NO_DEADLINE, null);
+    }
 
-        for (int i = 0; i < possibleMoves.length; i++)
+    // scorePlainMoves(), that stops at a deadline or a stop signal - the moves it didn't get to are scored -infinity
+    private int scorePlainMoves(GameState state, OpponentType opponentType, MoveBuffer possibleMoves, long deadline, AtomicBoolean stopSignal)
+    {
+        possibleMoves.generate(state.getBoard(), state.getColorToPlay());
+        state.count(SearchStats.MOVES_GENERATED, possibleMoves.size());
+        int scored = 0;
+        for (; scored < possibleMoves.size() && !shouldStopChecking(deadline, stopSignal); scored++)
         {
-            doMoveOnBoard(boardCopy, playerToPlay, possibleMoves[i]);
-            updatePathsMatrix(boardCopy, pathsMat, possibleMoves[i]);
-            updateAmazonArr(playerAmazons, possibleMoves[i]);
+            state.make(possibleMoves.getMove(scored));
             
             if(opponentType == EASY)
-                possibleMoves[i].setScore(easyEvaluationFunction(boardCopy, pathsMat, playerAmazons, opponentAmazons, playerToPlay));
+                possibleMoves.setScore(scored, easyEvaluationFunction(state));
             else // opponent is MEDIUM
-                possibleMoves[i].setScore(complexEvaluationFunction(boardCopy, pathsMat, playerAmazons, opponentAmazons, emptySquares - 1, playerToPlay, false));         
+                possibleMoves.setScore(scored, cachedComplexEvaluation(state));
             
-            undoMoveOnBoard(boardCopy, playerToPlay, possibleMoves[i]);
-            undoUpdateAmazonArr(playerAmazons, possibleMoves[i]);
-            undoUpdatePathsMatrix(boardCopy, pathsMat, possibleMoves[i]);
+            state.unmake();
         }
+        for (int i = scored; i < possibleMoves.size(); i++)
+            possibleMoves.setScore(i, Double.NEGATIVE_INFINITY);
 
-        return bestMove(possibleMoves);
+        return possibleMoves.bestIndex();
     }
 
 
+    // wrapper for complexAiMove() without a deadline
+    public Move complexAiMove(BitBoard board, PlayerColor playerToPlay)
+    {
+        return complexAiMove(board, playerToPlay, SearchEngine.NO_DEADLINE, null);
+    }
+
     /**
      * Performs a deeper evaluation of each move, by simulating the opponent’s best possible response.
+     * The candidates are checked from the most promising one, and the ones that weren't checked before the deadline
+     * are not chosen (if no candidate was checked, the most promising one is chosen).
+     * The deadline is also watched while the moves are scored statically, and while a candidate is checked,
+     * so a short budget is kept: at worst, the best of the moves that were scored is chosen (the first move always is).
      * @param board the board to check
      * @param playerToPlay the color of the player that should play now
+     * @param deadline the time to stop checking candidates, from System.nanoTime() (or SearchEngine.NO_DEADLINE)
+     * @param stopSignal when set, no more candidates are checked, like at the deadline (may be null)
      * @return the best Move found by the check
      */
-    public Move complexAiMove(CellContent[][] board, PlayerColor playerToPlay)
+    public Move complexAiMove(BitBoard board, PlayerColor playerToPlay, long deadline, AtomicBoolean stopSignal)
+    {
+        long start = System.nanoTime();
+        GameState state = new GameState(this, board, playerToPlay);
+        MoveBuffer possibleMoves = new MoveBuffer();
+        possibleMoves.generate(state.getBoard(), playerToPlay);
+        state.count(SearchStats.MOVES_GENERATED, possibleMoves.size());
+        if(possibleMoves.size() == 0)
+            return null;
+
+        int scored = 0;
+        for (; scored < possibleMoves.size() && (scored == 0 || !shouldStopChecking(deadline, stopSignal)); scored++)
+        {
+            state.make(possibleMoves.getMove(scored));
+            possibleMoves.setScore(scored, cachedComplexEvaluation(state));
+            state.unmake();
+        }
+        for (int i = scored; i < possibleMoves.size(); i++)
+            possibleMoves.setScore(i, Double.NEGATIVE_INFINITY);
+
+        // when the time ran out, only the moves that were scored can be candidates
+        int bestMovesCount = Math.min(Math.min((possibleMoves.size() + 1) / 2, 100), scored);
+        possibleMoves.selectBest(bestMovesCount);
+        int[] candidates = new int[bestMovesCount];
+        double[] candidateScores = new double[bestMovesCount];
+        for (int i = 0; i < bestMovesCount; i++)
+        {
+            candidates[i] = possibleMoves.getMove(i);
+            candidateScores[i] = possibleMoves.getScore(i);
+        }
+
+        boolean[] isChecked = new boolean[bestMovesCount];
+        long candidatesStart = System.nanoTime();
+        searchStats.addPhase(SearchStats.Phase.ROOT_SCORING, candidatesStart - start);
+        if(searchThreads == 1)
+        {
+            MoveBuffer replyMoves = new MoveBuffer();
+            for (int i = 0; i < bestMovesCount && !shouldStopChecking(deadline, stopSignal); i++)
+            {
+                double score = checkCandidateMove(state, candidates[i], candidateScores[i], replyMoves, deadline, stopSignal);
+                if(Double.isNaN(score))
+                    break; // stopped in the middle of the check
+                candidateScores[i] = score;
+                isChecked[i] = true;
+            }
+        }
+        else
+        {
+            // every candidate is scored on its own, so the workers can check them in any order
+            int movesPerTask = Math.max(1, bestMovesCount / (4 * searchThreads));
+            getSearchPool().invoke(new CandidatesTask(board, playerToPlay, candidates, candidateScores, isChecked, deadline, stopSignal, 0, bestMovesCount, movesPerTask));
+        }
+
+        searchStats.add(state.getCounts());
+        searchStats.addPhase(SearchStats.Phase.DEEP_SEARCH, System.nanoTime() - candidatesStart);
+        int best = bestCheckedIndex(candidateScores, isChecked);
+        searchStats.searchDone(isChecked[best] ? 2 : 1, bestMoveChanges(candidateScores, isChecked));
+        int bestMoveFound = candidates[best];
+        state.make(bestMoveFound);
+        complexEvaluationFunction(state.getBoard(), state.getPathsMat(), state.amazonsOf(playerToPlay), state.amazonsOf(otherColor(playerToPlay)),
+            state.getEmptySquares(), state.getRegions(), playerToPlay, true);
+
+        Move chosenMove = PackedMove.toMove(bestMoveFound);
+        chosenMove.setScore(candidateScores[best]);
+        return chosenMove;
+    }
+
+    /**
+     * checks a candidate move of complexAiMove() deeper - its score is reduced by the score of the opponent's best response
+     * the state is returned to its position before the call
+     * @param state the state, with the player of the candidate to play
+     * @param checkedMove the packed candidate move
+     * @param staticScore the score of the candidate from the first check
+     * @param replyMoves a buffer for the moves of the opponent
+     * @return the new score of the candidate
+     */
+    public double checkCandidateMove(GameState state, int checkedMove, double staticScore, MoveBuffer replyMoves)
     {
-        Move[] possibleMoves = allPossibleMoves(board, playerToPlay);
-        PriorityQueue<Move> moveQueue = new PriorityQueue<>(
-            (m1, m2) -> Double.compare(m2.getScore(), m1.getScore()) // max-heap
-        );
+        return checkCandidateMove(state, checkedMove, staticScore, replyMoves, SearchEngine.NO_DEADLINE, null);
+    }
 
-        if(possibleMoves.length == 0)
-            return null;
-        int emptySquares = countEmptySquares(board);
-        CellContent[][] boardCopy = getBoardCopy();
-        int[][][] pathsMat = pathsForWholeBoard(board);
-        Position[] playerAmazons = amazonsForPlayerSign(board, playerToPlay);
-        Position[] opponentAmazons = amazonsForPlayerSign(board, otherColor(playerToPlay));
+    /**
+     * checkCandidateMove(), that stops at a deadline or a stop signal
+     * @return the new score of the candidate, or NaN if the check was stopped before it was complete
+     */
+    public double checkCandidateMove(GameState state, int checkedMove, double staticScore, MoveBuffer replyMoves, long deadline, AtomicBoolean stopSignal)
+    {
+        SearchEvents.CandidateCheck event = SearchEvents.beginCandidateCheck();
+        state.make(checkedMove);
+        double score;
+        if(state.isGameOver())
+            score = 2000; // the move will win
+        else // finding the smartest response
+            score = staticScore - bestOpponentResponse(state, replyMoves, deadline, stopSignal);
+        state.unmake();
+        SearchEvents.endCandidateCheck(event, checkedMove, staticScore, score);
+        return score;
+    }
 
-        for (int i = 0; i < possibleMoves.length; i++)
+    // returns whether complexAiMove() should stop checking candidates
+    private static boolean shouldStopChecking(long deadline, AtomicBoolean stopSignal)
+    {
+        return SearchEngine.isPastDeadline(deadline) || (stopSignal != null && stopSignal.get());
+    }
+
+    /**
+     * counts how many times the best candidate changed, going over the checked candidates in their order of checking
+     * (the order of the sequential check - the parallel one checks the same candidates, in any order)
+     */
+    private static int bestMoveChanges(double[] candidateScores, boolean[] isChecked)
+    {
+        int changes = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < candidateScores.length; i++)
         {
-            doMoveOnBoard(boardCopy, playerToPlay, possibleMoves[i]);
-            updatePathsMatrix(boardCopy, pathsMat, possibleMoves[i]);
-            updateAmazonArr(playerAmazons, possibleMoves[i]);
-            
-            possibleMoves[i].setScore(complexEvaluationFunction(boardCopy, pathsMat, playerAmazons, opponentAmazons, emptySquares - 1, playerToPlay, false));         
-            
-            undoMoveOnBoard(boardCopy, playerToPlay, possibleMoves[i]);
-            undoUpdateAmazonArr(playerAmazons, possibleMoves[i]);
-            undoUpdatePathsMatrix(boardCopy, pathsMat, possibleMoves[i]);
+            if(isChecked[i] && candidateScores[i] > bestScore)
+            {
+                if(bestScore != Double.NEGATIVE_INFINITY)
+                    changes++;
+                bestScore = candidateScores[i];
+            }
+        }
+        return changes;
+    }
 
-            moveQueue.add(possibleMoves[i]);
+    /**
+     * finds the index of the best candidate that was checked (the first candidate, if none of them was)
+     */
+    private int bestCheckedIndex(double[] candidateScores, boolean[] isChecked)
+    {
+        int best = -1;
+        for (int i = 0; i < candidateScores.length; i++)
+        {
+            if(isChecked[i] && (best == -1 || candidateScores[i] > candidateScores[best]))
+                best = i;
         }
+        return best != -1 ? best : 0;
+    }
 
-        int bestMovesCount = Math.min((moveQueue.size() + 1) / 2, 100);
-        Move[] wellCheckedMoves = new Move[bestMovesCount];
-        int counter = 0;
-        for (int i = 0; i < bestMovesCount; i++)
+    // returns the pool of the parallel search, and creates it if needed
+    private synchronized ForkJoinPool getSearchPool()
+    {
+        if(searchPool == null)
+            searchPool = new ForkJoinPool(searchThreads);
+        return searchPool;
+    }
+
+    /**
+     * A fork-join task that checks a range of the candidate moves of complexAiMove().
+     * Ranges are split in half until they are small enough, and then each worker checks its range
+     * with its own GameState.
+     */
+    private class CandidatesTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BitBoard board;
+        private final PlayerColor playerToPlay;
+        private final int[] candidates;
+        private final double[] candidateScores;
+        private final boolean[] isChecked;
+        private final long deadline;
+        private final AtomicBoolean stopSignal;
+        private final int start, end, movesPerTask;
+
+        CandidatesTask(BitBoard board, PlayerColor playerToPlay, int[] candidates, double[] candidateScores, boolean[] isChecked,
+            long deadline, AtomicBoolean stopSignal, int start, int end, int movesPerTask)
         {
-            Move checkedMove = moveQueue.poll();
-            doMoveOnBoard(boardCopy, playerToPlay, checkedMove);
-            if(isGameOver(boardCopy, otherColor(playerToPlay)))
+            this.board = board;
+            this.playerToPlay = playerToPlay;
+            this.candidates = candidates;
+            this.candidateScores = candidateScores;
+            this.isChecked = isChecked;
+            this.deadline = deadline;
+            this.stopSignal = stopSignal;
+            this.start = start;
+            this.end = end;
+            this.movesPerTask = movesPerTask;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(end - start > movesPerTask)
             {
-                checkedMove.setScore(2000); // the move will win
-                wellCheckedMoves[counter++] = checkedMove;
+                int middle = (start + end) / 2;
+                invokeAll(new CandidatesTask(board, playerToPlay, candidates, candidateScores, isChecked, deadline, stopSignal, start, middle, movesPerTask),
+                    new CandidatesTask(board, playerToPlay, candidates, candidateScores, isChecked, deadline, stopSignal, middle, end, movesPerTask));
+                return;
             }
-            else
+
+            GameState workerState = new GameState(Model.this, board, playerToPlay);
+            MoveBuffer workerReplyMoves = new MoveBuffer();
+            for (int i = start; i < end && !shouldStopChecking(deadline, stopSignal); i++)
             {
-                // finding the smartest response
-                Move bestResponse = bestOpponentResponse(board, playerToPlay, checkedMove, pathsMat, playerAmazons, opponentAmazons);
-                double bestResponseScore = bestResponse.getScore();
-                checkedMove.setScore(checkedMove.getScore() - bestResponseScore);
-                wellCheckedMoves[counter++] = checkedMove;
+                double score = checkCandidateMove(workerState, candidates[i], candidateScores[i], workerReplyMoves, deadline, stopSignal);
+                if(Double.isNaN(score))
+                    break; // stopped in the middle of the check
+                candidateScores[i] = score;
+                isChecked[i] = true;
             }
-            undoMoveOnBoard(boardCopy, playerToPlay, checkedMove);
+            searchStats.add(workerState.getCounts());
         }
-
-        Move bestMoveFound = bestMove(wellCheckedMoves);
-        doMoveOnBoard(boardCopy, playerToPlay, bestMoveFound);
-        updatePathsMatrix(boardCopy, pathsMat, bestMoveFound);
-        updateAmazonArr(playerAmazons, bestMoveFound);            
-        complexEvaluationFunction(boardCopy, pathsMat, playerAmazons, opponentAmazons, emptySquares, playerToPlay, true);
-        return bestMoveFound;
     }
 
     /**
-     * Calculates the best possible response move for the opponent, 
+     * Calculates the score of the best possible response move for the opponent, 
      * treating it as the worst case for the current player.
+     * The response is a one ply search, so it is kept in the transposition table as a depth 1 entry.
+     * The responses are made and unmade on the state of the caller (after the checked move).
+     * @param state the state after the checked move, with the opponent to play
+     * @param replyMoves a buffer for the moves of the opponent
+     * @return the score of the best response, for the opponent
      */
-    public Move bestOpponentResponse(CellContent[][] boardCopy, PlayerColor playerToPlay, Move checkedMove, int[][][] pathsMat, Position[] playerAmazons, Position[] opponentAmazons)
+    public double bestOpponentResponse(GameState state, MoveBuffer replyMoves)
     {
-        doMoveOnBoard(boardCopy, playerToPlay, checkedMove);
-        updatePathsMatrix(boardCopy, pathsMat, checkedMove);
-        updateAmazonArr(playerAmazons, checkedMove);
-        
-        // worst for the player, but best for the opponent playing it
-        Move bestResponse = plainAiMove(boardCopy, MEDIUM, otherColor(playerToPlay));
+        return bestOpponentResponse(state, replyMoves, SearchEngine.NO_DEADLINE, null);
+    }
 
-        undoMoveOnBoard(boardCopy, playerToPlay, checkedMove);
-        undoUpdateAmazonArr(playerAmazons, checkedMove);
-        undoUpdatePathsMatrix(boardCopy, pathsMat, checkedMove);
+    // bestOpponentResponse(), that stops at a deadline or a stop signal - and then returns NaN, and stores nothing
+    private double bestOpponentResponse(GameState state, MoveBuffer replyMoves, long deadline, AtomicBoolean stopSignal)
+    {
+        // worst for the player, but best for the opponent playing it
+        double bestResponseScore;
+        long key = state.getKey();
+        TranspositionTable.Entry entry = evaluationBuffers.get().responseEntry;
+        state.count(SearchStats.TABLE_PROBES);
+        if(transpositionTable.probe(key, entry) && entry.depth == 1 && entry.bound == TranspositionTable.EXACT)
+        {
+            state.count(SearchStats.TABLE_HITS);
+            bestResponseScore = entry.score;
+        }
+        else
+        {
+            int best = scorePlainMoves(state, MEDIUM, replyMoves, deadline, stopSignal);
+            if(shouldStopChecking(deadline, stopSignal))
+                return Double.NaN; // some responses weren't scored
+            bestResponseScore = best == -1 ? -2000 : replyMoves.getScore(best); // an opponent that can't move has lost
+            transpositionTable.store(key, bestResponseScore, 1, TranspositionTable.EXACT, best == -1 ? PackedMove.NONE : replyMoves.getMove(best));
+        }
+        return bestResponseScore;
+    }
 
-        return bestResponse;
+    /**
+     * returns the hash of a position - the board and the player that should play in it
+     */
+    public long positionKey(BitBoard board, PlayerColor colorToPlay)
+    {
+        return board.getHash() ^ Zobrist.sideKey(colorToPlay);
     }
 
     /**
-     * counts the empty squares in a board
+     * the static evaluation of the AI (complexEvaluationFunction(), or territoryEvaluationFunction() - see setEvaluationType()),
+     * through the transposition table:
+     * the score of a board that was already evaluated is taken from the table instead of being calculated again.
+     * Static scores are kept as depth 0 entries, for the player that should play next (so they are negated),
+     * under a salted key (see Zobrist.STATIC_EVALUATION), apart from the search entries of the same position.
      */
-    public int countEmptySquares(CellContent[][] board)
+    public double cachedComplexEvaluation(BitBoard board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, int emptySquares,
+        RegionPartition regions, PlayerColor playerToPlay)
     {
-        int count = 0;
-        for (int i = 0; i < BOARD_ROWS; i++)
+        return cachedComplexEvaluation(board, pathsMat, playerAms, opponentAms, emptySquares, regions, playerToPlay, null, transpositionTable);
+    }
+
+    // cachedComplexEvaluation() through a table, that counts the evaluation on the state of a search (if it isn't null)
+    private double cachedComplexEvaluation(BitBoard board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, int emptySquares,
+        RegionPartition regions, PlayerColor playerToPlay, GameState countingState, TranspositionTable table)
+    {
+        // salted, so a static score never replaces the deeper search result of the same position
+        long key = positionKey(board, otherColor(playerToPlay)) ^ Zobrist.STATIC_EVALUATION;
+        TranspositionTable.Entry entry = evaluationBuffers.get().evaluationEntry;
+        if(countingState != null)
+            countingState.count(SearchStats.EVALUATIONS);
+        if(table.probe(key, entry) && entry.depth == 0)
         {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                if(board[i][j] == EMPTY)
-                    count+=1;
-            }
+            if(countingState != null)
+                countingState.count(SearchStats.EVALUATION_HITS);
+            return -entry.score;
         }
-        return count;
+
+        double score;
+        if(evaluationType == TERRITORY)
+            score = territoryEvaluationFunction(board, playerToPlay);
+        else
+            score = complexEvaluationFunction(board, pathsMat, playerAms, opponentAms, emptySquares, regions, playerToPlay, false);
+        table.store(key, -score, 0, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        return score;
+    }
+
+    /**
+     * cachedComplexEvaluation() of a state, for the player that played the last move
+     */
+    public double cachedComplexEvaluation(GameState state)
+    {
+        return cachedComplexEvaluation(state, transpositionTable);
+    }
+
+    /**
+     * cachedComplexEvaluation() of a state, through another transposition table than the one of the model
+     * (a search with its own table keeps its static scores there too)
+     */
+    public double cachedComplexEvaluation(GameState state, TranspositionTable table)
+    {
+        PlayerColor playerPlayed = state.getColorPlayed();
+        return cachedComplexEvaluation(state.getBoard(), state.getPathsMat(), state.amazonsOf(playerPlayed),
+            state.amazonsOf(otherColor(playerPlayed)), state.getEmptySquares(), state.getRegions(), playerPlayed, state, table);
+    }
+
+    /**
+     * counts the empty squares in a board
+     */
+    public int countEmptySquares(BitBoard board)
+    {
+        return board.countEmpty();
     }
 
     /**
@@ -890,11 +1620,15 @@ public class Model implements IModel, Constants
      * @param color the color of the playing player
      * @param moveToPlay the move to perform
      */
-    public void doMoveOnBoard(CellContent[][] board, PlayerColor color, Move moveToPlay)
+    public void doMoveOnBoard(BitBoard board, PlayerColor color, Move moveToPlay)
     {
-        board[moveToPlay.getJumpsFromRow()][moveToPlay.getJumpsFromCol()] = EMPTY;
-        board[moveToPlay.getJumpsToRow()][moveToPlay.getJumpsToCol()] = playerSignToAmazonSign(color);
-        board[moveToPlay.getShootsAtRow()][moveToPlay.getShootsAtCol()] = playerSignToArrowSign(color);
+        doMoveOnBoard(board, color, PackedMove.of(moveToPlay));
+    }
+
+    // doMoveOnBoard() for a packed move
+    public void doMoveOnBoard(BitBoard board, PlayerColor color, int packedMove)
+    {
+        board.doMove(color, PackedMove.from(packedMove), PackedMove.to(packedMove), PackedMove.arrow(packedMove));
     }
 
     /**
@@ -904,11 +1638,15 @@ public class Model implements IModel, Constants
      * @param color the color of the player who played
      * @param moveToPlay the move to undo
      */
-    public void undoMoveOnBoard(CellContent[][] board, PlayerColor color, Move moveToPlay)
+    public void undoMoveOnBoard(BitBoard board, PlayerColor color, Move moveToPlay)
+    {
+        undoMoveOnBoard(board, color, PackedMove.of(moveToPlay));
+    }
+
+    // undoMoveOnBoard() for a packed move
+    public void undoMoveOnBoard(BitBoard board, PlayerColor color, int packedMove)
     {
-        board[moveToPlay.getShootsAtRow()][moveToPlay.getShootsAtCol()] = EMPTY;
-        board[moveToPlay.getJumpsToRow()][moveToPlay.getJumpsToCol()] = EMPTY;
-        board[moveToPlay.getJumpsFromRow()][moveToPlay.getJumpsFromCol()] = playerSignToAmazonSign(color);
+        board.undoMove(color, PackedMove.from(packedMove), PackedMove.to(packedMove), PackedMove.arrow(packedMove));
     }
 
     /**
@@ -918,7 +1656,7 @@ public class Model implements IModel, Constants
      * @param newPositionedRow the row of the new occupied square
      * @param newPositionedCol the column of the new occupied square
      */
-    public void updatePathsPiecePositioned(CellContent[][] board, int[][][] lengthsMat, int newPositionedRow, int newPositionedCol)
+    public void updatePathsPiecePositioned(BitBoard board, int[][][] lengthsMat, int newPositionedRow, int newPositionedCol)
     {
         for (int directionNum = 0; directionNum < 8; directionNum++)
         {    
@@ -928,7 +1666,7 @@ public class Model implements IModel, Constants
 
             // updating each square that could be reached by the new piece (the empty ones, and the occupied one)
             int freeSquares = 0;
-            while (isInBoard(tempRow, tempCol) && board[tempRow][tempCol] == EMPTY)
+            while (isInBoard(tempRow, tempCol) && board.isEmpty(tempRow, tempCol))
             {
                 lengthsMat[tempRow][tempCol][oppositeDirNum] = freeSquares;
                 tempRow += direction[0];
@@ -950,7 +1688,7 @@ public class Model implements IModel, Constants
      * @param newPositionedRow the row of the unoccupied square
      * @param newPositionedCol the column of the unoccupied square
      */
-    public void updatePathsPieceRemoved(CellContent[][] board, int[][][] lengthsMat, int removedRow, int removedCol)
+    public void updatePathsPieceRemoved(BitBoard board, int[][][] lengthsMat, int removedRow, int removedCol)
     {
         for (int directionNum = 0; directionNum < 8; directionNum++)
         {    
@@ -960,7 +1698,7 @@ public class Model implements IModel, Constants
             int tempRow = removedRow, tempCol = removedCol;
 
             // iterating backwards - the most further empty square in the line
-            while(isInBoard(tempRow+oppositeDir[0], tempCol+oppositeDir[1]) && board[tempRow + oppositeDir[0]][tempCol + oppositeDir[1]] == EMPTY)
+            while(isInBoard(tempRow+oppositeDir[0], tempCol+oppositeDir[1]) && board.isEmpty(tempRow + oppositeDir[0], tempCol + oppositeDir[1]))
             {
                 tempRow += DIRECTIONS[oppositeDirNum][0];
                 tempCol += DIRECTIONS[oppositeDirNum][1];
@@ -969,7 +1707,7 @@ public class Model implements IModel, Constants
             int freeSquares = 0;
 
 
-            while (isInBoard(tempRow, tempCol) && board[tempRow][tempCol] == EMPTY)
+            while (isInBoard(tempRow, tempCol) && board.isEmpty(tempRow, tempCol))
             {
                 lengthsMat[tempRow][tempCol][oppositeDirNum] = freeSquares;
                 tempRow += direction[0];
@@ -990,11 +1728,18 @@ public class Model implements IModel, Constants
      * @param lengthsMat the matrix of paths
      * @param movePlayed the move that was played
      */
-    public void updatePathsMatrix(CellContent[][] board, int[][][] lengthsMat, Move movePlayed)
+    public void updatePathsMatrix(BitBoard board, int[][][] lengthsMat, Move movePlayed)
+    {
+        updatePathsMatrix(board, lengthsMat, PackedMove.of(movePlayed));
+    }
+
+    // updatePathsMatrix() for a packed move
+    public void updatePathsMatrix(BitBoard board, int[][][] lengthsMat, int packedMove)
     {
-        updatePathsPieceRemoved(board, lengthsMat, movePlayed.getJumpsFromRow(), movePlayed.getJumpsFromCol());
-        updatePathsPiecePositioned(board, lengthsMat, movePlayed.getJumpsToRow(), movePlayed.getJumpsToCol());
-        updatePathsPiecePositioned(board, lengthsMat, movePlayed.getShootsAtRow(), movePlayed.getShootsAtCol());
+        int from = PackedMove.from(packedMove), to = PackedMove.to(packedMove), arrow = PackedMove.arrow(packedMove);
+        updatePathsPieceRemoved(board, lengthsMat, BitBoard.rowOf(from), BitBoard.colOf(from));
+        updatePathsPiecePositioned(board, lengthsMat, BitBoard.rowOf(to), BitBoard.colOf(to));
+        updatePathsPiecePositioned(board, lengthsMat, BitBoard.rowOf(arrow), BitBoard.colOf(arrow));
     }
 
     /**
@@ -1004,11 +1749,18 @@ public class Model implements IModel, Constants
      * @param lengthsMat the matrix of paths
      * @param movePlayed the move that was played
      */
-    public void undoUpdatePathsMatrix(CellContent[][] board, int[][][] lengthsMat, Move movePlayed)
+    public void undoUpdatePathsMatrix(BitBoard board, int[][][] lengthsMat, Move movePlayed)
     {
-        updatePathsPieceRemoved(board, lengthsMat, movePlayed.getShootsAtRow(), movePlayed.getShootsAtCol());
-        updatePathsPieceRemoved(board, lengthsMat, movePlayed.getJumpsToRow(), movePlayed.getJumpsToCol());
-        updatePathsPiecePositioned(board, lengthsMat, movePlayed.getJumpsFromRow(), movePlayed.getJumpsFromCol());
+        undoUpdatePathsMatrix(board, lengthsMat, PackedMove.of(movePlayed));
+    }
+
+    // undoUpdatePathsMatrix() for a packed move
+    public void undoUpdatePathsMatrix(BitBoard board, int[][][] lengthsMat, int packedMove)
+    {
+        int from = PackedMove.from(packedMove), to = PackedMove.to(packedMove), arrow = PackedMove.arrow(packedMove);
+        updatePathsPieceRemoved(board, lengthsMat, BitBoard.rowOf(arrow), BitBoard.colOf(arrow));
+        updatePathsPieceRemoved(board, lengthsMat, BitBoard.rowOf(to), BitBoard.colOf(to));
+        updatePathsPiecePositioned(board, lengthsMat, BitBoard.rowOf(from), BitBoard.colOf(from));
     }
 
     /**
@@ -1018,13 +1770,13 @@ public class Model implements IModel, Constants
      */
     public void updateAmazonArr(Position[] playerAmazons, Move movePlayed)
     {
-        Position oldPos = new Position(movePlayed.getJumpsFromRow(), movePlayed.getJumpsFromCol());
-        Position newPos = new Position(movePlayed.getJumpsToRow(), movePlayed.getJumpsToCol());
-        for (int i = 0; i < playerAmazons.length; i++)
-        {
-            if(playerAmazons[i].equals(oldPos))
-                playerAmazons[i] = newPos;
-        }
+        updateAmazonArr(playerAmazons, PackedMove.of(movePlayed));
+    }
+
+    // updateAmazonArr() for a packed move (the positions come from BitBoard.positionOf(), so none is created)
+    public void updateAmazonArr(Position[] playerAmazons, int packedMove)
+    {
+        replaceAmazon(playerAmazons, PackedMove.from(packedMove), PackedMove.to(packedMove));
     }
 
     /**
@@ -1034,12 +1786,22 @@ public class Model implements IModel, Constants
      */
     public void undoUpdateAmazonArr(Position[] playerAmazons, Move movePlayed)
     {
-        Position oldPos = new Position(movePlayed.getJumpsFromRow(), movePlayed.getJumpsFromCol());
-        Position newPos = new Position(movePlayed.getJumpsToRow(), movePlayed.getJumpsToCol());
-        for (int i = 0; i < playerAmazons.length; i++)
+        undoUpdateAmazonArr(playerAmazons, PackedMove.of(movePlayed));
+    }
+
+    // undoUpdateAmazonArr() for a packed move
+    public void undoUpdateAmazonArr(Position[] playerAmazons, int packedMove)
+    {
+        replaceAmazon(playerAmazons, PackedMove.to(packedMove), PackedMove.from(packedMove));
+    }
+
+    // replaces the amazon of a square in an array of amazons with the amazon of another square
+    private void replaceAmazon(Position[] amazons, int oldSquare, int newSquare)
+    {
+        for (int i = 0; i < amazons.length; i++)
         {
-            if(playerAmazons[i].equals(newPos))
-                playerAmazons[i] = oldPos;
+            if(BitBoard.square(amazons[i].getRow(), amazons[i].getCol()) == oldSquare)
+                amazons[i] = BitBoard.positionOf(newSquare);
         }
     }
 
@@ -1125,7 +1887,7 @@ public class Model implements IModel, Constants
      * @param directionNum
      * @param pos
      */
-    private void updateLineInPathsMatrix(CellContent[][] board, int[][][] accessMatrix, int directionNum, Position pos)
+    private void updateLineInPathsMatrix(BitBoard board, int[][][] accessMatrix, int directionNum, Position pos)
     {
         // the square of row,col must be on one of the border lines, and the direction must match that line.
         int freeSquares = 0;
@@ -1134,7 +1896,7 @@ public class Model implements IModel, Constants
         while(isInBoard(tempRow, tempCol))
         {
             accessMatrix[tempRow][tempCol][oppositeDirectionNum] = freeSquares;
-            if(board[tempRow][tempCol] == EMPTY)
+            if(board.isEmpty(tempRow, tempCol))
                 freeSquares += 1;
             else
                 freeSquares = 0;
@@ -1149,20 +1911,28 @@ public class Model implements IModel, Constants
      * @param board the board to check
      * @return the matrix of paths
      */
-    public int[][][] pathsForWholeBoard(CellContent[][] board)
+    public int[][][] pathsForWholeBoard(BitBoard board)
     {
         int pathsMat[][][] = new int [BOARD_ROWS][BOARD_COLS][8];
         // like calling haveAccessTo() for each square, but more efficiently
-        // Going over every horizontal, vertical, and diagonal line, both ways, 
-        // and counting how many empty squares were checked.
-        recalculateEntirePathMatrix(board, pathsMat);
+        // For each square and direction, the first blocker is found with a single bit scan
+        // of the ray, and the free squares before it are counted.
+        for (int row = 0; row < BOARD_ROWS; row++)
+        {
+            for (int col = 0; col < BOARD_COLS; col++)
+            {
+                int sq = BitBoard.square(row, col);
+                for (int directionNum = 0; directionNum < 8; directionNum++)
+                    pathsMat[row][col][directionNum] = board.freeLength(sq, directionNum);
+            }
+        }
         return pathsMat;
     }
 
     /**
      * recalculate the entire matrix of paths
      */
-    public void recalculateEntirePathMatrix(CellContent[][] board, int[][][] pathsMat)
+    public void recalculateEntirePathMatrix(BitBoard board, int[][][] pathsMat)
     {
         Position[] edgeSquares = boardSquareEdges();
         for (int i = 0; i < edgeSquares.length; i++)
@@ -1223,6 +1993,28 @@ public class Model implements IModel, Constants
         return score;
     }
 
+    /**
+     * mobilityScore() of the paths of some amazons, without building the array of their paths
+     * (the same sum, in the same order, so the score is exactly the same)
+     */
+    public double mobilityScore(int[][][] pathsMat, Position[] amazons)
+    {
+        double score = 0;
+        for (int i = 0; i < amazons.length; i++)
+        {
+            int[] paths = pathsMat[amazons[i].getRow()][amazons[i].getCol()];
+            for (int j = 0; j < 8; j++)
+            {
+                if(j < 4) // vertical or horizontal direction
+                    score += Math.sqrt(paths[j]);
+                else
+                    score += 1.25 * Math.sqrt(paths[j]);
+            }
+        }
+
+        return score;
+    }
+
     /**
      * evaluates how good a board is for a player, before their opponent plays.
      * If the game is over for either player, returns ±2000 as a terminal score.
@@ -1234,154 +2026,121 @@ public class Model implements IModel, Constants
      * @param playerToPlay the color of the playing player
      * @return a score between -2000 and 2000
      */
-    public double easyEvaluationFunction(CellContent[][] board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, PlayerColor playerToPlay)
+    public double easyEvaluationFunction(BitBoard board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, PlayerColor playerToPlay)
     {
         PlayerColor opponentPlayer = otherColor(playerToPlay); // going to play now
-        if(isGameOver(board, opponentPlayer))
+        if(isGameOver(pathsMat, opponentAms))
             return 2000; // the opponent loses now
-        if (isGameOver(board, playerToPlay))
+        if (isGameOver(pathsMat, playerAms))
             return -2000; // current player will lose next move
 
         
-        int playerMobility[][] = mobilitiesForAmazons(pathsMat, playerAms);
-        int opponentMobility[][] = mobilitiesForAmazons(pathsMat, opponentAms);
-
-        double playerMobilityScore = mobilityScore(playerMobility);
-        double opponentMobilityScore = mobilityScore(opponentMobility);
+        double playerMobilityScore = mobilityScore(pathsMat, playerAms);
+        double opponentMobilityScore = mobilityScore(pathsMat, opponentAms);
 
         double score = playerMobilityScore - opponentMobilityScore ;
         // System.out.println("player mobility: " + playerMobilityScore + ", opponent mobility: " + opponentMobilityScore + ", score:" + score);
         return score;
     }
 
+    /**
+     * easyEvaluationFunction() of a state, for the player that played the last move
+     */
+    public double easyEvaluationFunction(GameState state)
+    {
+        PlayerColor playerPlayed = state.getColorPlayed();
+        return easyEvaluationFunction(state.getBoard(), state.getPathsMat(), state.amazonsOf(playerPlayed),
+            state.amazonsOf(otherColor(playerPlayed)), playerPlayed);
+    }
+
 
     /**
      * for each square, we save whether the player can reach it with one or more queen jumps
-     * implemented with a BFS algorithm of queen-like jumps
-     * @param allPaths the matrix of paths
+     * implemented with a flood fill of king steps over the empty squares, done with word-level operations
+     * (a queen jump is a straight line of king steps, so both reach exactly the same squares)
+     * when the regions of the board are known, the reachable squares are just the regions around the amazons
      * @param board the board
+     * @param regions the regions of the empty squares of the board (null to flood fill the board)
      * @param playerAmazons the positions of the playing player
-     * @return the matrix of booleans
+     * @return the reachable squares, as a bitboard layer - {low word, high word}
      */
-    public boolean[][] reachableTerritory(int[][][] allPaths, CellContent[][] board, Position playerAmazons[])
+    public long[] reachableTerritory(BitBoard board, RegionPartition regions, Position playerAmazons[])
     {
-        boolean reachable[][] = new boolean[BOARD_ROWS][BOARD_COLS];
-        Queue<Position> squaresToCheck = new LinkedList<Position>();
+        long[] reachable = new long[2];
+        reachableTerritory(board, regions, playerAmazons, reachable);
+        return reachable;
+    }
 
+    // reachableTerritory(), into a buffer
+    private void reachableTerritory(BitBoard board, RegionPartition regions, Position playerAmazons[], long[] reachable)
+    {
+        long amazonsLo = 0, amazonsHi = 0;
         for (int i = 0; i < playerAmazons.length; i++)
         {
-            squaresToCheck.add(playerAmazons[i]);
-            while(!squaresToCheck.isEmpty())
-            {
-                Position square = squaresToCheck.remove();
-                for (int j = 0; j < 8; j++)
-                {
-                    int tempRow = square.getRow(), tempCol = square.getCol();
-                    int[] directions = DIRECTIONS[j];
-                    for (int k = 0; k < allPaths[tempRow][tempCol][j]; k++)
-                    {
-                        tempRow += directions[0];
-                        tempCol += directions[1];
-                        
-                        if(reachable[tempRow][tempCol] == false)
-                        {
-                            reachable[tempRow][tempCol] = true;
-                            squaresToCheck.add(new Position(tempRow, tempCol));
-                        }
-                        //if (!isInBoard(tempRow, tempCol)) break;
-                    }
-                }
-            }
+            int sq = BitBoard.square(playerAmazons[i].getRow(), playerAmazons[i].getCol());
+            if(sq < 64)
+                amazonsLo |= 1L << sq;
+            else
+                amazonsHi |= 1L << (sq - 64);
         }
 
-        return reachable;
+        if(regions != null)
+            regions.regionsAround(amazonsLo, amazonsHi, reachable);
+        else
+            BitBoard.floodFill(BitBoard.kingStepLo(amazonsLo, amazonsHi), BitBoard.kingStepHi(amazonsLo, amazonsHi),
+                board.emptyLo(), board.emptyHi(), reachable);
     }
 
     /**
      * Calculates how many squares are reachable by each player, 
      * and how many are exclusively reachable (not reachable by the opponent).
-     * @param playerTerritory a matrix representing which squares can be reached by the player
-     * @param opponentTerritory a matrix representing which squares can be reached by the opponent
+     * @param playerTerritory a bitboard layer of the squares that can be reached by the player
+     * @param opponentTerritory a bitboard layer of the squares that can be reached by the opponent
      * @return an array of 4 values:
      * stats[0] Squares reachable by the player
      * stats[1]: Squares exclusively reachable by the player 
      * stats[2]: Squares reachable by the opponent 
      * stats[3]: Squares exclusively reachable by the opponent
      */
-    public int[] reachabilityStats(boolean[][] playerTerritory, boolean[][] opponentTerritory)
+    public int[] reachabilityStats(long[] playerTerritory, long[] opponentTerritory)
     {
         int[] stats = new int[4]; // playerReachableCount, playerExclusiveCount, opponentReachableCount, opponentExclusiveCount
-        for (int i = 0; i < BOARD_ROWS; i++)
-        {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                if(playerTerritory[i][j])
-                {
-                    stats[0]++;
-                    if(!opponentTerritory[i][j])
-                        stats[1]++;
-                }
-                if(opponentTerritory[i][j])
-                {
-                    stats[2]++;
-                    if(!playerTerritory[i][j])
-                        stats[3]++;
-                }
-            }
-        }
-
+        stats[0] = Long.bitCount(playerTerritory[0]) + Long.bitCount(playerTerritory[1]);
+        stats[1] = Long.bitCount(playerTerritory[0] & ~opponentTerritory[0]) + Long.bitCount(playerTerritory[1] & ~opponentTerritory[1]);
+        stats[2] = Long.bitCount(opponentTerritory[0]) + Long.bitCount(opponentTerritory[1]);
+        stats[3] = Long.bitCount(opponentTerritory[0] & ~playerTerritory[0]) + Long.bitCount(opponentTerritory[1] & ~playerTerritory[1]);
         return stats;
     }
 
     /**
-     * soon to be implemented
      * counts how many amazons are trapped in a small area (small in relation to the free squares)
      * @param board the board
-     * @param pathsMat the matrix of paths
+     * @param regions the regions of the empty squares of the board (null to flood fill the board)
      * @param playerAms the positions of the player's amazons
      * @param emptySquares how many empty squares
      * @return the number of amazons trapped in a small area
      */
-    public int countTrappedInUnderThan(CellContent[][] board, int[][][] pathsMat, Position[] playerAms, int minimum)
+    public int countTrappedInUnderThan(BitBoard board, RegionPartition regions, Position[] playerAms, int minimum)
     {
         int count = 0;
+        long[] area = evaluationBuffers.get().area;
         for (int i = 0; i < playerAms.length; i++)
         {
-            if(isTrappedInUnderThan(board, pathsMat, playerAms[i], minimum))
+            if(isTrappedInUnderThan(board, regions, playerAms[i], minimum, area))
                 count++;
         }
         return count;
     }
 
-    public boolean isTrappedInUnderThan(CellContent[][] board, int[][][] pathsMat, Position amazon, int minimum)
+    // area is a buffer for the squares the amazon can get to
+    private boolean isTrappedInUnderThan(BitBoard board, RegionPartition regions, Position amazon, int minimum, long[] area)
     {
-        int reachables = 0;
-        boolean reachabilityMatrix[][] = new boolean[BOARD_ROWS][BOARD_COLS];
-        Queue<Position> squaresToCheck = new LinkedList<Position>();
-
-        squaresToCheck.add(amazon);
-        while(reachables < minimum && !squaresToCheck.isEmpty())
-        {
-            Position square = squaresToCheck.remove();
-            for (int j = 0; j < 8; j++)
-            {
-                int tempRow = square.getRow(), tempCol = square.getCol();
-                int[] directions = DIRECTIONS[j];
-                for (int k = 0; k < pathsMat[tempRow][tempCol][j]; k++)
-                {
-                    tempRow += directions[0];
-                    tempCol += directions[1];
-                    
-                    if(reachabilityMatrix[tempRow][tempCol] == false)
-                    {
-                        reachables++;
-                        reachabilityMatrix[tempRow][tempCol] = true;
-                        squaresToCheck.add(new Position(tempRow, tempCol));
-                    }
-                    //if (!isInBoard(tempRow, tempCol)) break;
-                }
-            }
-        }
+        int sq = BitBoard.square(amazon.getRow(), amazon.getCol());
+        if(regions != null)
+            regions.regionsAround(sq < 64 ? 1L << sq : 0, sq < 64 ? 0 : 1L << (sq - 64), area);
+        else
+            BitBoard.floodFill(BitBoard.kingMaskLo(sq), BitBoard.kingMaskHi(sq), board.emptyLo(), board.emptyHi(), area);
+        int reachables = Long.bitCount(area[0]) + Long.bitCount(area[1]);
 
         if (reachables < minimum)
             return true;
@@ -1399,12 +2158,23 @@ public class Model implements IModel, Constants
      * @param playerToPlay the player that should play now
      * @return a score between -2000 and 2000
      */
-    public double complexEvaluationFunction(CellContent[][] board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, int emptySquares, PlayerColor playerToPlay, boolean debugPrint)
+    public double complexEvaluationFunction(BitBoard board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, int emptySquares, PlayerColor playerToPlay, boolean debugPrint)
+    {
+        return complexEvaluationFunction(board, pathsMat, playerAms, opponentAms, emptySquares, null, playerToPlay, debugPrint);
+    }
+
+    /**
+     * complexEvaluationFunction(), with the regions of the board kept by a GameState.
+     * The territory checks then read the regions instead of flood filling the board again.
+     * @param regions the regions of the empty squares of the board (null to find them with flood fills)
+     */
+    public double complexEvaluationFunction(BitBoard board, int[][][] pathsMat, Position[] playerAms, Position[] opponentAms, int emptySquares,
+        RegionPartition regions, PlayerColor playerToPlay, boolean debugPrint)
     {
         PlayerColor opponentPlayer = otherColor(playerToPlay); // going to play now
-        if(isGameOver(board, opponentPlayer))
+        if(isGameOver(pathsMat, opponentAms))
             return 2000; // the opponent loses now
-        if (isGameOver(board, playerToPlay))
+        if (isGameOver(pathsMat, playerAms))
             return - 2000; // current player will lose next move
 
         int playerReachableCount = emptySquares, opponentReachableCount = emptySquares;
@@ -1416,23 +2186,59 @@ public class Model implements IModel, Constants
         // and by that it counts reachable ssquares, and exclusive squares.
         // It is also counts how many amazons of each player are trapped in a small area
 
-        if(!isAllOneTerritory(pathsMat, board, emptySquares, playerAms, opponentAms))
+        SearchEvents.TerritoryPhase phaseEvent = SearchEvents.beginTerritoryPhase();
+        boolean isOneTerritory = regions == null ? isAllOneTerritory(pathsMat, board, emptySquares, playerAms, opponentAms)
+            : regions.isOneRegion() && !hasIsolatedAmazon(pathsMat, playerAms, opponentAms);
+        SearchEvents.endTerritoryPhase(phaseEvent, SearchEvents.ONE_TERRITORY, emptySquares);
+        if(!isOneTerritory)
         {
-            // Matrix of booleans that represent whether or not a square can be reach by the player
+            // Bitboard layers of the squares that can be reached by the player
             // The same, just for the opponent
-            boolean[][] playerTerritory = reachableTerritory(pathsMat, board, playerAms);
-            boolean[][] opponentTerritory = reachableTerritory(pathsMat, board, opponentAms);
-
-            // the function finds the 4 following values, and returns them in an array
-            int[] reachStats = reachabilityStats(playerTerritory, opponentTerritory);
-            playerReachableCount = reachStats[0];
-            playerExclusiveCount = reachStats[1];
-            opponentReachableCount = reachStats[2];
-            opponentExclusiveCount = reachStats[3];
+            // (filled in the buffers of the thread, so the evaluation allocates nothing)
+            phaseEvent = SearchEvents.beginTerritoryPhase();
+            EvaluationBuffers buffers = evaluationBuffers.get();
+            long[] playerTerritory = buffers.playerTerritory, opponentTerritory = buffers.opponentTerritory;
+            reachableTerritory(board, regions, playerAms, playerTerritory);
+            reachableTerritory(board, regions, opponentAms, opponentTerritory);
+            SearchEvents.endTerritoryPhase(phaseEvent, SearchEvents.REACHABLE_TERRITORY, emptySquares);
+
+            // the 4 values of reachabilityStats(), counted here without its array
+            playerReachableCount = Long.bitCount(playerTerritory[0]) + Long.bitCount(playerTerritory[1]);
+            playerExclusiveCount = Long.bitCount(playerTerritory[0] & ~opponentTerritory[0])
+                + Long.bitCount(playerTerritory[1] & ~opponentTerritory[1]);
+            opponentReachableCount = Long.bitCount(opponentTerritory[0]) + Long.bitCount(opponentTerritory[1]);
+            opponentExclusiveCount = Long.bitCount(opponentTerritory[0] & ~playerTerritory[0])
+                + Long.bitCount(opponentTerritory[1] & ~playerTerritory[1]);
+
+            // once no square can be reached by both players the board may have fully split,
+            // and then the game is decided by how many moves each player can still make
+            EndgameSolver solver = endgameSolvers.get();
+            if(playerExclusiveCount == playerReachableCount && opponentExclusiveCount == opponentReachableCount
+                && solver.isFullySplit(board))
+            {
+                int playerMoves = solver.movesLeft(board, playerToPlay, EndgameSolver.EVALUATION_NODE_BUDGET);
+                int opponentMoves = playerMoves == EndgameSolver.UNKNOWN ? EndgameSolver.UNKNOWN
+                    : solver.movesLeft(board, opponentPlayer, EndgameSolver.EVALUATION_NODE_BUDGET);
+                if(opponentMoves != EndgameSolver.UNKNOWN)
+                    return solvedScore(playerMoves, opponentMoves);
+            }
+            // or a small area is still shared, and the tablebase may have it
+            Tablebase tablebase = this.tablebase;
+            int sharedCount = playerReachableCount - playerExclusiveCount;
+            if(tablebase != null && sharedCount > 0 && sharedCount <= tablebase.getMaxCells() - 2)
+            {
+                int result = tablebase.probe(board, opponentPlayer, solver, EndgameSolver.EVALUATION_NODE_BUDGET);
+                if(result == Tablebase.LOSS)
+                    return Tablebase.WIN_SCORE;
+                if(result == Tablebase.WIN)
+                    return -Tablebase.WIN_SCORE;
+            }
 
             // number of amazons trapped in a small area. 
-            playerTrappedInSmallArea = countTrappedInUnderThan(board, pathsMat, playerAms, (int) (0.15 * emptySquares));
-            opponentTrappedInSmallArea = countTrappedInUnderThan(board, pathsMat, opponentAms, (int) (0.15 * emptySquares));
+            phaseEvent = SearchEvents.beginTerritoryPhase();
+            playerTrappedInSmallArea = countTrappedInUnderThan(board, regions, playerAms, (int) (0.15 * emptySquares));
+            opponentTrappedInSmallArea = countTrappedInUnderThan(board, regions, opponentAms, (int) (0.15 * emptySquares));
+            SearchEvents.endTerritoryPhase(phaseEvent, SearchEvents.TRAPPED_COUNT, emptySquares);
         }
 
         // almost certain win: score 1900 - 2000
@@ -1445,8 +2251,8 @@ public class Model implements IModel, Constants
 
 
         // mobility scores for each player
-        double playerMobilityScore = mobilityScore(mobilitiesForAmazons(pathsMat, playerAms));
-        double opponentMobilityScore = mobilityScore(mobilitiesForAmazons(pathsMat, opponentAms));
+        double playerMobilityScore = mobilityScore(pathsMat, playerAms);
+        double opponentMobilityScore = mobilityScore(pathsMat, opponentAms);
 
         // final score
         double score = 0.5 * (playerMobilityScore - 0.9 * opponentMobilityScore)
@@ -1467,7 +2273,18 @@ public class Model implements IModel, Constants
     }
 
     /**
-     * soon to be implemented
+     * The territory evaluation of the AI: who gets first to each empty square, by queen moves and by king steps
+     * (see TerritoryEvaluator). Each thread evaluates with its own TerritoryEvaluator.
+     * @param board the board to check
+     * @param playerToPlay the player that has just played (the score is for them)
+     * @return a score between -2000 and 2000
+     */
+    public double territoryEvaluationFunction(BitBoard board, PlayerColor playerToPlay)
+    {
+        return territoryEvaluators.get().evaluate(board, playerToPlay);
+    }
+
+    /**
      * checkes if all the amazons of both players are in the same area
      * used for efficiency - if all are in the same area, no need to check which color can reach each square,
      * since for each square it will be either true or false for both of them
@@ -1477,71 +2294,44 @@ public class Model implements IModel, Constants
      * @param opponentAms the amazons of the opponent
      * @return whether or not all the amazons are in the same area
      */
-    private boolean isAllOneTerritory(int[][][] pathsMat, CellContent[][] board, int emptySquares, Position[] playerAms, Position[] opponentAms)
+    private boolean isAllOneTerritory(int[][][] pathsMat, BitBoard board, int emptySquares, Position[] playerAms, Position[] opponentAms)
     {
-        // finding an empty square
-        int startRow = 0, startCol = 0;
-        while(startRow < BOARD_ROWS)
-        {
-            if (board[startRow][startCol] == EMPTY)
-                break;
-
-            startCol++;
-            if(startCol == BOARD_COLS)
-            {
-                startCol = 0;
-                startRow++;
-            }
-        }
+        long emptyLo = board.emptyLo(), emptyHi = board.emptyHi();
+        if((emptyLo | emptyHi) == 0)
+            return true;
 
+        // starting from the lowest empty square
+        long startLo = emptyLo & -emptyLo;
+        long startHi = startLo == 0 ? emptyHi & -emptyHi : 0;
 
-        Position emptySquare = new Position(startRow, startRow);
-        int emptyChecked = 1;
-        boolean reachable[][] = new boolean[BOARD_ROWS][BOARD_COLS];
-        reachable[startRow][startCol] = true;
-        Queue<Position> squaresToCheck = new LinkedList<Position>();
-        squaresToCheck.add(emptySquare);
-        
         // checking if all the free squares are connected
-        while(!squaresToCheck.isEmpty())
-        {
-            Position square = squaresToCheck.remove();
-            for (int j = 0; j < 8; j++)
-            {
-                int tempRow = square.getRow(), tempCol = square.getCol();
-                int[] directions = DIRECTIONS[j];
-                for (int k = 0; k < pathsMat[tempRow][tempCol][j]; k++)
-                {
-                    tempRow += directions[0];
-                    tempCol += directions[1];
-                    
-                    if(reachable[tempRow][tempCol] == false)
-                    {
-                        emptyChecked++;
-                        reachable[tempRow][tempCol] = true;
-                        squaresToCheck.add(new Position(tempRow, tempCol));
-                    }
-                    if (!isInBoard(tempRow, tempCol)) break;
-                }
-            }
-        }
+        long[] area = evaluationBuffers.get().area;
+        BitBoard.floodFill(startLo, startHi, emptyLo, emptyHi, area);
+        int emptyChecked = Long.bitCount(area[0]) + Long.bitCount(area[1]);
 
         if(emptyChecked != emptySquares)
             return false; // not all free squares can be reached from the starting square
 
         // checking no amazon is isolated
+        return !hasIsolatedAmazon(pathsMat, playerAms, opponentAms);
+    }
+
+    /**
+     * returns whether one of the amazons of the players is isolated (has no free path)
+     */
+    private boolean hasIsolatedAmazon(int[][][] pathsMat, Position[] playerAms, Position[] opponentAms)
+    {
         for (int i = 0; i < playerAms.length; i++)
         {
             if(isIsolatedAmzon(pathsMat, playerAms[i]))
-                return false;
+                return true;
         }
         for (int i = 0; i < opponentAms.length; i++)
         {
-            if(isIsolatedAmzon(pathsMat, playerAms[i]))
-                return false;
+            if(isIsolatedAmzon(pathsMat, opponentAms[i]))
+                return true;
         }
-
-        return true;
+        return false;
     }
 
     /**
@@ -1614,13 +2404,7 @@ public class Model implements IModel, Constants
         // The amazons are put randomally on the board
         // Arrows added randomally
         // The random board is not necessarily possible to get to in a game
-        for (int i = 0; i < BOARD_ROWS; i++)
-        {
-            for (int j = 0; j < BOARD_COLS; j++)
-            {
-                boardState[i][j] = EMPTY;
-            }
-        }
+        boardState.clear();
 
         int whiteAmazons = WHITE_AMAZON_NUMBER, blackAmazons = BLACK_AMAZON_NUMBER;
         int amazonlessCells = BOARD_ROWS * BOARD_COLS - whiteAmazons - blackAmazons;
@@ -1647,7 +2431,7 @@ public class Model implements IModel, Constants
                 int random = new Random().nextInt(freeCells.size());
                 int randomCell = freeCells.get(random);
                 freeCells.remove(Integer.valueOf(randomCell));
-                boardState[randomCell/BOARD_ROWS][randomCell%BOARD_ROWS] = contentSigns[i];
+                boardState.setContent(randomCell/BOARD_ROWS, randomCell%BOARD_ROWS, contentSigns[i]);
             }
         }
 
@@ -0,0 +1,225 @@
+package model;
+
+import java.util.Arrays;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * A reusable list of packed moves (see PackedMove), with a score for each move in a parallel array.
+ * The AI keeps one buffer for each level of its search and fills it again in every node,
+ * so generating and scoring moves creates no objects.
+ * The buffer grows if a position has more moves than its capacity (it never shrinks).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class MoveBuffer implements Constants
+{
+    public static final int DEFAULT_CAPACITY = 2500; // the opening position has 2176 moves
+
+    private int[] moves;
+    private double[] scores;
+    private int size;
+    private final long[] jumps = new long[2]; // the squares an amazon can jump to (low and high words)
+    private final long[] shots = new long[2]; // the squares an arrow can be shot at
+
+    /**
+     * constructs an empty MoveBuffer object
+     */
+    public MoveBuffer()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveBuffer(int capacity)
+    {
+        moves = new int[capacity];
+        scores = new double[capacity];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public void add(int packedMove)
+    {
+        if(size == moves.length)
+        {
+            moves = Arrays.copyOf(moves, 2 * size);
+            scores = Arrays.copyOf(scores, 2 * size);
+        }
+        moves[size] = packedMove;
+        scores[size] = 0;
+        size++;
+    }
+
+    public int getMove(int index)
+    {
+        return moves[index];
+    }
+
+    public double getScore(int index)
+    {
+        return scores[index];
+    }
+
+    public void setScore(int index, double score)
+    {
+        scores[index] = score;
+    }
+
+    /**
+     * creates a Move object (with its score) for one of the moves
+     */
+    public Move toMove(int index)
+    {
+        Move move = PackedMove.toMove(moves[index]);
+        move.setScore(scores[index]);
+        return move;
+    }
+
+    /**
+     * returns the index of a move in the buffer, or -1 if it isn't there
+     */
+    public int indexOf(int packedMove)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if(moves[i] == packedMove)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * returns the index of the move with the highest score (the first one, if several have it), or -1 if the buffer is empty
+     */
+    public int bestIndex()
+    {
+        if(size == 0)
+            return -1;
+        int best = 0;
+        for (int i = 1; i < size; i++)
+        {
+            if(scores[i] > scores[best])
+                best = i;
+        }
+        return best;
+    }
+
+    /**
+     * fills the buffer with all the legal moves of a player.
+     * The moves are ordered by the square of the amazon, then by the destination, then by the arrow.
+     * @param board the board to check
+     * @param color the player that should play
+     */
+    public void generate(BitBoard board, PlayerColor color)
+    {
+        size = 0;
+        long occLo = board.occupiedLo(), occHi = board.occupiedHi();
+        long amazonsLo = board.amazonsLo(color), amazonsHi = board.amazonsHi(color);
+        while((amazonsLo | amazonsHi) != 0)
+        {
+            int from;
+            if(amazonsLo != 0)
+            {
+                from = Long.numberOfTrailingZeros(amazonsLo);
+                amazonsLo &= amazonsLo - 1;
+            }
+            else
+            {
+                from = 64 + Long.numberOfTrailingZeros(amazonsHi);
+                amazonsHi &= amazonsHi - 1;
+            }
+
+            BitBoard.queenReach(from, occLo, occHi, jumps);
+            long jumpsLo = jumps[0], jumpsHi = jumps[1];
+            while((jumpsLo | jumpsHi) != 0)
+            {
+                int to;
+                if(jumpsLo != 0)
+                {
+                    to = Long.numberOfTrailingZeros(jumpsLo);
+                    jumpsLo &= jumpsLo - 1;
+                }
+                else
+                {
+                    to = 64 + Long.numberOfTrailingZeros(jumpsHi);
+                    jumpsHi &= jumpsHi - 1;
+                }
+
+                // the amazon left its square, so the arrow can be shot through it (or at it)
+                board.arrowReach(from, to, jumps, shots);
+                addAll(from, to, shots[0], shots[1]);
+            }
+        }
+    }
+
+    // adds a move for every arrow square of a layer
+    private void addAll(int from, int to, long arrowsLo, long arrowsHi)
+    {
+        while(arrowsLo != 0)
+        {
+            add(PackedMove.pack(from, to, Long.numberOfTrailingZeros(arrowsLo)));
+            arrowsLo &= arrowsLo - 1;
+        }
+        while(arrowsHi != 0)
+        {
+            add(PackedMove.pack(from, to, 64 + Long.numberOfTrailingZeros(arrowsHi)));
+            arrowsHi &= arrowsHi - 1;
+        }
+    }
+
+    /**
+     * moves the best moves to the front of the buffer, from the highest score down.
+     * Moves with the same score keep their order (like a stable sort), and so do the moves that aren't selected.
+     * @param count how many moves to select
+     */
+    public void selectBest(int count)
+    {
+        count = Math.min(count, size);
+        for (int i = 0; i < count; i++)
+        {
+            int best = i;
+            for (int j = i + 1; j < size; j++)
+            {
+                if(Double.compare(scores[j], scores[best]) > 0)
+                    best = j;
+            }
+            moveToIndex(best, i);
+        }
+    }
+
+    /**
+     * sorts a range of the buffer from the highest score down (a stable insertion sort, for short ranges)
+     */
+    public void sortRange(int from, int to)
+    {
+        for (int i = from + 1; i < to; i++)
+        {
+            int j = i;
+            while(j > from && Double.compare(scores[i], scores[j - 1]) > 0)
+                j--;
+            moveToIndex(i, j);
+        }
+    }
+
+    // moves an entry back to a lower index, shifting the entries between them forward
+    private void moveToIndex(int index, int newIndex)
+    {
+        if(index == newIndex)
+            return;
+        int move = moves[index];
+        double score = scores[index];
+        System.arraycopy(moves, newIndex, moves, newIndex + 1, index - newIndex);
+        System.arraycopy(scores, newIndex, scores, newIndex + 1, index - newIndex);
+        moves[newIndex] = move;
+        scores[newIndex] = score;
+    }
+}
@@ -0,0 +1,152 @@
+package model;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import controller.Constants;
+
+/**
+ * Records how long every AI move of a model took, in a LatencyHistogram for each opponent type and game phase
+ * (the phase is decided by the empty squares of the board), so the tail latency of each level can be checked
+ * against the time a player may wait (the report has the p50, p90, p99 and max of each histogram).
+ * A budget can be set for each opponent type: when a move takes longer, the listeners are called
+ * (on the thread that searched the move, right after it).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class MoveLatencyRecorder implements Constants
+{
+    public static final int OPENING_EMPTY_SQUARES = 70; // a board with more empty squares is in the opening
+    public static final int ENDGAME_EMPTY_SQUARES = 40; // a board with fewer empty squares is in the endgame
+    public static final long NO_BUDGET = Long.MAX_VALUE;
+
+    /**
+     * the phases of the game, by the empty squares of the board
+     */
+    public enum GamePhase
+    {
+        OPENING, MIDDLEGAME, ENDGAME;
+
+        public static GamePhase of(int emptySquares)
+        {
+            if(emptySquares > OPENING_EMPTY_SQUARES)
+                return OPENING;
+            return emptySquares < ENDGAME_EMPTY_SQUARES ? ENDGAME : MIDDLEGAME;
+        }
+    }
+
+    /**
+     * called when an AI move took longer than the budget of its opponent type
+     */
+    public interface BudgetListener
+    {
+        public void moveOverBudget(OpponentType opponentType, int emptySquares, long micros, long budgetMicros);
+    }
+
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[OpponentType.values().length][GamePhase.values().length];
+    private final AtomicLongArray budgetMicros = new AtomicLongArray(OpponentType.values().length);
+    private final List<BudgetListener> listeners = new CopyOnWriteArrayList<BudgetListener>();
+    private Thread shutdownReport; // the thread that prints the report when the JVM exits (null if there is none)
+
+    public MoveLatencyRecorder()
+    {
+        for (LatencyHistogram[] phaseHistograms : histograms)
+            for (int i = 0; i < phaseHistograms.length; i++)
+                phaseHistograms[i] = new LatencyHistogram();
+        for (int i = 0; i < budgetMicros.length(); i++)
+            budgetMicros.set(i, NO_BUDGET);
+    }
+
+    /**
+     * records the latency of an AI move, and calls the listeners if it was over the budget of its opponent type
+     * @param emptySquares the empty squares of the board the move was searched on
+     * @param nanos how long the move took
+     */
+    public void record(OpponentType opponentType, int emptySquares, long nanos)
+    {
+        long micros = nanos / 1000;
+        getHistogram(opponentType, GamePhase.of(emptySquares)).record(micros);
+        long budget = budgetMicros.get(opponentType.ordinal());
+        if(micros > budget)
+        {
+            for (BudgetListener listener : listeners)
+                listener.moveOverBudget(opponentType, emptySquares, micros, budget);
+        }
+    }
+
+    public LatencyHistogram getHistogram(OpponentType opponentType, GamePhase phase)
+    {
+        return histograms[opponentType.ordinal()][phase.ordinal()];
+    }
+
+    /**
+     * sets the longest time a move of an opponent type may take before the listeners are called
+     * @param millis the budget (NO_BUDGET for none)
+     */
+    public void setBudget(OpponentType opponentType, long millis)
+    {
+        budgetMicros.set(opponentType.ordinal(), millis == NO_BUDGET ? NO_BUDGET : millis * 1000);
+    }
+
+    /**
+     * sets the same budget for all the opponent types
+     */
+    public void setBudget(long millis)
+    {
+        for (OpponentType opponentType : OpponentType.values())
+            setBudget(opponentType, millis);
+    }
+
+    public void addBudgetListener(BudgetListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeBudgetListener(BudgetListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * prints the percentiles of every histogram that has moves, in milliseconds
+     */
+    public void report(PrintStream out)
+    {
+        out.printf("%-8s %-10s %8s %10s %10s %10s %10s%n", "level", "phase", "moves", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (OpponentType opponentType : OpponentType.values())
+        {
+            for (GamePhase phase : GamePhase.values())
+            {
+                LatencyHistogram histogram = getHistogram(opponentType, phase);
+                if(histogram.getCount() == 0)
+                    continue;
+                out.printf("%-8s %-10s %8d %10.1f %10.1f %10.1f %10.1f%n", opponentType, phase, histogram.getCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getMax() / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * prints the report when the JVM exits (once, however many times it is called)
+     */
+    public synchronized void reportAtShutdown(PrintStream out)
+    {
+        if(shutdownReport != null)
+            return;
+        shutdownReport = new Thread(() -> report(out), "amazons-latency-report");
+        Runtime.getRuntime().addShutdownHook(shutdownReport);
+    }
+
+    /**
+     * empties all the histograms
+     */
+    public void reset()
+    {
+        for (LatencyHistogram[] phaseHistograms : histograms)
+            for (LatencyHistogram histogram : phaseHistograms)
+                histogram.reset();
+    }
+}
@@ -0,0 +1,309 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import controller.Constants;
+
+/**
+ * An opening book - the moves to play in the first positions of the game, found offline by deep searches
+ * (see tools.OpeningBookBuilder), so the AI doesn't have to search the open board of the opening.
+ * The rules are the same under the 8 symmetries of the square board (rotations and reflections), so a position is kept
+ * once, by its canonical key: the smallest Zobrist hash of its 8 transformed boards (with the player to play).
+ * The moves of a position are kept as they are on the canonical board, and transformed back when it is probed.
+ * Each move has a weight, and a probe picks one of the moves at random by their weights.
+ *
+ * The book is read from a file mapped into memory. The file is:
+ * a header (magic, version, the number of positions, the number of moves), the canonical keys (sorted),
+ * the index of the first move of each position (with one more index for the end of the last position),
+ * and the moves (a packed move and its weight).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class OpeningBook implements Constants, Closeable
+{
+    public static final int MAGIC = 0x414D4F42; // "AMOB"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int SYMMETRIES = 8;
+    public static final String PATH_PROPERTY = "amazons.book";
+    public static final String DEFAULT_PATH = "amazons-book.bin";
+
+    private static final int KEY_SIZE = 8, INDEX_SIZE = 4, MOVE_SIZE = 8;
+
+    // the square each square goes to under each symmetry - [symmetry][square]
+    private static final int[][] TRANSFORMED_SQUARES = new int[SYMMETRIES][BitBoard.SQUARES];
+    // the symmetry that undoes each symmetry
+    private static final int[] INVERSES = new int[SYMMETRIES];
+
+    static
+    {
+        // a symmetry is a transpose (bit 2), then a reflection of the rows (bit 1) and of the columns (bit 0)
+        for (int symmetry = 0; symmetry < SYMMETRIES; symmetry++)
+        {
+            for (int sq = 0; sq < BitBoard.SQUARES; sq++)
+            {
+                int row = BitBoard.rowOf(sq), col = BitBoard.colOf(sq);
+                if((symmetry & 4) != 0)
+                {
+                    int temp = row;
+                    row = col;
+                    col = temp;
+                }
+                if((symmetry & 2) != 0)
+                    row = BOARD_ROWS - 1 - row;
+                if((symmetry & 1) != 0)
+                    col = BOARD_COLS - 1 - col;
+                TRANSFORMED_SQUARES[symmetry][sq] = BitBoard.square(row, col);
+            }
+        }
+        for (int symmetry = 0; symmetry < SYMMETRIES; symmetry++)
+        {
+            for (int inverse = 0; inverse < SYMMETRIES; inverse++)
+            {
+                boolean isIdentity = true;
+                for (int sq = 0; sq < BitBoard.SQUARES && isIdentity; sq++)
+                    isIdentity = TRANSFORMED_SQUARES[inverse][TRANSFORMED_SQUARES[symmetry][sq]] == sq;
+                if(isIdentity)
+                    INVERSES[symmetry] = inverse;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int positionCount;
+    private final int moveCount;
+    private final int indexStart;
+    private final int movesStart;
+
+    private OpeningBook(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if(channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not an Amazons opening book file");
+        positionCount = buffer.getInt(8);
+        moveCount = buffer.getInt(12);
+        indexStart = HEADER_BYTES + positionCount * KEY_SIZE;
+        movesStart = indexStart + (positionCount + 1) * INDEX_SIZE;
+    }
+
+    /**
+     * opens an opening book file
+     * @param path the file, written by tools.OpeningBookBuilder
+     */
+    public static OpeningBook open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try
+        {
+            return new OpeningBook(channel);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * opens the book at the path of the amazons.book system property (or amazons-book.bin), if there is one
+     * @return the book, or null if there is no file (or it can't be read)
+     */
+    public static OpeningBook openDefault()
+    {
+        Path path = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+        if(!Files.isReadable(path))
+            return null;
+        try
+        {
+            return open(path);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not open the opening book " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    public int getMoveCount()
+    {
+        return moveCount;
+    }
+
+    /**
+     * picks a book move for a position, at random by the weights of its moves
+     * @param board the board
+     * @param colorToPlay the player that should play
+     * @return the packed move, or PackedMove.NONE if the position isn't in the book
+     */
+    public int probe(BitBoard board, PlayerColor colorToPlay)
+    {
+        int symmetry = canonicalSymmetry(board, colorToPlay);
+        int position = find(keyUnder(board, colorToPlay, symmetry));
+        if(position < 0)
+            return PackedMove.NONE;
+
+        int first = buffer.getInt(indexStart + position * INDEX_SIZE);
+        int end = buffer.getInt(indexStart + (position + 1) * INDEX_SIZE);
+        long totalWeight = 0;
+        for (int i = first; i < end; i++)
+            totalWeight += buffer.getInt(movesStart + i * MOVE_SIZE + 4);
+        if(totalWeight <= 0)
+            return PackedMove.NONE;
+
+        long pick = ThreadLocalRandom.current().nextLong(totalWeight);
+        for (int i = first; i < end; i++)
+        {
+            pick -= buffer.getInt(movesStart + i * MOVE_SIZE + 4);
+            if(pick < 0)
+            {
+                int move = transformMove(buffer.getInt(movesStart + i * MOVE_SIZE), inverseOf(symmetry));
+                // a different position with the same key would be very rare, but its move must not be played
+                return isLegal(board, colorToPlay, move) ? move : PackedMove.NONE;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    // the index of a canonical key among the keys of the book (a binary search straight on the mapped file), or -1
+    private int find(long key)
+    {
+        int low = 0, high = positionCount - 1;
+        while(low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            long middleKey = buffer.getLong(HEADER_BYTES + middle * KEY_SIZE);
+            if(middleKey < key)
+                low = middle + 1;
+            else if(middleKey > key)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * returns whether a move can be played on a board
+     */
+    private static boolean isLegal(BitBoard board, PlayerColor color, int move)
+    {
+        int from = PackedMove.from(move), to = PackedMove.to(move), arrow = PackedMove.arrow(move);
+        if(from >= BitBoard.SQUARES || to >= BitBoard.SQUARES || arrow >= BitBoard.SQUARES || !board.isAmazonOf(from, color))
+            return false;
+        long[] reach = new long[2];
+        board.queenReach(from, reach);
+        if(!hasSquare(reach, to))
+            return false;
+        board.arrowReach(from, to, reach, reach);
+        return hasSquare(reach, arrow);
+    }
+
+    private static boolean hasSquare(long[] squares, int sq)
+    {
+        return sq < 64 ? (squares[0] & 1L << sq) != 0 : (squares[1] & 1L << (sq - 64)) != 0;
+    }
+
+    /**
+     * finds the symmetry that turns a position into its canonical one - the one whose board has the smallest key
+     */
+    public static int canonicalSymmetry(BitBoard board, PlayerColor colorToPlay)
+    {
+        int best = 0;
+        long bestKey = keyUnder(board, colorToPlay, 0);
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++)
+        {
+            long key = keyUnder(board, colorToPlay, symmetry);
+            if(key < bestKey)
+            {
+                bestKey = key;
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * returns the canonical key of a position - the smallest key of its transformed boards
+     */
+    public static long canonicalKey(BitBoard board, PlayerColor colorToPlay)
+    {
+        return keyUnder(board, colorToPlay, canonicalSymmetry(board, colorToPlay));
+    }
+
+    /**
+     * returns the Zobrist hash (with the player to play) the board would have after a symmetry
+     */
+    public static long keyUnder(BitBoard board, PlayerColor colorToPlay, int symmetry)
+    {
+        int[] transformed = TRANSFORMED_SQUARES[symmetry];
+        long key = Zobrist.sideKey(colorToPlay);
+        long occupiedLo = board.occupiedLo(), occupiedHi = board.occupiedHi();
+        long whiteLo = board.amazonsLo(PlayerColor.WHITE), whiteHi = board.amazonsHi(PlayerColor.WHITE);
+        long blackLo = board.amazonsLo(PlayerColor.BLACK), blackHi = board.amazonsHi(PlayerColor.BLACK);
+        while(occupiedLo != 0 || occupiedHi != 0)
+        {
+            int sq;
+            long bit;
+            boolean isWhite, isBlack;
+            if(occupiedLo != 0)
+            {
+                bit = occupiedLo & -occupiedLo;
+                sq = Long.numberOfTrailingZeros(bit);
+                occupiedLo &= occupiedLo - 1;
+                isWhite = (whiteLo & bit) != 0;
+                isBlack = (blackLo & bit) != 0;
+            }
+            else
+            {
+                bit = occupiedHi & -occupiedHi;
+                sq = 64 + Long.numberOfTrailingZeros(bit);
+                occupiedHi &= occupiedHi - 1;
+                isWhite = (whiteHi & bit) != 0;
+                isBlack = (blackHi & bit) != 0;
+            }
+            int to = transformed[sq];
+            key ^= isWhite ? Zobrist.amazonKey(PlayerColor.WHITE, to) : isBlack ? Zobrist.amazonKey(PlayerColor.BLACK, to) : Zobrist.arrowKey(to);
+        }
+        return key;
+    }
+
+    /**
+     * returns the symmetry that undoes a symmetry
+     */
+    public static int inverseOf(int symmetry)
+    {
+        return INVERSES[symmetry];
+    }
+
+    /**
+     * moves the squares of a packed move by a symmetry
+     */
+    public static int transformMove(int move, int symmetry)
+    {
+        int[] transformed = TRANSFORMED_SQUARES[symmetry];
+        return PackedMove.pack(transformed[PackedMove.from(move)], transformed[PackedMove.to(move)], transformed[PackedMove.arrow(move)]);
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import controller.Move;
+
+/**
+ * Moves packed into a single int, so the AI can generate and keep them without creating objects.
+ * A packed move holds the squares (see BitBoard.square()) of the origin, destination and arrow, 7 bits each:
+ * from | to << 7 | arrow << 14. A packed move is never 0, since an amazon can't jump to its own square.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public final class PackedMove
+{
+    public static final int NONE = 0;
+
+    private static final int SQUARE_BITS = 7;
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    private PackedMove()
+    {
+    }
+
+    public static int pack(int from, int to, int arrow)
+    {
+        return from | to << SQUARE_BITS | arrow << (2 * SQUARE_BITS);
+    }
+
+    /**
+     * packs a Move object
+     */
+    public static int of(Move move)
+    {
+        return pack(BitBoard.square(move.getJumpsFromRow(), move.getJumpsFromCol()),
+            BitBoard.square(move.getJumpsToRow(), move.getJumpsToCol()),
+            BitBoard.square(move.getShootsAtRow(), move.getShootsAtCol()));
+    }
+
+    public static int from(int packedMove)
+    {
+        return packedMove & SQUARE_MASK;
+    }
+
+    public static int to(int packedMove)
+    {
+        return (packedMove >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    public static int arrow(int packedMove)
+    {
+        return (packedMove >>> (2 * SQUARE_BITS)) & SQUARE_MASK;
+    }
+
+    /**
+     * creates a Move object from a packed move
+     */
+    public static Move toMove(int packedMove)
+    {
+        int from = from(packedMove), to = to(packedMove), arrow = arrow(packedMove);
+        return new Move(BitBoard.rowOf(from), BitBoard.colOf(from), BitBoard.rowOf(to), BitBoard.colOf(to), BitBoard.rowOf(arrow), BitBoard.colOf(arrow));
+    }
+}
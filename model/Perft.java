@@ -0,0 +1,321 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * Perft - counts the positions at the end of every sequence of legal moves of a given length (the leaves of the
+ * game tree to a depth). The counts are the same for every correct move generator, so a new generator is checked
+ * by comparing its counts to the stored counts (see tools.PerftRunner), and its speed is the leaves per second.
+ * The divide mode breaks the count down by the first move, which shows the move that a wrong generator gets wrong.
+ * The first moves are counted in parallel on a fork-join pool, and the counts of subtrees are kept in a shared
+ * cache by their Zobrist hash, since many move orders reach the same position.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class Perft implements Constants
+{
+    /**
+     * a move generator that perft can count
+     */
+    public enum Generator
+    {
+        /**
+         * the bitboard generator of the search (MoveBuffer.generate)
+         */
+        BITBOARD
+        {
+            @Override
+            void generate(Model model, BitBoard board, PlayerColor color, MoveBuffer out)
+            {
+                out.generate(board, color);
+            }
+
+            // the last ply is counted straight from the reach of the arrows, without making the moves
+            @Override
+            long count(Model model, BitBoard board, PlayerColor color, MoveBuffer scratch, long[] jumps, long[] shots)
+            {
+                long count = 0;
+                long amazonsLo = board.amazonsLo(color), amazonsHi = board.amazonsHi(color);
+                while((amazonsLo | amazonsHi) != 0)
+                {
+                    int from;
+                    if(amazonsLo != 0)
+                    {
+                        from = Long.numberOfTrailingZeros(amazonsLo);
+                        amazonsLo &= amazonsLo - 1;
+                    }
+                    else
+                    {
+                        from = 64 + Long.numberOfTrailingZeros(amazonsHi);
+                        amazonsHi &= amazonsHi - 1;
+                    }
+                    board.queenReach(from, jumps);
+                    long jumpsLo = jumps[0], jumpsHi = jumps[1];
+                    while((jumpsLo | jumpsHi) != 0)
+                    {
+                        int to;
+                        if(jumpsLo != 0)
+                        {
+                            to = Long.numberOfTrailingZeros(jumpsLo);
+                            jumpsLo &= jumpsLo - 1;
+                        }
+                        else
+                        {
+                            to = 64 + Long.numberOfTrailingZeros(jumpsHi);
+                            jumpsHi &= jumpsHi - 1;
+                        }
+                        board.arrowReach(from, to, jumps, shots);
+                        count += Long.bitCount(shots[0]) + Long.bitCount(shots[1]);
+                    }
+                }
+                return count;
+            }
+        },
+
+        /**
+         * Model.allPossibleMoves - the moves the controller and the view get
+         */
+        MODEL
+        {
+            @Override
+            void generate(Model model, BitBoard board, PlayerColor color, MoveBuffer out)
+            {
+                out.clear();
+                for (Move move : model.allPossibleMoves(board, color))
+                    out.add(PackedMove.of(move));
+            }
+        },
+
+        /**
+         * the rules as they are written - walks the rays of every amazon square by square, and then the rays of the arrow
+         * (slow, but it shares no code with the other generators)
+         */
+        RAYS
+        {
+            @Override
+            void generate(Model model, BitBoard board, PlayerColor color, MoveBuffer out)
+            {
+                out.clear();
+                for (int from = 0; from < BitBoard.SQUARES; from++)
+                {
+                    if(!board.isAmazonOf(from, color))
+                        continue;
+                    for (int[] jumpDirection : DIRECTIONS)
+                    {
+                        int toRow = BitBoard.rowOf(from) + jumpDirection[0], toCol = BitBoard.colOf(from) + jumpDirection[1];
+                        while(isOnBoard(toRow, toCol) && board.isEmpty(toRow, toCol))
+                        {
+                            int to = BitBoard.square(toRow, toCol);
+                            for (int[] shotDirection : DIRECTIONS)
+                            {
+                                int arrowRow = toRow + shotDirection[0], arrowCol = toCol + shotDirection[1];
+                                // the square the amazon left is empty now
+                                while(isOnBoard(arrowRow, arrowCol) && (board.isEmpty(arrowRow, arrowCol) || BitBoard.square(arrowRow, arrowCol) == from))
+                                {
+                                    out.add(PackedMove.pack(from, to, BitBoard.square(arrowRow, arrowCol)));
+                                    arrowRow += shotDirection[0];
+                                    arrowCol += shotDirection[1];
+                                }
+                            }
+                            toRow += jumpDirection[0];
+                            toCol += jumpDirection[1];
+                        }
+                    }
+                }
+            }
+
+            private boolean isOnBoard(int row, int col)
+            {
+                return row >= 0 && row < BOARD_ROWS && col >= 0 && col < BOARD_COLS;
+            }
+        };
+
+        /**
+         * puts all the moves of a player in a buffer (in any order)
+         */
+        abstract void generate(Model model, BitBoard board, PlayerColor color, MoveBuffer out);
+
+        /**
+         * counts the moves of a player (the leaves of the last ply)
+         */
+        long count(Model model, BitBoard board, PlayerColor color, MoveBuffer scratch, long[] jumps, long[] shots)
+        {
+            generate(model, board, color, scratch);
+            return scratch.size();
+        }
+    }
+
+    // a subtree is cached from this depth, smaller ones are cheaper to count again than to look up
+    private static final int MIN_CACHED_DEPTH = 2;
+
+    private final Model model;
+    private final Generator generator;
+    // the cache: each entry is the key xor the count, and the count - so an entry torn by two threads is just a miss
+    private final long[] cacheChecks;
+    private final long[] cacheCounts;
+    private final int cacheMask;
+
+    /**
+     * @param model the model (for the MODEL generator)
+     * @param generator the move generator to count
+     * @param cacheBits the cache has 2^cacheBits entries (0 for no cache)
+     */
+    public Perft(Model model, Generator generator, int cacheBits)
+    {
+        this.model = model;
+        this.generator = generator;
+        int size = cacheBits > 0 ? 1 << cacheBits : 0;
+        cacheChecks = new long[size];
+        cacheCounts = new long[size];
+        cacheMask = size - 1;
+    }
+
+    public Generator getGenerator()
+    {
+        return generator;
+    }
+
+    /**
+     * counts the leaves to a depth, on the calling thread
+     * @param board the board (it is left as it was)
+     * @param color the player to play
+     * @param depth the number of plies
+     */
+    public long perft(BitBoard board, PlayerColor color, int depth)
+    {
+        return new Walker(new BitBoard(board), depth).count(color, depth);
+    }
+
+    /**
+     * counts the leaves to a depth, with the first moves in parallel on a pool
+     */
+    public long perft(BitBoard board, PlayerColor color, int depth, ForkJoinPool pool)
+    {
+        long total = 0;
+        for (long count : divide(board, color, depth, pool).values())
+            total += count;
+        return total;
+    }
+
+    /**
+     * counts the leaves under each first move, in parallel on a pool
+     * @param depth the number of plies (with the first move), at least 1
+     * @return the count of each packed move, in the order of the generator
+     */
+    public Map<Integer, Long> divide(BitBoard board, PlayerColor color, int depth, ForkJoinPool pool)
+    {
+        if(depth < 1)
+            throw new IllegalArgumentException("The depth of divide must be at least 1");
+        MoveBuffer rootMoves = new MoveBuffer();
+        generator.generate(model, board, color, rootMoves);
+        List<SubtreeTask> tasks = new ArrayList<SubtreeTask>(rootMoves.size());
+        for (int i = 0; i < rootMoves.size(); i++)
+            tasks.add(new SubtreeTask(board, color, rootMoves.getMove(i), depth - 1));
+        pool.invoke(new RecursiveTask<Void>()
+        {
+            @Override
+            protected Void compute()
+            {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Map<Integer, Long> counts = new LinkedHashMap<Integer, Long>();
+        for (SubtreeTask task : tasks)
+            counts.put(task.move, task.join());
+        return counts;
+    }
+
+    /**
+     * counts the leaves under one first move
+     */
+    private final class SubtreeTask extends RecursiveTask<Long>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BitBoard board;
+        private final PlayerColor color;
+        private final int move, depth;
+
+        SubtreeTask(BitBoard board, PlayerColor color, int move, int depth)
+        {
+            this.board = board;
+            this.color = color;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute()
+        {
+            BitBoard child = new BitBoard(board);
+            model.doMoveOnBoard(child, color, move);
+            return depth == 0 ? 1 : new Walker(child, depth).count(model.otherColor(color), depth);
+        }
+    }
+
+    /**
+     * the depth first walk of one thread - its own board and a move buffer for every ply, so it allocates nothing
+     */
+    private final class Walker
+    {
+        private final BitBoard board;
+        private final MoveBuffer[] buffers;
+        private final long[] jumps = new long[2], shots = new long[2];
+
+        Walker(BitBoard board, int depth)
+        {
+            this.board = board;
+            buffers = new MoveBuffer[Math.max(1, depth + 1)];
+            for (int i = 0; i < buffers.length; i++)
+                buffers[i] = new MoveBuffer();
+        }
+
+        long count(PlayerColor color, int depth)
+        {
+            if(depth == 0)
+                return 1;
+            if(depth == 1)
+                return generator.count(model, board, color, buffers[0], jumps, shots);
+
+            long key = 0;
+            int index = 0;
+            if(cacheCounts.length > 0 && depth >= MIN_CACHED_DEPTH)
+            {
+                key = board.getHash() ^ Zobrist.sideKey(color) ^ depth * 0x9E3779B97F4A7C15L;
+                index = (int) key & cacheMask;
+                long count = cacheCounts[index];
+                if((cacheChecks[index] ^ count) == key)
+                    return count;
+            }
+
+            MoveBuffer moves = buffers[depth];
+            generator.generate(model, board, color, moves);
+            PlayerColor other = model.otherColor(color);
+            long total = 0;
+            for (int i = 0; i < moves.size(); i++)
+            {
+                int move = moves.getMove(i);
+                model.doMoveOnBoard(board, color, move);
+                total += count(other, depth - 1);
+                model.undoMoveOnBoard(board, color, move);
+            }
+
+            if(cacheCounts.length > 0 && depth >= MIN_CACHED_DEPTH)
+            {
+                cacheCounts[index] = total;
+                cacheChecks[index] = key ^ total;
+            }
+            return total;
+        }
+    }
+}
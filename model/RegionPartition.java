@@ -0,0 +1,209 @@
+package model;
+
+import controller.Constants;
+
+/**
+ * The partition of the empty squares of a board into regions - areas that are connected by king steps
+ * (a queen move is a line of king steps, so no amazon can ever get from one region to another).
+ * An amazon belongs to every region that touches its square.
+ * The partition follows the moves made and unmade on its board: a move only changes the regions around its three squares
+ * (the square the amazon left joins the regions around it, and the two squares that were filled may split their regions),
+ * so only those regions are flood filled again, and the others are copied as they are.
+ * Each move keeps its partition on a stack, so unmaking a move just goes back to the partition before it.
+ * Making a move only records it - the partition is updated when it is asked about, since most positions of a search
+ * are never asked about (their score is already in the transposition table). If a few moves were made since then,
+ * all of them are applied at once.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class RegionPartition implements Constants
+{
+    // every 2x2 block of the board holds squares of one region at most, so there are at most 25 regions
+    public static final int MAX_REGIONS = (BOARD_ROWS + 1) / 2 * ((BOARD_COLS + 1) / 2);
+
+    // the regions after each move, as bitboard layers - [moves made][region]
+    private final long[][] regionsLo = new long[BitBoard.SQUARES + 1][MAX_REGIONS];
+    private final long[][] regionsHi = new long[BitBoard.SQUARES + 1][MAX_REGIONS];
+    private final int[] regionCounts = new int[BitBoard.SQUARES + 1];
+    private final boolean[] isUpdated = new boolean[BitBoard.SQUARES + 1]; // whether the regions of a level were found
+    // the move that led to each level
+    private final int[] movesFrom = new int[BitBoard.SQUARES + 1];
+    private final int[] movesTo = new int[BitBoard.SQUARES + 1];
+    private final int[] movesArrow = new int[BitBoard.SQUARES + 1];
+    private final BitBoard board;
+    private int level; // how many moves were made since the partition was built
+
+    private final long[] area = new long[2];
+
+    /**
+     * constructs a RegionPartition object
+     * @param board the board to partition - the partition follows the moves made on it (it is not copied)
+     */
+    public RegionPartition(BitBoard board)
+    {
+        this.board = board;
+        regionCounts[0] = addRegionsOf(board.emptyLo(), board.emptyHi(), 0, 0);
+        isUpdated[0] = true;
+    }
+
+    /**
+     * records a move that was made on the board
+     */
+    public void make(int from, int to, int arrow)
+    {
+        level++;
+        movesFrom[level] = from;
+        movesTo[level] = to;
+        movesArrow[level] = arrow;
+        isUpdated[level] = false;
+    }
+
+    /**
+     * goes back to the partition before the last move
+     */
+    public void unmake()
+    {
+        level--;
+    }
+
+    /**
+     * finds the regions of the current level from the last level whose regions were found
+     */
+    private void update()
+    {
+        if(isUpdated[level])
+            return;
+        int last = level - 1;
+        while(!isUpdated[last])
+            last--;
+
+        // the regions the moves change are the ones around the squares that were left, and the ones of the filled squares
+        long touchLo = 0, touchHi = 0, leftLo = 0, leftHi = 0;
+        for (int move = last + 1; move <= level; move++)
+        {
+            int from = movesFrom[move], to = movesTo[move], arrow = movesArrow[move];
+            touchLo |= BitBoard.kingMaskLo(from);
+            touchHi |= BitBoard.kingMaskHi(from);
+            if(from < 64) leftLo |= 1L << from; else leftHi |= 1L << (from - 64);
+            if(to < 64) touchLo |= 1L << to; else touchHi |= 1L << (to - 64);
+            if(arrow < 64) touchLo |= 1L << arrow; else touchHi |= 1L << (arrow - 64);
+        }
+
+        long[] lo = regionsLo[last], hi = regionsHi[last];
+        long[] nextLo = regionsLo[level], nextHi = regionsHi[level];
+        int count = regionCounts[last];
+        long changedLo = leftLo, changedHi = leftHi;
+        int nextCount = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if((lo[i] & touchLo) != 0 || (hi[i] & touchHi) != 0)
+            {
+                changedLo |= lo[i];
+                changedHi |= hi[i];
+            }
+            else
+            {
+                nextLo[nextCount] = lo[i];
+                nextHi[nextCount] = hi[i];
+                nextCount++;
+            }
+        }
+
+        regionCounts[level] = addRegionsOf(changedLo & board.emptyLo(), changedHi & board.emptyHi(), level, nextCount);
+        isUpdated[level] = true;
+    }
+
+    /**
+     * splits a set of empty squares into regions, and adds them to the partition of a level
+     * @param start how many regions the level already has
+     * @return how many regions the level has now
+     */
+    private int addRegionsOf(long squaresLo, long squaresHi, int level, int start)
+    {
+        int count = start;
+        while(squaresLo != 0 || squaresHi != 0)
+        {
+            // a region grows from the lowest square that isn't in a region yet
+            long seedLo = squaresLo & -squaresLo;
+            long seedHi = seedLo == 0 ? squaresHi & -squaresHi : 0;
+            BitBoard.floodFill(seedLo, seedHi, squaresLo, squaresHi, area);
+            regionsLo[level][count] = area[0];
+            regionsHi[level][count] = area[1];
+            count++;
+            squaresLo &= ~area[0];
+            squaresHi &= ~area[1];
+        }
+        return count;
+    }
+
+    public int getRegionCount()
+    {
+        update();
+        return regionCounts[level];
+    }
+
+    // the regions are numbered from 0 to getRegionCount() - 1
+    public long regionLo(int region)
+    {
+        update();
+        return regionsLo[level][region];
+    }
+
+    public long regionHi(int region)
+    {
+        update();
+        return regionsHi[level][region];
+    }
+
+    /**
+     * returns how many empty squares a region has
+     */
+    public int regionSize(int region)
+    {
+        update();
+        return Long.bitCount(regionsLo[level][region]) + Long.bitCount(regionsHi[level][region]);
+    }
+
+    /**
+     * returns whether a player has an amazon in a region (touching one of its squares)
+     */
+    public boolean hasAmazonOf(int region, PlayerColor color)
+    {
+        update();
+        long amLo = board.amazonsLo(color), amHi = board.amazonsHi(color);
+        return (BitBoard.kingStepLo(amLo, amHi) & regionsLo[level][region]) != 0
+            || (BitBoard.kingStepHi(amLo, amHi) & regionsHi[level][region]) != 0;
+    }
+
+    /**
+     * returns whether all the empty squares are in one region (or there are none)
+     */
+    public boolean isOneRegion()
+    {
+        update();
+        return regionCounts[level] <= 1;
+    }
+
+    /**
+     * finds the empty squares that can be reached from a set of squares - all the regions touching them
+     * (for the squares of amazons, these are the squares the amazons can ever get to).
+     * the result is written to out[0] (low word) and out[1] (high word)
+     */
+    public void regionsAround(long squaresLo, long squaresHi, long[] out)
+    {
+        update();
+        long aroundLo = BitBoard.kingStepLo(squaresLo, squaresHi), aroundHi = BitBoard.kingStepHi(squaresLo, squaresHi);
+        long[] lo = regionsLo[level], hi = regionsHi[level];
+        long reachLo = 0, reachHi = 0;
+        for (int i = 0; i < regionCounts[level]; i++)
+        {
+            if((lo[i] & aroundLo) != 0 || (hi[i] & aroundHi) != 0)
+            {
+                reachLo |= lo[i];
+                reachHi |= hi[i];
+            }
+        }
+        out[0] = reachLo;
+        out[1] = reachHi;
+    }
+}
@@ -0,0 +1,473 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * A negamax search engine with alpha-beta pruning and iterative deepening, used by the EXPERT opponent.
+ * The search walks the game tree on its own GameState, whose make/unmake keep the board, amazons and paths matrix
+ * up to date incrementally.
+ * Since Amazons has a branching factor of up to ~2000, interior nodes only search their best moves
+ * (ordered by a cheap static evaluation), while the nodes right above the leaves are searched in full width,
+ * with alpha-beta cutoffs.
+ * Moves are generated as packed ints into one reusable MoveBuffer for each ply, so the search creates no Move objects
+ * (except for the move it returns).
+ * Searched nodes are kept in a transposition table: a node that was already searched deep enough is not searched again,
+ * and the best move found in an earlier search of a node is searched first.
+ * Several engines can search the same position together (Lazy SMP, see LazySmpSearch) - helper engines
+ * order their moves with a small deterministic noise, so they explore different parts of the tree and share
+ * what they found through the transposition table.
+ * A search can be given a deadline: it then deepens until the time runs out, and returns the best move of the deepest
+ * iteration it finished (or of the interrupted iteration, when its first move - the previous best - was already searched).
+ * For analysis, a search can find several best lines (multi-PV, see setLines()) and report them after every iteration.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class SearchEngine implements Constants
+{
+    /**
+     * gets the best lines of the root after every iteration the search finished (on the thread of the search)
+     */
+    public interface IterationListener
+    {
+        public void iterationDone(AnalysisResult result);
+    }
+
+    public static final int WIN_SCORE = 2000; // same bound as the evaluation functions
+    public static final int DEFAULT_MAX_DEPTH = 3;
+    public static final int SEARCH_WIDTH = 12; // how many moves are searched in an interior node
+    public static final double ORDER_NOISE = 0.5; // the largest change helpers make to move ordering scores
+    public static final int MAX_TIMED_DEPTH = 32; // the depth limit of a search with a deadline
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    public static final double DEEPEN_FRACTION = 0.5; // a new iteration isn't started after this part of the time was used
+
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Model model;
+    private final TranspositionTable table;
+    private final int maxDepth;
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    private final MoveBuffer[] moveBuffers; // the moves of the node at each ply, created when first needed
+    private final int helperId; // 0 for the main search
+    private final AtomicBoolean stopSignal; // set when a helper should stop searching (null if never)
+    private long nodes; // how many positions the search visited
+    private int depthReached; // the deepest iteration the last search finished
+    private int bestMoveChanges; // how many iterations of the last search changed the best move
+    private long rootScoringNanos, deepSearchNanos; // the time of the depth 1 scores, and of the deeper iterations
+    private long deadline = NO_DEADLINE; // in System.nanoTime() units
+    private boolean timeIsUp;
+    private int lines = 1; // how many of the best root moves get exact scores
+    private IterationListener iterationListener; // null if the iterations aren't reported
+    private long searchStartTime;
+
+    private GameState state; // the searched position, changed with make/unmake
+
+    /**
+     * constructs a SearchEngine object
+     * @param model the model whose move generation and evaluation are used
+     * @param table the transposition table to consult and fill (with the static scores of the leaves too)
+     * @param maxDepth the deepest iteration of the search (in plies)
+     */
+    public SearchEngine(Model model, TranspositionTable table, int maxDepth)
+    {
+        this(model, table, maxDepth, 0, null);
+    }
+
+    /**
+     * constructs a SearchEngine object that searches with other engines
+     * @param model the model whose move generation and evaluation are used
+     * @param table the transposition table shared by all the engines
+     * @param maxDepth the deepest iteration of the search (in plies)
+     * @param helperId 0 for the main engine, and a different number for each helper
+     * @param stopSignal when set, the search stops as soon as possible
+     */
+    public SearchEngine(Model model, TranspositionTable table, int maxDepth, int helperId, AtomicBoolean stopSignal)
+    {
+        this.model = model;
+        this.table = table;
+        this.maxDepth = maxDepth;
+        this.helperId = helperId;
+        this.stopSignal = stopSignal;
+        moveBuffers = new MoveBuffer[maxDepth + 1];
+    }
+
+    /**
+     * makes the search stop at a time, instead of at its max depth
+     * @param deadline the time to stop, from System.nanoTime() (or NO_DEADLINE)
+     */
+    public void setDeadline(long deadline)
+    {
+        this.deadline = deadline;
+    }
+
+    /**
+     * makes the search find the scores of several best moves of the root, instead of only the best one (multi-PV).
+     * Every root move is then searched with a full window: the narrow searches of the interior nodes
+     * (their best moves only, with the table move first) can give a different score for a move under a bound,
+     * so a bound would drop moves that a full search finds to be among the best lines.
+     * @param lines how many lines (at least 1; all of them are searched, even if there are more than SEARCH_WIDTH)
+     */
+    public void setLines(int lines)
+    {
+        this.lines = Math.max(1, lines);
+    }
+
+    /**
+     * sets the listener that gets the best lines after every iteration (null for none)
+     */
+    public void setIterationListener(IterationListener iterationListener)
+    {
+        this.iterationListener = iterationListener;
+    }
+
+    /**
+     * returns whether a deadline has passed (NO_DEADLINE never passes)
+     */
+    public static boolean isPastDeadline(long deadline)
+    {
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * returns how many positions the last search visited
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * returns the counts of the last search (indexed by the SearchStats counters)
+     */
+    public long[] getCounts()
+    {
+        return state == null ? new long[SearchStats.COUNTERS] : state.getCounts();
+    }
+
+    /**
+     * returns the deepest iteration the last search finished (1 when only the static scores of the root were done)
+     */
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+
+    /**
+     * returns how many of the iterations of the last search found a new best move
+     */
+    public int getBestMoveChanges()
+    {
+        return bestMoveChanges;
+    }
+
+    /**
+     * returns how long the last search took to score the moves of the root statically
+     */
+    public long getRootScoringNanos()
+    {
+        return rootScoringNanos;
+    }
+
+    /**
+     * returns how long the deeper iterations of the last search took
+     */
+    public long getDeepSearchNanos()
+    {
+        return deepSearchNanos;
+    }
+
+    /**
+     * finds the best move for a player, deepening the search one ply at a time
+     * @param rootBoard the board to search (it is not changed)
+     * @param playerToPlay the color of the player that should play now
+     * @return the best move found, with its search score, or null if the player cannot move
+     */
+    public Move search(BitBoard rootBoard, PlayerColor playerToPlay)
+    {
+        state = new GameState(model, rootBoard, playerToPlay);
+        nodes = 0;
+        depthReached = 0;
+        bestMoveChanges = 0;
+        rootScoringNanos = 0;
+        deepSearchNanos = 0;
+        timeIsUp = false;
+        long startTime = System.nanoTime();
+        searchStartTime = startTime;
+
+        MoveBuffer rootMoves = movesAtPly(0);
+        rootMoves.generate(state.getBoard(), playerToPlay);
+        state.count(SearchStats.MOVES_GENERATED, rootMoves.size());
+        if(rootMoves.size() == 0)
+            return null;
+
+        // depth 1 - the static score of every move, which also orders the root for the next iteration
+        // (when the search is stopped, only the moves scored until then are kept - the first move always is)
+        int scored = 0;
+        for (; scored < rootMoves.size() && (scored == 0 || !isStopped()); scored++)
+        {
+            int move = rootMoves.getMove(scored);
+            makeMove(move);
+            rootMoves.setScore(scored, model.cachedComplexEvaluation(state, table) + orderingNoise(move));
+            state.unmake();
+        }
+        for (int i = scored; i < rootMoves.size(); i++)
+            rootMoves.setScore(i, -INFINITY);
+        // only the best moves are ever searched deeper
+        int width = Math.min(Math.max(SEARCH_WIDTH, lines), scored);
+        rootMoves.selectBest(width);
+        depthReached = 1;
+        reportIteration(rootMoves, width, 1);
+        long deepStartTime = System.nanoTime();
+        rootScoringNanos = deepStartTime - startTime;
+
+        int depthLimit = Math.min(maxDepth, state.getEmptySquares()); // the game can't go on longer than that
+        for (int depth = 2; depth <= depthLimit && rootMoves.getScore(0) < WIN_SCORE && !isStopped() && !isTimeToStopDeepening(startTime); depth++)
+        {
+            int searched = 0;
+            int previousBest = rootMoves.getMove(0);
+            double alpha = -INFINITY;
+            for (int i = 0; i < width; i++)
+            {
+                int move = rootMoves.getMove(i);
+                makeMove(move);
+                double score = -negamax(depth - 1, -INFINITY, -alpha);
+                state.unmake();
+                if(isStopped())
+                    break; // the score of this move is not complete
+
+                rootMoves.setScore(i, score);
+                searched++;
+                if(lines == 1 && score > alpha)
+                    alpha = score; // with several lines, every move gets a full window (see setLines())
+            }
+            // if the search was stopped, only the moves it finished are reordered -
+            // the best of them is at least as good as the previous best, which was searched first
+            rootMoves.sortRange(0, searched);
+            if(searched == width)
+            {
+                depthReached = depth;
+                reportIteration(rootMoves, width, depth);
+            }
+            if(rootMoves.getMove(0) != previousBest)
+                bestMoveChanges++;
+        }
+        deepSearchNanos = System.nanoTime() - deepStartTime;
+
+        return rootMoves.toMove(0);
+    }
+
+    /**
+     * tells the listener the best lines of the iteration that was just finished (the root moves are sorted)
+     */
+    private void reportIteration(MoveBuffer rootMoves, int width, int depth)
+    {
+        if(iterationListener == null)
+            return;
+        int count = Math.min(lines, width);
+        List<AnalysisLine> bestLines = new ArrayList<AnalysisLine>(count);
+        for (int i = 0; i < count; i++)
+            bestLines.add(new AnalysisLine(rootMoves.toMove(i), rootMoves.getScore(i), principalVariation(rootMoves.getMove(i), depth)));
+        iterationListener.iterationDone(new AnalysisResult(depth, nodes, System.nanoTime() - searchStartTime, bestLines));
+    }
+
+    /**
+     * returns the principal variation of a root move: the move, then the best move the transposition table has for
+     * each position after it. Every move is checked to be legal, so a collision in the table can't break the line.
+     * It is followed on a copy of the root board, so the counts of the search don't change.
+     * @param maxLength the depth of the iteration (the table has no best moves below it)
+     */
+    private List<Move> principalVariation(int rootMove, int maxLength)
+    {
+        List<Move> line = new ArrayList<Move>(maxLength);
+        BitBoard board = new BitBoard(state.getBoard());
+        PlayerColor color = state.getColorToPlay();
+        MoveBuffer legalMoves = new MoveBuffer();
+        TranspositionTable.Entry lineEntry = new TranspositionTable.Entry();
+        int move = rootMove;
+        while(true)
+        {
+            line.add(PackedMove.toMove(move));
+            model.doMoveOnBoard(board, color, move);
+            color = model.otherColor(color);
+            if(line.size() >= maxLength || !table.probe(model.positionKey(board, color), lineEntry) || lineEntry.move == TranspositionTable.NO_MOVE)
+                break;
+            legalMoves.generate(board, color);
+            if(legalMoves.indexOf(lineEntry.move) == -1)
+                break;
+            move = lineEntry.move;
+        }
+        return line;
+    }
+
+    /**
+     * the negamax search with alpha-beta pruning, of the current position of the state
+     * @param depth how many plies are left to search
+     * @param alpha the score the player is already guaranteed
+     * @param beta the score the opponent is already guaranteed (negated)
+     * @return the score of the node, for the player that should play in it
+     */
+    private double negamax(int depth, double alpha, double beta)
+    {
+        if(isStopped())
+            return 0; // the score is ignored by the caller
+
+        if(state.isGameOver())
+            return -WIN_SCORE; // the player cannot move, they lost
+
+        // a node that was already searched deep enough doesn't need to be searched again
+        long key = state.getKey();
+        int tableMove = TranspositionTable.NO_MOVE;
+        state.count(SearchStats.TABLE_PROBES);
+        if(table.probe(key, entry))
+        {
+            state.count(SearchStats.TABLE_HITS);
+            tableMove = entry.move;
+            if(entry.depth >= depth)
+            {
+                if(entry.bound == TranspositionTable.EXACT
+                    || (entry.bound == TranspositionTable.LOWER && entry.score >= beta)
+                    || (entry.bound == TranspositionTable.UPPER && entry.score <= alpha))
+                    return entry.score;
+            }
+        }
+
+        double originalAlpha = alpha;
+        MoveBuffer moves = movesAtPly(state.getPly());
+        moves.generate(state.getBoard(), state.getColorToPlay());
+        state.count(SearchStats.MOVES_GENERATED, moves.size());
+        double bestScore = -INFINITY;
+        int bestMoveFound = TranspositionTable.NO_MOVE;
+
+        if(depth == 1)
+        {
+            // the children are leaves - a static evaluation after the move is the score of the move
+            for (int i = 0; i < moves.size() && !isStopped(); i++)
+            {
+                int move = moves.getMove(i);
+                makeMove(move);
+                double score = model.cachedComplexEvaluation(state, table);
+                state.unmake();
+
+                if(score > bestScore)
+                {
+                    bestScore = score;
+                    bestMoveFound = move;
+                }
+                if(bestScore > alpha)
+                    alpha = bestScore;
+                if(alpha >= beta)
+                    break; // the opponent won't let the game get here
+            }
+        }
+        else
+        {
+            int width = Math.min(SEARCH_WIDTH, moves.size());
+            orderMoves(moves, tableMove, width);
+            for (int i = 0; i < width; i++)
+            {
+                int move = moves.getMove(i);
+                makeMove(move);
+                double score = -negamax(depth - 1, -beta, -alpha);
+                state.unmake();
+
+                if(score > bestScore)
+                {
+                    bestScore = score;
+                    bestMoveFound = move;
+                }
+                if(bestScore > alpha)
+                    alpha = bestScore;
+                if(alpha >= beta)
+                    break;
+            }
+        }
+
+        if(isStopped())
+            return 0; // an interrupted search must not be stored
+
+        int bound = TranspositionTable.EXACT;
+        if(bestScore <= originalAlpha)
+            bound = TranspositionTable.UPPER;
+        else if(bestScore >= beta)
+            bound = TranspositionTable.LOWER;
+        table.store(key, bestScore, depth, bound, bestMoveFound);
+        return bestScore;
+    }
+
+    /**
+     * brings the most promising moves to the front, by the cheap mobility evaluation
+     * the best move of an earlier search of the node (if there is one) is put first
+     * @param count how many moves are needed at the front
+     */
+    private void orderMoves(MoveBuffer moves, int tableMove, int count)
+    {
+        for (int i = 0; i < moves.size(); i++)
+        {
+            if(isStopped())
+                return; // the node won't be searched anyway
+            int move = moves.getMove(i);
+            if(tableMove != TranspositionTable.NO_MOVE && move == tableMove)
+            {
+                moves.setScore(i, INFINITY);
+                continue;
+            }
+            makeMove(move);
+            moves.setScore(i, model.easyEvaluationFunction(state) + orderingNoise(move));
+            state.unmake();
+        }
+        moves.selectBest(count);
+    }
+
+    // returns the move buffer of a ply, and creates it if needed
+    private MoveBuffer movesAtPly(int ply)
+    {
+        if(moveBuffers[ply] == null)
+            moveBuffers[ply] = new MoveBuffer();
+        return moveBuffers[ply];
+    }
+
+    /**
+     * a small change to the ordering score of a move, different for every helper (and 0 for the main search)
+     * it is deterministic, so a helper orders the same node the same way every time it gets to it
+     */
+    private double orderingNoise(int move)
+    {
+        if(helperId == 0)
+            return 0;
+        int mixed = (move ^ helperId * 0x9E3779B9) * 0x85EBCA6B;
+        return ORDER_NOISE * ((mixed >>> 16) / 65536.0);
+    }
+
+    /**
+     * returns whether the search should stop - because of the stop signal, or because the deadline passed
+     */
+    private boolean isStopped()
+    {
+        if(!timeIsUp && isPastDeadline(deadline))
+            timeIsUp = true;
+        return timeIsUp || (stopSignal != null && stopSignal.get());
+    }
+
+    /**
+     * returns whether a new iteration shouldn't be started, since it won't get far before the deadline
+     */
+    private boolean isTimeToStopDeepening(long startTime)
+    {
+        if(deadline == NO_DEADLINE)
+            return false;
+        return System.nanoTime() - startTime > (deadline - startTime) * DEEPEN_FRACTION;
+    }
+
+    /**
+     * performs a move on the searched position
+     */
+    private void makeMove(int move)
+    {
+        nodes++;
+        state.make(move);
+    }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import controller.Constants.OpponentType;
+import controller.Constants.PlayerColor;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The Java Flight Recorder events of the AI, so a recording shows what the AI did during a latency spike:
+ * an event for every AI move (amazons.AiMove), for every candidate move HARD checks (amazons.CandidateCheck),
+ * and for every territory phase of the complex evaluation (amazons.TerritoryPhase).
+ * The candidate and territory events are very many, so they are off unless a recording enables them
+ * (for example with jfr configure, or -XX:StartFlightRecording:settings=... with amazons.TerritoryPhase#enabled=true).
+ * An event is only created when its type is enabled - the begin methods return null otherwise,
+ * so a disabled event costs one check of a flag.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public final class SearchEvents
+{
+    // the names of the territory phases
+    public static final String ONE_TERRITORY = "isAllOneTerritory";
+    public static final String REACHABLE_TERRITORY = "reachableTerritory";
+    public static final String TRAPPED_COUNT = "countTrappedInUnderThan";
+
+    @Name("amazons.AiMove")
+    @Label("AI Move")
+    @Category({ "Amazons", "AI" })
+    @Description("An AI move (getAiMove), with the position it was searched in")
+    @StackTrace(false)
+    public static final class AiMove extends Event
+    {
+        @Label("Opponent Type")
+        String opponentType;
+
+        @Label("Player")
+        String player;
+
+        @Label("Empty Squares")
+        int emptySquares;
+
+        @Label("Move Count")
+        @Description("The legal moves of the player in the position")
+        int moveCount;
+
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Depth Reached")
+        int depthReached;
+    }
+
+    @Name("amazons.CandidateCheck")
+    @Label("Candidate Check")
+    @Category({ "Amazons", "AI" })
+    @Description("HARD checks a candidate move of the root against the best reply of the opponent (complexAiMove)")
+    @StackTrace(false)
+    @Enabled(false)
+    public static final class CandidateCheck extends Event
+    {
+        @Label("From Square")
+        int from;
+
+        @Label("To Square")
+        int to;
+
+        @Label("Arrow Square")
+        int arrow;
+
+        @Label("Static Score")
+        double staticScore;
+
+        @Label("Score")
+        double score;
+    }
+
+    @Name("amazons.TerritoryPhase")
+    @Label("Territory Phase")
+    @Category({ "Amazons", "AI", "Evaluation" })
+    @Description("A territory phase of complexEvaluationFunction")
+    @StackTrace(false)
+    @Enabled(false)
+    @Threshold("0 ns")
+    public static final class TerritoryPhase extends Event
+    {
+        @Label("Phase")
+        String phase;
+
+        @Label("Empty Squares")
+        int emptySquares;
+    }
+
+    private static final EventType AI_MOVE_TYPE = EventType.getEventType(AiMove.class);
+    private static final EventType CANDIDATE_CHECK_TYPE = EventType.getEventType(CandidateCheck.class);
+    private static final EventType TERRITORY_PHASE_TYPE = EventType.getEventType(TerritoryPhase.class);
+
+    private SearchEvents()
+    {
+    }
+
+    /**
+     * does nothing, but loads the event types - the flight recorder takes a few hundred ms to start the first time
+     * an event is used, so Model calls it when it is created, instead of in the time of its first AI move
+     */
+    static void load()
+    {
+    }
+
+    /**
+     * starts the event of an AI move
+     * @return the event, or null if the event is disabled
+     */
+    static AiMove beginAiMove()
+    {
+        if(!AI_MOVE_TYPE.isEnabled())
+            return null;
+        AiMove event = new AiMove();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * ends the event of an AI move, and commits it if it took long enough for the recording
+     * (the empty squares and the moves of the position are only counted then)
+     * @param board the board the move was searched on
+     */
+    static void endAiMove(AiMove event, OpponentType opponentType, BitBoard board, PlayerColor player, SearchStats stats)
+    {
+        if(event == null)
+            return;
+        event.end();
+        if(!event.shouldCommit())
+            return;
+        MoveBuffer moves = new MoveBuffer();
+        moves.generate(board, player);
+        event.opponentType = opponentType.name();
+        event.player = player.name();
+        event.emptySquares = board.countEmpty();
+        event.moveCount = moves.size();
+        event.nodes = stats.getNodes();
+        event.depthReached = stats.getDepthReached();
+        event.commit();
+    }
+
+    static CandidateCheck beginCandidateCheck()
+    {
+        if(!CANDIDATE_CHECK_TYPE.isEnabled())
+            return null;
+        CandidateCheck event = new CandidateCheck();
+        event.begin();
+        return event;
+    }
+
+    static void endCandidateCheck(CandidateCheck event, int move, double staticScore, double score)
+    {
+        if(event == null)
+            return;
+        event.end();
+        if(!event.shouldCommit())
+            return;
+        event.from = PackedMove.from(move);
+        event.to = PackedMove.to(move);
+        event.arrow = PackedMove.arrow(move);
+        event.staticScore = staticScore;
+        event.score = score;
+        event.commit();
+    }
+
+    static TerritoryPhase beginTerritoryPhase()
+    {
+        if(!TERRITORY_PHASE_TYPE.isEnabled())
+            return null;
+        TerritoryPhase event = new TerritoryPhase();
+        event.begin();
+        return event;
+    }
+
+    static void endTerritoryPhase(TerritoryPhase event, String phase, int emptySquares)
+    {
+        if(event == null)
+            return;
+        event.end();
+        if(!event.shouldCommit())
+            return;
+        event.phase = phase;
+        event.emptySquares = emptySquares;
+        event.commit();
+    }
+}
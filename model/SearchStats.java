@@ -0,0 +1,169 @@
+package model;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * The statistics of one AI move (see Model.getAiMoveWithStats()): the move, what the search did to find it,
+ * and how long each phase of the move took.
+ * The counts are counted by each search thread on its own GameState (plain increments, no sharing),
+ * and added to the model's SearchStatsRecorder when the thread finishes.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public final class SearchStats implements Constants
+{
+    // the counters - indexes of the counts
+    public static final int NODES = 0; // moves made while searching
+    public static final int EVALUATIONS = 1; // static evaluations asked for (cachedComplexEvaluation())
+    public static final int EVALUATION_HITS = 2; // static evaluations taken from the transposition table
+    public static final int MOVES_GENERATED = 3; // moves put in move buffers
+    public static final int TABLE_PROBES = 4; // searched positions (not static scores) looked up in the transposition table
+    public static final int TABLE_HITS = 5; // the lookups that found the position
+    public static final int ALLOCATED_BYTES = 6; // the bytes the thread that searched allocated (see AllocationTracker)
+    public static final int COUNTERS = 7;
+
+    /**
+     * the phases of an AI move
+     */
+    public enum Phase
+    {
+        BOOK, // looking the position up in the opening book
+        ENDGAME, // solving a split board, or looking it up in the tablebase
+        ROOT_SCORING, // the static scores of the moves of the root (the whole search of EASY and MEDIUM)
+        DEEP_SEARCH // the replies of HARD, the deepening of EXPERT, the playouts of MCTS
+    }
+
+    private final OpponentType opponentType;
+    private final Move move;
+    private final long[] counts;
+    private final long[] phaseNanos;
+    private final int depthReached;
+    private final int bestMoveChanges;
+    private final long elapsedNanos;
+
+    SearchStats(OpponentType opponentType, Move move, long[] counts, long[] phaseNanos, int depthReached, int bestMoveChanges, long elapsedNanos)
+    {
+        this.opponentType = opponentType;
+        this.move = move;
+        this.counts = counts;
+        this.phaseNanos = phaseNanos;
+        this.depthReached = depthReached;
+        this.bestMoveChanges = bestMoveChanges;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public OpponentType getOpponentType()
+    {
+        return opponentType;
+    }
+
+    /**
+     * returns the move that was found (null if the player couldn't move)
+     */
+    public Move getMove()
+    {
+        return move;
+    }
+
+    /**
+     * returns one of the counts (NODES, EVALUATIONS, ...)
+     */
+    public long getCount(int counter)
+    {
+        return counts[counter];
+    }
+
+    public long getNodes()
+    {
+        return counts[NODES];
+    }
+
+    public long getEvaluations()
+    {
+        return counts[EVALUATIONS];
+    }
+
+    public long getMovesGenerated()
+    {
+        return counts[MOVES_GENERATED];
+    }
+
+    /**
+     * returns the part of the static evaluations that were taken from the transposition table (0 if there were none)
+     */
+    public double getEvaluationHitRate()
+    {
+        return rate(counts[EVALUATION_HITS], counts[EVALUATIONS]);
+    }
+
+    /**
+     * returns the part of the lookups of searched positions that found them (0 if there were none)
+     */
+    public double getTableHitRate()
+    {
+        return rate(counts[TABLE_HITS], counts[TABLE_PROBES]);
+    }
+
+    /**
+     * returns the bytes the thread that called getAiMove allocated during the move
+     * (the helper and worker threads of a parallel search aren't counted)
+     */
+    public long getAllocatedBytes()
+    {
+        return counts[ALLOCATED_BYTES];
+    }
+
+    /**
+     * returns the bytes allocated for each node of the search (0 if there were no nodes)
+     */
+    public double getBytesPerNode()
+    {
+        return rate(counts[ALLOCATED_BYTES], counts[NODES]);
+    }
+
+    /**
+     * returns the deepest ply the search finished (0 for a book, endgame or random move)
+     */
+    public int getDepthReached()
+    {
+        return depthReached;
+    }
+
+    /**
+     * returns how many times the best move changed while the search went on
+     */
+    public int getBestMoveChanges()
+    {
+        return bestMoveChanges;
+    }
+
+    public long getPhaseNanos(Phase phase)
+    {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    static double rate(long part, long whole)
+    {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder phases = new StringBuilder();
+        for (Phase phase : Phase.values())
+        {
+            if(phaseNanos[phase.ordinal()] > 0)
+                phases.append(String.format(", %s %.1fms", phase.name().toLowerCase(), phaseNanos[phase.ordinal()] / 1e6));
+        }
+        return String.format("%s in %.1fms: %d nodes, %d evaluations (%.0f%% cached), %d moves generated, table hits %.0f%%, %d bytes allocated, depth %d, %d best move changes%s",
+            opponentType, elapsedNanos / 1e6, counts[NODES], counts[EVALUATIONS], 100 * getEvaluationHitRate(), counts[MOVES_GENERATED],
+            100 * getTableHitRate(), counts[ALLOCATED_BYTES], depthReached, bestMoveChanges, phases);
+    }
+}
@@ -0,0 +1,53 @@
+package model;
+
+/**
+ * The management interface of the search statistics of a model (see SearchStatsRecorder),
+ * so they can be watched with jconsole or any other JMX client.
+ * The totals are over all the AI moves since the model was created (or since reset()), the last values are of the last move.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public interface SearchStatsMXBean
+{
+    public long getMoves();
+
+    public long getNodes();
+
+    public long getEvaluations();
+
+    public double getEvaluationHitRate();
+
+    public long getMovesGenerated();
+
+    public long getTableProbes();
+
+    public double getTableHitRate();
+
+    public double getNodesPerSecond();
+
+    public long getAllocatedBytes();
+
+    public double getBytesPerNode();
+
+    public long getBookMillis();
+
+    public long getEndgameMillis();
+
+    public long getRootScoringMillis();
+
+    public long getDeepSearchMillis();
+
+    public long getTotalMillis();
+
+    public String getLastOpponentType();
+
+    public double getLastMoveMillis();
+
+    public long getLastNodes();
+
+    public int getLastDepthReached();
+
+    public int getLastBestMoveChanges();
+
+    public void reset();
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import controller.Constants;
+import controller.Move;
+
+/**
+ * Keeps the search statistics of a model: the totals of the counts and phase times of all its AI moves
+ * (LongAdders, since the search threads add to them together), and the stats of the last move.
+ * The search threads count on their own GameStates and add their counts once, when they finish,
+ * so the searches themselves only do plain increments.
+ * The stats of a move are the change of the totals while it was searched, so moves that are searched
+ * at the same time on the same model are mixed in each other's stats (the totals are still right).
+ * It is also the JMX MBean of the statistics (see register()).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class SearchStatsRecorder implements SearchStatsMXBean, Constants
+{
+    public static final String MBEAN_DOMAIN = "amazons";
+
+    private static final AtomicInteger registeredCount = new AtomicInteger();
+
+    private final LongAdder[] counts = newAdders(SearchStats.COUNTERS);
+    private final LongAdder[] phaseNanos = newAdders(SearchStats.Phase.values().length);
+    private final LongAdder moves = new LongAdder(), elapsedNanos = new LongAdder();
+    // the depth and best move changes of the move that is being searched
+    private volatile int depthReached, bestMoveChanges;
+    private volatile SearchStats lastStats;
+
+    private static LongAdder[] newAdders(int count)
+    {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * registers the recorder with the platform MBean server, as amazons:type=SearchStats,name=model-N
+     * @return the name it was registered with
+     */
+    public ObjectName register() throws JMException
+    {
+        ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=SearchStats,name=model-" + registeredCount.incrementAndGet());
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+
+    /**
+     * adds the counts of a search thread (indexed by the SearchStats counters)
+     */
+    void add(long[] threadCounts)
+    {
+        for (int i = 0; i < threadCounts.length; i++)
+        {
+            if(threadCounts[i] != 0)
+                counts[i].add(threadCounts[i]);
+        }
+    }
+
+    void add(int counter, long count)
+    {
+        counts[counter].add(count);
+    }
+
+    void addPhase(SearchStats.Phase phase, long nanos)
+    {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * sets how deep the search of the current move got, and how many times its best move changed
+     */
+    void searchDone(int depthReached, int bestMoveChanges)
+    {
+        this.depthReached = depthReached;
+        this.bestMoveChanges = bestMoveChanges;
+    }
+
+    /**
+     * returns the totals now, to compare with the totals after a move (see moveDone())
+     */
+    long[] startMove()
+    {
+        depthReached = 0;
+        bestMoveChanges = 0;
+        long[] totals = new long[SearchStats.COUNTERS + phaseNanos.length];
+        for (int i = 0; i < SearchStats.COUNTERS; i++)
+            totals[i] = counts[i].sum();
+        for (int i = 0; i < phaseNanos.length; i++)
+            totals[SearchStats.COUNTERS + i] = phaseNanos[i].sum();
+        return totals;
+    }
+
+    /**
+     * finishes a move, and returns its stats
+     * @param totalsBefore the totals from startMove()
+     */
+    SearchStats moveDone(OpponentType opponentType, Move move, long[] totalsBefore, long nanos)
+    {
+        long[] moveCounts = new long[SearchStats.COUNTERS];
+        for (int i = 0; i < SearchStats.COUNTERS; i++)
+            moveCounts[i] = counts[i].sum() - totalsBefore[i];
+        long[] movePhaseNanos = new long[phaseNanos.length];
+        for (int i = 0; i < phaseNanos.length; i++)
+            movePhaseNanos[i] = phaseNanos[i].sum() - totalsBefore[SearchStats.COUNTERS + i];
+        moves.increment();
+        elapsedNanos.add(nanos);
+        SearchStats stats = new SearchStats(opponentType, move, moveCounts, movePhaseNanos, depthReached, bestMoveChanges, nanos);
+        lastStats = stats;
+        return stats;
+    }
+
+    /**
+     * returns the stats of the last AI move (null if there was none)
+     */
+    public SearchStats getLastStats()
+    {
+        return lastStats;
+    }
+
+    /**
+     * returns the total of one of the counts (SearchStats.NODES, ...)
+     */
+    public long getTotal(int counter)
+    {
+        return counts[counter].sum();
+    }
+
+    @Override
+    public long getMoves()
+    {
+        return moves.sum();
+    }
+
+    @Override
+    public long getNodes()
+    {
+        return counts[SearchStats.NODES].sum();
+    }
+
+    @Override
+    public long getEvaluations()
+    {
+        return counts[SearchStats.EVALUATIONS].sum();
+    }
+
+    @Override
+    public double getEvaluationHitRate()
+    {
+        return SearchStats.rate(counts[SearchStats.EVALUATION_HITS].sum(), counts[SearchStats.EVALUATIONS].sum());
+    }
+
+    @Override
+    public long getMovesGenerated()
+    {
+        return counts[SearchStats.MOVES_GENERATED].sum();
+    }
+
+    @Override
+    public long getTableProbes()
+    {
+        return counts[SearchStats.TABLE_PROBES].sum();
+    }
+
+    @Override
+    public double getTableHitRate()
+    {
+        return SearchStats.rate(counts[SearchStats.TABLE_HITS].sum(), counts[SearchStats.TABLE_PROBES].sum());
+    }
+
+    @Override
+    public double getNodesPerSecond()
+    {
+        long nanos = elapsedNanos.sum();
+        return nanos == 0 ? 0 : getNodes() / (nanos / 1e9);
+    }
+
+    @Override
+    public long getAllocatedBytes()
+    {
+        return counts[SearchStats.ALLOCATED_BYTES].sum();
+    }
+
+    @Override
+    public double getBytesPerNode()
+    {
+        return SearchStats.rate(getAllocatedBytes(), getNodes());
+    }
+
+    @Override
+    public long getBookMillis()
+    {
+        return phaseNanos[SearchStats.Phase.BOOK.ordinal()].sum() / 1_000_000;
+    }
+
+    @Override
+    public long getEndgameMillis()
+    {
+        return phaseNanos[SearchStats.Phase.ENDGAME.ordinal()].sum() / 1_000_000;
+    }
+
+    @Override
+    public long getRootScoringMillis()
+    {
+        return phaseNanos[SearchStats.Phase.ROOT_SCORING.ordinal()].sum() / 1_000_000;
+    }
+
+    @Override
+    public long getDeepSearchMillis()
+    {
+        return phaseNanos[SearchStats.Phase.DEEP_SEARCH.ordinal()].sum() / 1_000_000;
+    }
+
+    @Override
+    public long getTotalMillis()
+    {
+        return elapsedNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public String getLastOpponentType()
+    {
+        SearchStats stats = lastStats;
+        return stats == null ? null : stats.getOpponentType().name();
+    }
+
+    @Override
+    public double getLastMoveMillis()
+    {
+        SearchStats stats = lastStats;
+        return stats == null ? 0 : stats.getElapsedNanos() / 1e6;
+    }
+
+    @Override
+    public long getLastNodes()
+    {
+        SearchStats stats = lastStats;
+        return stats == null ? 0 : stats.getNodes();
+    }
+
+    @Override
+    public int getLastDepthReached()
+    {
+        SearchStats stats = lastStats;
+        return stats == null ? 0 : stats.getDepthReached();
+    }
+
+    @Override
+    public int getLastBestMoveChanges()
+    {
+        SearchStats stats = lastStats;
+        return stats == null ? 0 : stats.getBestMoveChanges();
+    }
+
+    /**
+     * sets all the totals back to 0 (a move that is being searched while they are reset gets wrong stats)
+     */
+    @Override
+    public void reset()
+    {
+        for (LongAdder count : counts)
+            count.reset();
+        for (LongAdder nanos : phaseNanos)
+            nanos.reset();
+        moves.reset();
+        elapsedNanos.reset();
+        lastStats = null;
+    }
+}
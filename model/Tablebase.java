@@ -0,0 +1,284 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import controller.Constants;
+
+/**
+ * An endgame tablebase for small contested areas - an area of empty squares with one white and one black amazon in it,
+ * while all the other areas of the board belong to one player each.
+ * The other areas are worth a fixed number of moves to their owner (see EndgameSolver), and a player may always spend
+ * one of them instead of playing in the contested area. So the game is decided by the contested area and by the
+ * surplus - how many more outside moves the player to move has than their opponent.
+ * For every position of an area (its shape, the squares of the two amazons and the player to move) the tablebase
+ * keeps the threshold - the smallest surplus with which the player to move wins.
+ *
+ * The tablebase is built offline by tools.TablebaseGenerator, and read from a file mapped into memory,
+ * so it takes no heap however big it is. The file is:
+ * a header (magic, version, the largest area, the number of shapes), the shape keys (sorted),
+ * the offset of the thresholds of each shape, and the thresholds (a byte each).
+ * The thresholds of a shape of n squares are indexed by ((whiteOrdinal * n) + blackOrdinal) * 2 + (0 for white to move, 1 for black),
+ * where an ordinal is the place of a square among the squares of the shape.
+ * A shape is kept by its squares on an 8x8 grid, moved to the top left corner (so the same shape anywhere on the board has the same key).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class Tablebase implements Constants, Closeable
+{
+    public static final int MAGIC = 0x414D5442; // "AMTB"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int MAX_SUPPORTED_CELLS = 8; // the shape must fit on the 8x8 grid of a key
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final long NO_SHAPE = 0; // the key of an area that doesn't fit
+    public static final String PATH_PROPERTY = "amazons.tablebase";
+    public static final String DEFAULT_PATH = "amazons-tablebase.bin";
+
+    // the results of probe(), for the player to move
+    public static final int WIN = 1, LOSS = -1, UNKNOWN = 0;
+    // the score of a board the tablebase says is won (in the decided band, 1900 - 2000, like the other decided boards)
+    public static final double WIN_SCORE = 1950;
+
+    private static final int KEY_SIZE = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int maxCells;
+    private final int shapeCount;
+    private final int offsetsStart;
+
+    private Tablebase(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if(channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not an Amazons tablebase file");
+        maxCells = buffer.getInt(8);
+        shapeCount = buffer.getInt(12);
+        offsetsStart = HEADER_BYTES + shapeCount * KEY_SIZE;
+    }
+
+    /**
+     * opens a tablebase file
+     * @param path the file, written by tools.TablebaseGenerator
+     */
+    public static Tablebase open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try
+        {
+            return new Tablebase(channel);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * opens the tablebase at the path of the amazons.tablebase system property (or amazons-tablebase.bin),
+     * if there is one
+     * @return the tablebase, or null if there is no file (or it can't be read)
+     */
+    public static Tablebase openDefault()
+    {
+        Path path = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+        if(!Files.isReadable(path))
+            return null;
+        try
+        {
+            return open(path);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not open the tablebase " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * returns the largest area (in squares, including the two amazons) the tablebase has
+     */
+    public int getMaxCells()
+    {
+        return maxCells;
+    }
+
+    public int getShapeCount()
+    {
+        return shapeCount;
+    }
+
+    /**
+     * finds the threshold of a position - the smallest surplus of outside moves with which the player to move wins
+     * @param shapeKey the key of the area (see shapeKey())
+     * @param whiteOrdinal the place of the white amazon among the squares of the area
+     * @param blackOrdinal the place of the black amazon among the squares of the area
+     * @return the threshold, or NOT_FOUND if the area isn't in the tablebase
+     */
+    public int threshold(long shapeKey, int whiteOrdinal, int blackOrdinal, PlayerColor colorToMove)
+    {
+        int cells = Long.bitCount(shapeKey);
+        if(cells > maxCells)
+            return NOT_FOUND;
+
+        // binary search of the sorted keys, straight on the mapped file
+        int low = 0, high = shapeCount - 1;
+        while(low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            long key = buffer.getLong(HEADER_BYTES + middle * KEY_SIZE);
+            if(key < shapeKey)
+                low = middle + 1;
+            else if(key > shapeKey)
+                high = middle - 1;
+            else
+            {
+                int offset = buffer.getInt(offsetsStart + middle * 4);
+                return buffer.get(offset + valueIndex(cells, whiteOrdinal, blackOrdinal, colorToMove));
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * finds who wins a board whose areas all belong to one player, except one small contested area
+     * @param board the board
+     * @param colorToMove the player that should play now
+     * @param solver a solver for the areas of one player
+     * @param nodeBudget the node budget of the solver, for each area
+     * @return WIN or LOSS for the player to move, or UNKNOWN if the board doesn't match the tablebase
+     */
+    public int probe(BitBoard board, PlayerColor colorToMove, EndgameSolver solver, int nodeBudget)
+    {
+        long whiteLo = board.amazonsLo(PlayerColor.WHITE), whiteHi = board.amazonsHi(PlayerColor.WHITE);
+        long blackLo = board.amazonsLo(PlayerColor.BLACK), blackHi = board.amazonsHi(PlayerColor.BLACK);
+        long emptyLo = board.emptyLo(), emptyHi = board.emptyHi();
+        long maskLo = emptyLo | whiteLo | blackLo, maskHi = emptyHi | whiteHi | blackHi;
+        long leftLo = whiteLo | blackLo, leftHi = whiteHi | blackHi; // amazons whose area wasn't checked yet
+        long[] area = new long[2];
+
+        int whiteMoves = 0, blackMoves = 0;
+        int threshold = NOT_FOUND;
+        while(leftLo != 0 || leftHi != 0)
+        {
+            long seedLo = leftLo & -leftLo;
+            long seedHi = seedLo == 0 ? leftHi & -leftHi : 0;
+            BitBoard.floodFill(seedLo, seedHi, maskLo, maskHi, area);
+            long areaLo = area[0], areaHi = area[1];
+            leftLo &= ~areaLo;
+            leftHi &= ~areaHi;
+
+            long areaWhiteLo = areaLo & whiteLo, areaWhiteHi = areaHi & whiteHi;
+            long areaBlackLo = areaLo & blackLo, areaBlackHi = areaHi & blackHi;
+            boolean hasWhite = (areaWhiteLo | areaWhiteHi) != 0, hasBlack = (areaBlackLo | areaBlackHi) != 0;
+            if(hasWhite && hasBlack)
+            {
+                // only one contested area, with one amazon of each color, is in the tablebase
+                if(threshold != NOT_FOUND || Long.bitCount(areaWhiteLo) + Long.bitCount(areaWhiteHi) != 1
+                    || Long.bitCount(areaBlackLo) + Long.bitCount(areaBlackHi) != 1)
+                    return UNKNOWN;
+                long key = shapeKey(areaLo, areaHi);
+                if(key == NO_SHAPE)
+                    return UNKNOWN;
+                int whiteSq = areaWhiteLo != 0 ? Long.numberOfTrailingZeros(areaWhiteLo) : 64 + Long.numberOfTrailingZeros(areaWhiteHi);
+                int blackSq = areaBlackLo != 0 ? Long.numberOfTrailingZeros(areaBlackLo) : 64 + Long.numberOfTrailingZeros(areaBlackHi);
+                threshold = threshold(key, ordinalOf(areaLo, areaHi, whiteSq), ordinalOf(areaLo, areaHi, blackSq), colorToMove);
+                if(threshold == NOT_FOUND)
+                    return UNKNOWN;
+            }
+            else
+            {
+                long amazonsLo = hasWhite ? areaWhiteLo : areaBlackLo, amazonsHi = hasWhite ? areaWhiteHi : areaBlackHi;
+                int moves = solver.maxMoves(areaLo & emptyLo, areaHi & emptyHi, amazonsLo, amazonsHi, nodeBudget);
+                if(moves == EndgameSolver.UNKNOWN)
+                    return UNKNOWN;
+                if(hasWhite)
+                    whiteMoves += moves;
+                else
+                    blackMoves += moves;
+            }
+        }
+
+        int surplus = colorToMove == PlayerColor.WHITE ? whiteMoves - blackMoves : blackMoves - whiteMoves;
+        if(threshold == NOT_FOUND)
+            threshold = 1; // no contested area - the player to move needs one move more than the opponent
+        return surplus >= threshold ? WIN : LOSS;
+    }
+
+    /**
+     * returns the key of an area - its squares on an 8x8 grid, moved to the top left corner
+     * @param lo the squares of the area on the board (low word), and hi the high word
+     * @return the key, or NO_SHAPE if the area doesn't fit on an 8x8 grid
+     */
+    public static long shapeKey(long lo, long hi)
+    {
+        int minRow = BOARD_ROWS, minCol = BOARD_COLS, maxRow = -1, maxCol = -1;
+        long key = 0;
+        for (int pass = 0; pass < 2; pass++)
+        {
+            long bitsLo = lo, bitsHi = hi;
+            while(bitsLo != 0 || bitsHi != 0)
+            {
+                int sq;
+                if(bitsLo != 0)
+                {
+                    sq = Long.numberOfTrailingZeros(bitsLo);
+                    bitsLo &= bitsLo - 1;
+                }
+                else
+                {
+                    sq = 64 + Long.numberOfTrailingZeros(bitsHi);
+                    bitsHi &= bitsHi - 1;
+                }
+                int row = BitBoard.rowOf(sq), col = BitBoard.colOf(sq);
+                if(pass == 0)
+                {
+                    minRow = Math.min(minRow, row);
+                    maxRow = Math.max(maxRow, row);
+                    minCol = Math.min(minCol, col);
+                    maxCol = Math.max(maxCol, col);
+                }
+                else
+                    key |= 1L << ((row - minRow) * 8 + col - minCol);
+            }
+            if(pass == 0 && (maxRow - minRow >= 8 || maxCol - minCol >= 8))
+                return NO_SHAPE;
+        }
+        return key;
+    }
+
+    /**
+     * returns the place of a square among the squares of an area (the squares are ordered like on the board and in the key)
+     */
+    public static int ordinalOf(long lo, long hi, int sq)
+    {
+        if(sq < 64)
+            return Long.bitCount(lo & ((1L << sq) - 1));
+        return Long.bitCount(lo) + Long.bitCount(hi & ((1L << (sq - 64)) - 1));
+    }
+
+    /**
+     * returns the index of the threshold of a position among the thresholds of its shape
+     */
+    public static int valueIndex(int cells, int whiteOrdinal, int blackOrdinal, PlayerColor colorToMove)
+    {
+        return ((whiteOrdinal * cells) + blackOrdinal) * 2 + colorToMove.ordinal();
+    }
+}
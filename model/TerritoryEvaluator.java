@@ -0,0 +1,231 @@
+package model;
+
+import java.util.Arrays;
+
+import controller.Constants;
+
+/**
+ * A territory evaluation, by the distances of each player to every empty square.
+ * For each player, two distance maps are found with a breadth-first search from all of their amazons at once:
+ * the queen distance (how many amazon moves are needed to get to a square) and the king distance
+ * (how many single steps are needed). A square belongs to the player that gets to it first.
+ * The maps give the usual territory terms:
+ * t1, t2 - the queen and king territories (1 for each square the player gets to first, -1 for the opponent's ones,
+ *   and a small advantage to the player that moves next on squares both get to together)
+ * c1, c2 - how much closer the player is to the squares, even the ones they don't own
+ *   (by 2^-distance for the queen, and by the difference of the king distances)
+ * In the opening most squares are reachable by both players at about the same distance, so the closeness terms
+ * and the mobility of the amazons matter more, and later the queen territory decides the game.
+ * The searches use one flat queue of squares and reusable distance arrays, so an evaluation allocates nothing.
+ * An evaluator is not thread safe - each thread should use its own.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class TerritoryEvaluator implements Constants
+{
+    public static final int UNREACHED = BitBoard.SQUARES; // the distance of a square a player can't get to
+    public static final double TIE_ADVANTAGE = 0.2; // the part of a shared square that goes to the player moving next
+    public static final double OPENING_WEIGHT = 40; // the total square sharing of a board that is still fully an opening
+
+    private static final double[] POWERS_OF_HALF = new double[UNREACHED + 1]; // 2^-distance (0 for UNREACHED)
+
+    static
+    {
+        for (int d = 0; d < UNREACHED; d++)
+            POWERS_OF_HALF[d] = Math.scalb(1.0, -d);
+        POWERS_OF_HALF[UNREACHED] = 0;
+    }
+
+    // the distance maps, indexed by [color.ordinal()][square]
+    private final int[][] queenDistances = new int[2][BitBoard.SQUARES];
+    private final int[][] kingDistances = new int[2][BitBoard.SQUARES];
+    // every square is queued at most once in a search, so the queue never has to wrap around
+    private final int[] queue = new int[BitBoard.SQUARES];
+    private final long[] reach = new long[2];
+
+    /**
+     * evaluates how good a board is for a player, before their opponent plays.
+     * Like the other evaluation functions, a finished game is ±2000 and a game that is decided
+     * (the player owns more squares than the opponent can ever get to, or the opposite) is ±1900 and above.
+     * @param board the board to evaluate
+     * @param playerToPlay the player that has just played (the score is for them)
+     * @return a score between -2000 and 2000
+     */
+    public double evaluate(BitBoard board, PlayerColor playerToPlay)
+    {
+        PlayerColor opponentPlayer = playerToPlay == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE; // going to play now
+        if(board.isGameOver(opponentPlayer))
+            return 2000; // the opponent loses now
+        if(board.isGameOver(playerToPlay))
+            return -2000; // current player will lose next move
+
+        computeDistances(board);
+        int[] playerQueen = queenDistances[playerToPlay.ordinal()], opponentQueen = queenDistances[opponentPlayer.ordinal()];
+        int[] playerKing = kingDistances[playerToPlay.ordinal()], opponentKing = kingDistances[opponentPlayer.ordinal()];
+
+        double t1 = 0, t2 = 0, c1 = 0, c2 = 0, sharing = 0;
+        int playerReachable = 0, opponentReachable = 0, playerExclusive = 0, opponentExclusive = 0;
+        long emptyLo = board.emptyLo(), emptyHi = board.emptyHi();
+        while(emptyLo != 0 || emptyHi != 0)
+        {
+            int sq;
+            if(emptyLo != 0)
+            {
+                sq = Long.numberOfTrailingZeros(emptyLo);
+                emptyLo &= emptyLo - 1;
+            }
+            else
+            {
+                sq = 64 + Long.numberOfTrailingZeros(emptyHi);
+                emptyHi &= emptyHi - 1;
+            }
+
+            int pq = playerQueen[sq], oq = opponentQueen[sq];
+            if(pq == UNREACHED && oq == UNREACHED)
+                continue; // a square no one can get to doesn't count
+
+            if(pq != UNREACHED)
+                playerReachable++;
+            if(oq != UNREACHED)
+                opponentReachable++;
+            if(oq == UNREACHED)
+                playerExclusive++;
+            else if(pq == UNREACHED)
+                opponentExclusive++;
+            else
+                sharing += POWERS_OF_HALF[Math.abs(pq - oq)];
+
+            t1 += ownership(pq, oq);
+            t2 += ownership(playerKing[sq], opponentKing[sq]);
+            c1 += 2 * (POWERS_OF_HALF[pq] - POWERS_OF_HALF[oq]);
+            c2 += Math.max(-1, Math.min(1, (opponentKing[sq] - playerKing[sq]) / 6.0));
+        }
+
+        // almost certain win / loss - the loss mirrors the win, so a bigger opponent territory is a worse loss
+        if(playerExclusive > opponentReachable)
+            return 1900 + playerExclusive - opponentReachable;
+        if(opponentExclusive > playerReachable)
+            return -1900 - opponentExclusive + playerReachable;
+
+        double opening = Math.min(1, sharing / OPENING_WEIGHT);
+        double mobility = mobility(board, playerToPlay) - mobility(board, opponentPlayer);
+        return (1 - 0.4 * opening) * t1
+            + opening * (0.2 * t2 + 0.4 * c1 + 0.3 * c2 + 0.3 * mobility);
+    }
+
+    /**
+     * the ownership of a square by distances: 1 if the player gets to it first, -1 if the opponent does,
+     * and a small advantage to the opponent (who plays next) if they get to it together
+     */
+    private double ownership(int playerDistance, int opponentDistance)
+    {
+        if(playerDistance < opponentDistance)
+            return 1;
+        if(playerDistance > opponentDistance)
+            return -1;
+        return playerDistance == UNREACHED ? 0 : -TIE_ADVANTAGE;
+    }
+
+    /**
+     * the mobility of the amazons of a player - the square root of how many squares each of them can jump to
+     * (an amazon with few moves is much worse off than one with many, while the difference between many and more is small)
+     */
+    private double mobility(BitBoard board, PlayerColor color)
+    {
+        double mobility = 0;
+        long amLo = board.amazonsLo(color), amHi = board.amazonsHi(color);
+        while(amLo != 0 || amHi != 0)
+        {
+            int sq;
+            if(amLo != 0)
+            {
+                sq = Long.numberOfTrailingZeros(amLo);
+                amLo &= amLo - 1;
+            }
+            else
+            {
+                sq = 64 + Long.numberOfTrailingZeros(amHi);
+                amHi &= amHi - 1;
+            }
+            board.queenReach(sq, reach);
+            mobility += Math.sqrt(Long.bitCount(reach[0]) + Long.bitCount(reach[1]));
+        }
+        return mobility;
+    }
+
+    /**
+     * finds the queen and king distance maps of both players
+     */
+    public void computeDistances(BitBoard board)
+    {
+        for (PlayerColor color : PlayerColor.values())
+        {
+            distancesFrom(board, color, true, queenDistances[color.ordinal()]);
+            distancesFrom(board, color, false, kingDistances[color.ordinal()]);
+        }
+    }
+
+    /**
+     * returns the distance of a player to a square, from the last computeDistances() (UNREACHED if they can't get to it)
+     * @param byQueen whether to return the queen distance or the king distance
+     */
+    public int distance(PlayerColor color, int sq, boolean byQueen)
+    {
+        return (byQueen ? queenDistances : kingDistances)[color.ordinal()][sq];
+    }
+
+    /**
+     * a breadth-first search over the empty squares from all the amazons of a player
+     * @param byQueen whether a step is a queen move (any distance in a straight line) or a king step
+     * @param distances the array to fill
+     */
+    private void distancesFrom(BitBoard board, PlayerColor color, boolean byQueen, int[] distances)
+    {
+        Arrays.fill(distances, UNREACHED);
+        long occLo = board.occupiedLo(), occHi = board.occupiedHi();
+        long emptyLo = board.emptyLo(), emptyHi = board.emptyHi();
+        // the squares that were already queued
+        long visitedLo = board.amazonsLo(color), visitedHi = board.amazonsHi(color);
+
+        int tail = BitBoard.squaresOf(visitedLo, visitedHi, queue);
+        for (int i = 0; i < tail; i++)
+            distances[queue[i]] = 0;
+
+        for (int head = 0; head < tail; head++)
+        {
+            int sq = queue[head];
+            long nextLo, nextHi;
+            if(byQueen)
+            {
+                BitBoard.queenReach(sq, occLo, occHi, reach);
+                nextLo = reach[0];
+                nextHi = reach[1];
+            }
+            else
+            {
+                nextLo = BitBoard.kingMaskLo(sq) & emptyLo;
+                nextHi = BitBoard.kingMaskHi(sq) & emptyHi;
+            }
+            nextLo &= ~visitedLo;
+            nextHi &= ~visitedHi;
+            visitedLo |= nextLo;
+            visitedHi |= nextHi;
+
+            int distance = distances[sq] + 1;
+            while(nextLo != 0)
+            {
+                int next = Long.numberOfTrailingZeros(nextLo);
+                distances[next] = distance;
+                queue[tail++] = next;
+                nextLo &= nextLo - 1;
+            }
+            while(nextHi != 0)
+            {
+                int next = 64 + Long.numberOfTrailingZeros(nextHi);
+                distances[next] = distance;
+                queue[tail++] = next;
+                nextHi &= nextHi - 1;
+            }
+        }
+    }
+}
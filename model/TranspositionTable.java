@@ -0,0 +1,138 @@
+package model;
+
+/**
+ * A fixed-size transposition table for the AI, keyed by the Zobrist hash of a position (including the player to play).
+ * Each entry keeps a score, the depth it was searched to, the type of bound the score is, and the best move found.
+ * Entries are kept in parallel primitive arrays, so storing and probing allocate nothing.
+ * The table can be shared by several search threads without any locking. Each entry is three words,
+ * and the key word is stored XORed with the two data words. A thread that reads an entry while another thread
+ * is writing it gets a key that doesn't match (since the words are from different writes), and treats it as a miss.
+ *
+ * Replacement policy: a new entry replaces the old one in its slot if the slot is empty,
+ * holds the same position, was written in an older search (generation), or was searched less deep.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class TranspositionTable
+{
+    // bound types
+    public static final int EXACT = 0; // the score is the real score of the position
+    public static final int LOWER = 1; // the real score is at least the score (the search failed high)
+    public static final int UPPER = 2; // the real score is at most the score (the search failed low)
+
+    public static final int NO_MOVE = PackedMove.NONE;
+    public static final int DEFAULT_SIZE_BITS = 19; // 2^19 entries, 24 bytes each
+
+    // layout of the info word of an entry
+    private static final int MOVE_BITS = 21, DEPTH_SHIFT = 21, BOUND_SHIFT = 29, GENERATION_SHIFT = 31;
+
+    private final long[] keys; // key ^ score ^ info
+    private final long[] scores; // the bits of the double score
+    private final long[] infos; // move | depth << 21 | bound << 29 | generation << 31
+    private final int indexMask;
+    private volatile int generation;
+
+    /**
+     * constructs a TranspositionTable object
+     * @param sizeBits the table will have 2^sizeBits entries
+     */
+    public TranspositionTable(int sizeBits)
+    {
+        keys = new long[1 << sizeBits];
+        scores = new long[1 << sizeBits];
+        infos = new long[1 << sizeBits];
+        indexMask = (1 << sizeBits) - 1;
+        generation = 1; // generation 0 marks an empty slot
+    }
+
+    public TranspositionTable()
+    {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * starts a new search - entries of older searches will be replaced first
+     */
+    public void newSearch()
+    {
+        generation = generation == 255 ? 1 : generation + 1;
+    }
+
+    /**
+     * empties the table
+     */
+    public void clear()
+    {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(scores, 0);
+        java.util.Arrays.fill(infos, 0);
+    }
+
+    private int slotOf(long key)
+    {
+        return (int) (key ^ (key >>> 32)) & indexMask;
+    }
+
+    /**
+     * A copy of one entry of the table, filled by probe().
+     * Each search thread keeps its own, so probing allocates nothing.
+     */
+    public static class Entry
+    {
+        public double score;
+        public int depth;
+        public int bound;
+        public int move;
+    }
+
+    /**
+     * looks for a position in the table, and copies its entry
+     * @param key the hash of the position
+     * @param entry where the entry is copied to
+     * @return whether the position was found in the table
+     */
+    public boolean probe(long key, Entry entry)
+    {
+        int slot = slotOf(key);
+        long info = infos[slot];
+        long score = scores[slot];
+        if((keys[slot] ^ score ^ info) != key || info == 0)
+            return false; // another position, or a torn entry
+
+        entry.score = Double.longBitsToDouble(score);
+        entry.depth = (int) (info >>> DEPTH_SHIFT) & 0xFF;
+        entry.bound = (int) (info >>> BOUND_SHIFT) & 0x3;
+        entry.move = (int) info & ((1 << MOVE_BITS) - 1);
+        return true;
+    }
+
+    /**
+     * stores a searched position, if the replacement policy allows it
+     * @param key the hash of the position
+     * @param score the score of the position, for the player that should play in it
+     * @param depth how deep the position was searched (0 for a static evaluation)
+     * @param bound EXACT, LOWER or UPPER
+     * @param move the best move found (a packed move, see PackedMove), or NO_MOVE
+     */
+    public void store(long key, double score, int depth, int bound, int move)
+    {
+        int slot = slotOf(key);
+        long oldInfo = infos[slot];
+        boolean samePosition = (keys[slot] ^ scores[slot] ^ oldInfo) == key;
+        if(oldInfo != 0 && !samePosition)
+        {
+            int oldGeneration = (int) (oldInfo >>> GENERATION_SHIFT) & 0xFF;
+            int oldDepth = (int) (oldInfo >>> DEPTH_SHIFT) & 0xFF;
+            if(oldGeneration == generation && oldDepth > depth)
+                return; // keeping the deeper entry of the current search
+        }
+        if(move == NO_MOVE && samePosition && oldInfo != 0)
+            move = (int) oldInfo & ((1 << MOVE_BITS) - 1); // keeping the best move we already know
+
+        long scoreBits = Double.doubleToLongBits(score);
+        long info = move | (long) depth << DEPTH_SHIFT | (long) bound << BOUND_SHIFT | (long) generation << GENERATION_SHIFT;
+        keys[slot] = key ^ scoreBits ^ info;
+        scores[slot] = scoreBits;
+        infos[slot] = info;
+    }
+}
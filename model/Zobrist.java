@@ -0,0 +1,77 @@
+package model;
+
+import java.util.Random;
+
+import controller.Constants;
+import static controller.Constants.PlayerColor.*;
+
+/**
+ * Random keys for Zobrist hashing of boards.
+ * The hash of a board is the XOR of the keys of its pieces, so a move changes it with three XORs.
+ * Arrows have one key per square regardless of their color, since the color of an arrow doesn't change the game.
+ * The keys come from a fixed seed, so hashes stay the same between runs (and can be saved to files).
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public final class Zobrist implements Constants
+{
+    private static final long SEED = 0x5EED_A3A2_0A5L;
+
+    private static final long[] WHITE_AMAZON_KEYS = new long[BitBoard.SQUARES];
+    private static final long[] BLACK_AMAZON_KEYS = new long[BitBoard.SQUARES];
+    private static final long[] ARROW_KEYS = new long[BitBoard.SQUARES];
+    public static final long BLACK_TO_PLAY;
+    // mixed into the keys of static evaluations, so they never share a key (and a slot) with the search entries
+    // of the same position in a transposition table
+    public static final long STATIC_EVALUATION;
+
+    static
+    {
+        Random random = new Random(SEED);
+        for (int sq = 0; sq < BitBoard.SQUARES; sq++)
+        {
+            WHITE_AMAZON_KEYS[sq] = random.nextLong();
+            BLACK_AMAZON_KEYS[sq] = random.nextLong();
+            ARROW_KEYS[sq] = random.nextLong();
+        }
+        BLACK_TO_PLAY = random.nextLong();
+        STATIC_EVALUATION = random.nextLong(); // drawn last, so the keys of the pieces stay the same
+    }
+
+    private Zobrist()
+    {
+    }
+
+    public static long amazonKey(PlayerColor color, int sq)
+    {
+        return color == WHITE ? WHITE_AMAZON_KEYS[sq] : BLACK_AMAZON_KEYS[sq];
+    }
+
+    public static long arrowKey(int sq)
+    {
+        return ARROW_KEYS[sq];
+    }
+
+    /**
+     * returns the key of a content in a square (0 for an empty square)
+     */
+    public static long contentKey(CellContent content, int sq)
+    {
+        switch (content)
+        {
+            case WHITE_AMAZON: return WHITE_AMAZON_KEYS[sq];
+            case BLACK_AMAZON: return BLACK_AMAZON_KEYS[sq];
+            case WHITE_ARROW:
+            case BLACK_ARROW: return ARROW_KEYS[sq];
+            default: return 0;
+        }
+    }
+
+    /**
+     * the key of the player that should play now, to be XORed with the hash of the board
+     */
+    public static long sideKey(PlayerColor colorToPlay)
+    {
+        return colorToPlay == BLACK ? BLACK_TO_PLAY : 0;
+    }
+}
@@ -0,0 +1,214 @@
+package tools;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import controller.Constants;
+import model.AllocationTracker;
+import model.GameState;
+import model.Model;
+import model.MoveBuffer;
+import model.PackedMove;
+import model.SearchEngine;
+import model.SearchStats;
+import model.TranspositionTable;
+
+/**
+ * Checks that the hot paths of the AI keep to their allocation budgets, on the positions of the HotPathBenchmark corpus:
+ * move generation, make/unmake, the incremental paths matrix and the static evaluations must allocate nothing
+ * (the cached evaluation both when it evaluates the board and when it finds it in the table),
+ * and a whole EXPERT search must allocate at most EXPERT_BYTES_PER_NODE for each node it searched.
+ * Each check runs a warm-up first (so the JIT compiles it and its buffers are created), then is measured
+ * with AllocationTracker. A check that goes over its budget is printed as FAIL, and the exit code is 1,
+ * so the check can guard a build.
+ * Usage: java tools.AllocationBudgetCheck [operations]
+ * (how many measured operations each hot path runs on each position, by default 20000)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class AllocationBudgetCheck implements Constants
+{
+    public static final int CACHE_TABLE_BITS = 4; // the table of the cached evaluation checks (small, so clearing it is cheap)
+    public static final long EXPERT_BYTES_PER_NODE = 128; // the endgames search few nodes, so the fixed cost of a move counts more
+
+    private static volatile long sink; // the results of the checks go here, so the JIT can't drop their work
+
+    private final Model model = new Model();
+    private final int operations;
+
+    public AllocationBudgetCheck(int operations)
+    {
+        this.operations = operations;
+    }
+
+    public static void main(String[] args)
+    {
+        if(!AllocationTracker.isSupported())
+        {
+            System.out.println("this JVM can't measure the allocation of a thread");
+            System.exit(1);
+        }
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        boolean passed = new AllocationBudgetCheck(operations).run(System.out);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * a position of the corpus, with a search state and a move buffer for the checks
+     */
+    private final class Position
+    {
+        final HotPathBenchmark.Sample sample;
+        final GameState state;
+        final MoveBuffer moves = new MoveBuffer();
+
+        Position(HotPathBenchmark.Sample sample)
+        {
+            this.sample = sample;
+            state = new GameState(model, sample.board, sample.colorToPlay);
+        }
+    }
+
+    /**
+     * returns the hot paths whose budget is 0 bytes per operation
+     */
+    private Map<String, ToLongFunction<Position>> allocationFreePaths()
+    {
+        Map<String, ToLongFunction<Position>> paths = new LinkedHashMap<String, ToLongFunction<Position>>();
+        paths.put("MoveBuffer.generate", position -> {
+            position.moves.generate(position.sample.board, position.sample.colorToPlay);
+            return position.moves.size();
+        });
+        paths.put("GameState.make/unmake", position -> {
+            int move = position.sample.firstMove;
+            if(move == PackedMove.NONE)
+                return 0;
+            position.state.make(move);
+            long result = position.state.getEmptySquares();
+            position.state.unmake();
+            return result;
+        });
+        paths.put("updatePathsMatrix", position -> {
+            int move = position.sample.firstMove;
+            if(move == PackedMove.NONE)
+                return 0;
+            HotPathBenchmark.Sample sample = position.sample;
+            model.doMoveOnBoard(sample.board, sample.colorToPlay, move);
+            model.updatePathsMatrix(sample.board, sample.pathsMat, move);
+            long result = sample.pathsMat[PackedMove.to(move) / BOARD_COLS][PackedMove.to(move) % BOARD_COLS][0];
+            model.undoMoveOnBoard(sample.board, sample.colorToPlay, move);
+            model.undoUpdatePathsMatrix(sample.board, sample.pathsMat, move);
+            return result;
+        });
+        // the evaluations of the position after the first move, like the search evaluates them
+        // (created once, since a lambda that uses the model is a new object each time it is created)
+        ToLongFunction<GameState> easy = state -> (long) model.easyEvaluationFunction(state);
+        ToLongFunction<GameState> complex = state -> {
+            PlayerColor played = state.getColorPlayed();
+            return (long) model.complexEvaluationFunction(state.getBoard(), state.getPathsMat(), state.amazonsOf(played),
+                state.amazonsOf(model.otherColor(played)), state.getEmptySquares(), state.getRegions(), played, false);
+        };
+        // the cached evaluation through a small table of its own: emptied before every call, so every call
+        // evaluates the board and stores it (the miss path), or kept, so every call after the first is a hit
+        TranspositionTable cacheTable = new TranspositionTable(CACHE_TABLE_BITS);
+        ToLongFunction<GameState> cachedMiss = state -> {
+            cacheTable.clear();
+            return (long) model.cachedComplexEvaluation(state, cacheTable);
+        };
+        ToLongFunction<GameState> cachedHit = state -> (long) model.cachedComplexEvaluation(state, cacheTable);
+        paths.put("easyEvaluationFunction", position -> evaluateAfterFirstMove(position, easy));
+        paths.put("complexEvaluationFunction", position -> evaluateAfterFirstMove(position, complex));
+        paths.put("cachedComplexEvaluation:miss", position -> evaluateAfterFirstMove(position, cachedMiss));
+        paths.put("cachedComplexEvaluation:hit", position -> evaluateAfterFirstMove(position, cachedHit));
+        return paths;
+    }
+
+    // makes the first move of a position, evaluates it, and unmakes it
+    private long evaluateAfterFirstMove(Position position, ToLongFunction<GameState> evaluation)
+    {
+        int move = position.sample.firstMove;
+        if(move == PackedMove.NONE)
+            return 0;
+        position.state.make(move);
+        long result = evaluation.applyAsLong(position.state);
+        position.state.unmake();
+        return result;
+    }
+
+    /**
+     * runs all the checks, prints their results
+     * @return whether every check kept to its budget
+     */
+    public boolean run(PrintStream out)
+    {
+        List<HotPathBenchmark.Sample> samples = HotPathBenchmark.corpus(model);
+        boolean passed = true;
+        out.printf("%-48s %14s %14s %6s%n", "check/position", "measured", "budget", "");
+        for (Map.Entry<String, ToLongFunction<Position>> path : allocationFreePaths().entrySet())
+        {
+            for (HotPathBenchmark.Sample sample : samples)
+            {
+                long bytesPerOperation = measure(path.getValue(), new Position(sample));
+                passed &= report(out, path.getKey() + "/" + sample.name, bytesPerOperation, 0, "B/op");
+            }
+        }
+        PrintStream systemOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the searches print their moves
+        try
+        {
+            for (HotPathBenchmark.Sample sample : samples)
+            {
+                long bytesPerNode = expertBytesPerNode(sample);
+                passed &= report(out, "getAiMove:EXPERT/" + sample.name, bytesPerNode, EXPERT_BYTES_PER_NODE, "B/node");
+            }
+        }
+        finally
+        {
+            System.setOut(systemOut);
+        }
+        out.println(passed ? "all the allocation budgets were kept" : "some allocation budgets were broken");
+        return passed;
+    }
+
+    /**
+     * warms up a hot path on a position, then returns how many bytes an operation allocated
+     * (rounded down, so the few bytes the measuring itself may allocate don't count)
+     */
+    private long measure(ToLongFunction<Position> path, Position position)
+    {
+        long result = 0;
+        for (int i = 0; i < operations; i++)
+            result += path.applyAsLong(position);
+        long before = AllocationTracker.currentThreadAllocatedBytes();
+        for (int i = 0; i < operations; i++)
+            result += path.applyAsLong(position);
+        long bytes = AllocationTracker.allocatedSince(before);
+        sink += result;
+        return bytes / operations;
+    }
+
+    /**
+     * returns the bytes per node of an EXPERT move on a position, from an empty transposition table
+     * (the allocation of the thread that searched - see SearchStats.getAllocatedBytes())
+     */
+    private long expertBytesPerNode(HotPathBenchmark.Sample sample)
+    {
+        model.clearSearchCache();
+        model.getAiMove(sample.board, OpponentType.EXPERT, sample.colorToPlay, SearchEngine.NO_DEADLINE, null); // the warm-up
+        model.clearSearchCache();
+        SearchStats stats = model.getAiMoveWithStats(sample.board, OpponentType.EXPERT, sample.colorToPlay, SearchEngine.NO_DEADLINE, null);
+        return (long) stats.getBytesPerNode();
+    }
+
+    // prints the result of a check, and returns whether it kept to its budget
+    private static boolean report(PrintStream out, String name, long measured, long budget, String unit)
+    {
+        boolean kept = measured <= budget;
+        out.printf("%-48s %9d %-4s %9d %-4s %6s%n", name, measured, unit, budget, unit, kept ? "ok" : "FAIL");
+        return kept;
+    }
+}
@@ -0,0 +1,60 @@
+package tools;
+
+import controller.Constants;
+import model.BitBoard;
+import model.TerritoryEvaluator;
+
+/**
+ * Checks that the territory evaluation orders decided positions the right way.
+ * The boards are split by a full column of arrows: white's amazons are walled in on the left, black's on the right.
+ * When white has the smaller side the game is lost for white, and it must be a worse loss the smaller white's side is;
+ * when white has the bigger side it must be a bigger win the bigger the side is.
+ * It prints each check, and fails (exit code 1) if a position is scored the wrong way.
+ * Usage: java tools.EvaluationCheck
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class EvaluationCheck implements Constants
+{
+    public static void main(String[] args)
+    {
+        TerritoryEvaluator evaluator = new TerritoryEvaluator();
+        boolean passed = true;
+        // white walled in 2 columns (16 empty squares against 66) is a worse loss than in 3 columns (26 against 56)
+        passed &= check("loss by more < loss by less", evaluator.evaluate(walledBoard(2), PlayerColor.WHITE),
+            evaluator.evaluate(walledBoard(3), PlayerColor.WHITE));
+        // and the same boards, for black, are a bigger win the more black owns
+        passed &= check("win by less < win by more", evaluator.evaluate(walledBoard(3), PlayerColor.BLACK),
+            evaluator.evaluate(walledBoard(2), PlayerColor.BLACK));
+        System.out.println(passed ? "all the checks passed" : "some checks failed");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * returns a board with a column of arrows, white's amazons on its left and black's on its right
+     * @param wallCol the column of the arrows (white gets the columns before it)
+     */
+    private static BitBoard walledBoard(int wallCol)
+    {
+        CellContent[][] cells = new CellContent[BOARD_ROWS][BOARD_COLS];
+        for (int row = 0; row < BOARD_ROWS; row++)
+        {
+            for (int col = 0; col < BOARD_COLS; col++)
+                cells[row][col] = col == wallCol ? CellContent.WHITE_ARROW : CellContent.EMPTY;
+        }
+        for (int row = 0; row < BOARD_ROWS; row += 3)
+        {
+            cells[row][0] = CellContent.WHITE_AMAZON;
+            cells[row][BOARD_COLS - 1] = CellContent.BLACK_AMAZON;
+        }
+        return new BitBoard(cells);
+    }
+
+    // prints a check that the first score is lower than the second, and returns whether it is
+    private static boolean check(String name, double lowerScore, double higherScore)
+    {
+        boolean isOrdered = lowerScore < higherScore;
+        System.out.printf("%-32s %10.1f < %10.1f %6s%n", name, lowerScore, higherScore, isOrdered ? "ok" : "FAIL");
+        return isOrdered;
+    }
+}
@@ -0,0 +1,230 @@
+package tools;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+import controller.Constants;
+import controller.Move;
+import controller.Position;
+import model.BitBoard;
+import model.Model;
+import model.MoveBuffer;
+import model.PackedMove;
+import model.SearchEngine;
+
+/**
+ * Benchmarks of the hot paths of the model, over a fixed corpus of positions:
+ * the start position, goodForWhite, goodForBlack, and a middlegame and an endgame from seeded random games.
+ * Each benchmark runs on each position: first a warm-up (so the JIT compiles it), then measured rounds,
+ * and it reports the time per operation, and the allocation per operation and rate of the thread
+ * (from com.sun.management.ThreadMXBean, like the gc.alloc.rate figures of a GC profiler).
+ * The searches (getAiMove) start every operation from an empty transposition table.
+ * Usage: java tools.HotPathBenchmark [filter] [warmupMillis] [measureMillis]
+ * (the filter is a regular expression on "benchmark/position", by default everything, 500ms and 1000ms)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class HotPathBenchmark implements Constants
+{
+    public static final long CORPUS_SEED = 20261017L;
+    public static final int MIDDLEGAME_PLIES = 20, ENDGAME_PLIES = 50;
+
+    /**
+     * a position of the corpus (also used by AllocationBudgetCheck)
+     */
+    static final class Sample
+    {
+        final String name;
+        final BitBoard board;
+        final PlayerColor colorToPlay;
+        final int firstMove; // the first move of the player to play (PackedMove.NONE if there is none)
+        final int[][][] pathsMat; // the paths matrix of the board, for the incremental updates
+
+        Sample(Model model, String name, BitBoard board, PlayerColor colorToPlay)
+        {
+            this.name = name;
+            this.board = board;
+            this.colorToPlay = colorToPlay;
+            MoveBuffer moves = new MoveBuffer();
+            moves.generate(board, colorToPlay);
+            firstMove = moves.size() == 0 ? PackedMove.NONE : moves.getMove(0);
+            pathsMat = model.pathsForWholeBoard(board);
+        }
+    }
+
+    private static volatile long sink; // the results of the benchmarks go here, so the JIT can't drop their work
+
+    private final Model model = new Model();
+    private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long warmupNanos, measureNanos;
+
+    public HotPathBenchmark(long warmupMillis, long measureMillis)
+    {
+        warmupNanos = warmupMillis * 1_000_000;
+        measureNanos = measureMillis * 1_000_000;
+    }
+
+    public static void main(String[] args)
+    {
+        Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        long warmupMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        long measureMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        new HotPathBenchmark(warmupMillis, measureMillis).run(filter);
+    }
+
+    /**
+     * returns the positions of the corpus
+     */
+    static List<Sample> corpus(Model model)
+    {
+        List<Sample> samples = new ArrayList<Sample>();
+        samples.add(new Sample(model, "opening", OpeningBookBuilder.startBoard(), PlayerColor.WHITE));
+        samples.add(new Sample(model, "goodForWhite", new BitBoard(goodForWhite), PlayerColor.WHITE));
+        samples.add(new Sample(model, "goodForBlack", new BitBoard(goodForBlack), PlayerColor.BLACK));
+        samples.add(randomGame(model, "middlegame", MIDDLEGAME_PLIES));
+        samples.add(randomGame(model, "endgame", ENDGAME_PLIES));
+        return samples;
+    }
+
+    // a position after random moves from the start, from a fixed seed (so it is the same in every run)
+    private static Sample randomGame(Model model, String name, int plies)
+    {
+        Random random = new Random(CORPUS_SEED);
+        BitBoard board = OpeningBookBuilder.startBoard();
+        PlayerColor colorToPlay = PlayerColor.WHITE;
+        MoveBuffer moves = new MoveBuffer();
+        for (int ply = 0; ply < plies; ply++)
+        {
+            moves.generate(board, colorToPlay);
+            if(moves.size() == 0)
+                break;
+            model.doMoveOnBoard(board, colorToPlay, moves.getMove(random.nextInt(moves.size())));
+            colorToPlay = model.otherColor(colorToPlay);
+        }
+        return new Sample(model, name + "-" + plies, board, colorToPlay);
+    }
+
+    /**
+     * returns the benchmarks - each one is an operation on a position, that returns something to keep its work alive
+     */
+    private Map<String, ToLongFunction<Sample>> benchmarks()
+    {
+        Map<String, ToLongFunction<Sample>> benchmarks = new LinkedHashMap<String, ToLongFunction<Sample>>();
+        benchmarks.put("allPossibleMoves", sample -> model.allPossibleMoves(sample.board, sample.colorToPlay).length);
+        benchmarks.put("getReachableSquares", sample -> {
+            long count = 0;
+            for (Position amazon : model.amazonsForPlayerSign(sample.board, sample.colorToPlay))
+                count += model.getReachableSquares(sample.board, amazon).length;
+            return count;
+        });
+        benchmarks.put("shootablesAfterJump", sample -> {
+            long count = 0;
+            for (Position amazon : model.amazonsForPlayerSign(sample.board, sample.colorToPlay))
+                for (Position jump : model.getReachableSquares(sample.board, amazon))
+                    count += model.shootablesAfterJump(sample.board, amazon, jump).length;
+            return count;
+        });
+        benchmarks.put("pathsForWholeBoard", sample -> model.pathsForWholeBoard(sample.board)[0][0][0]);
+        // a move and its undo, with the incremental updates of the paths matrix
+        benchmarks.put("updatePathsMatrix", sample -> {
+            int move = sample.firstMove;
+            if(move == PackedMove.NONE)
+                return 0;
+            model.doMoveOnBoard(sample.board, sample.colorToPlay, move);
+            model.updatePathsMatrix(sample.board, sample.pathsMat, move);
+            long result = sample.pathsMat[PackedMove.to(move) / BOARD_COLS][PackedMove.to(move) % BOARD_COLS][0];
+            model.undoMoveOnBoard(sample.board, sample.colorToPlay, move);
+            model.undoUpdatePathsMatrix(sample.board, sample.pathsMat, move);
+            return result;
+        });
+        benchmarks.put("easyEvaluationFunction", sample -> {
+            PlayerColor played = model.otherColor(sample.colorToPlay);
+            return (long) model.easyEvaluationFunction(sample.board, sample.pathsMat,
+                model.amazonsForPlayerSign(sample.board, played), model.amazonsForPlayerSign(sample.board, sample.colorToPlay), played);
+        });
+        benchmarks.put("complexEvaluationFunction", sample -> {
+            PlayerColor played = model.otherColor(sample.colorToPlay);
+            return (long) model.complexEvaluationFunction(sample.board, sample.pathsMat,
+                model.amazonsForPlayerSign(sample.board, played), model.amazonsForPlayerSign(sample.board, sample.colorToPlay),
+                sample.board.countEmpty(), played, false);
+        });
+        for (OpponentType level : OpponentType.values())
+        {
+            if(level == OpponentType.HUMAN)
+                continue;
+            benchmarks.put("getAiMove:" + level, sample -> {
+                model.clearSearchCache();
+                Move move = model.getAiMove(sample.board, level, sample.colorToPlay, SearchEngine.NO_DEADLINE, null);
+                return move == null ? 0 : move.getJumpsToRow();
+            });
+        }
+        return benchmarks;
+    }
+
+    /**
+     * runs the benchmarks that match a filter, on every position of the corpus
+     */
+    public void run(Pattern filter)
+    {
+        List<Sample> samples = corpus(model);
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the searches print their moves
+        try
+        {
+            out.printf("%-44s %14s %12s %14s %10s%n", "benchmark/position", "ns/op", "ops", "bytes/op", "MB/s");
+            for (Map.Entry<String, ToLongFunction<Sample>> benchmark : benchmarks().entrySet())
+            {
+                for (Sample sample : samples)
+                {
+                    String name = benchmark.getKey() + "/" + sample.name;
+                    if(filter.matcher(name).find())
+                        measure(name, benchmark.getValue(), sample, out);
+                }
+            }
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * warms up an operation, measures it, and prints the results
+     */
+    private void measure(String name, ToLongFunction<Sample> operation, Sample sample, PrintStream out)
+    {
+        long threadId = Thread.currentThread().getId();
+        long end = System.nanoTime() + warmupNanos;
+        long result = 0;
+        do
+        {
+            result += operation.applyAsLong(sample);
+        } while(System.nanoTime() < end);
+
+        long operations = 0;
+        long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        end = start + measureNanos;
+        long now;
+        do
+        {
+            result += operation.applyAsLong(sample);
+            operations++;
+            now = System.nanoTime();
+        } while(now < end);
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        sink += result;
+
+        double nanosPerOperation = (double) (now - start) / operations;
+        out.printf("%-44s %14.1f %12d %14.0f %10.1f%n", name, nanosPerOperation, operations,
+            (double) bytes / operations, bytes / ((now - start) / 1e9) / (1 << 20));
+    }
+}
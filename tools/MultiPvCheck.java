@@ -0,0 +1,71 @@
+package tools;
+
+import java.util.List;
+
+import controller.Constants;
+import model.AnalysisLine;
+import model.AnalysisResult;
+import model.BitBoard;
+import model.Model;
+import model.PackedMove;
+import model.SearchEngine;
+import model.TranspositionTable;
+
+/**
+ * Checks the lines of a multi-PV search against a search of all the root moves with a full window.
+ * Each position is searched for a few lines, and again for SEARCH_WIDTH lines (every root move that is searched
+ * is then a line), each with a fresh table; the best lines of both must be the same moves with the same scores.
+ * It prints both lines of each check, and fails (exit code 1) if they differ.
+ * Usage: java tools.MultiPvCheck [lines] [depth]
+ *   lines - how many lines to check (default 3)
+ *   depth - the depth of the searches (default 3)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class MultiPvCheck implements Constants
+{
+    private static final double SCORE_TOLERANCE = 1e-9;
+
+    public static void main(String[] args)
+    {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Model model = new Model();
+        boolean passed = true;
+        passed &= check(model, "goodForWhite", new BitBoard(goodForWhite), PlayerColor.WHITE, lines, depth);
+        passed &= check(model, "goodForBlack", new BitBoard(goodForBlack), PlayerColor.BLACK, lines, depth);
+        System.out.println(passed ? "all the checks passed" : "some checks failed");
+        System.exit(passed ? 0 : 1);
+    }
+
+    // prints the best lines of both searches of a position, and returns whether they are the same
+    private static boolean check(Model model, String name, BitBoard board, PlayerColor colorToPlay, int lines, int depth)
+    {
+        List<AnalysisLine> multiPv = search(model, board, colorToPlay, lines, depth).getLines();
+        List<AnalysisLine> fullWindow = search(model, board, colorToPlay, SearchEngine.SEARCH_WIDTH, depth).getLines();
+        boolean isSame = multiPv.size() == Math.min(lines, fullWindow.size());
+        System.out.println(name + " (depth " + depth + "):");
+        for (int i = 0; i < multiPv.size() && i < fullWindow.size(); i++)
+        {
+            AnalysisLine line = multiPv.get(i);
+            AnalysisLine expected = fullWindow.get(i);
+            boolean isLineSame = PackedMove.of(line.getMove()) == PackedMove.of(expected.getMove())
+                && Math.abs(line.getScore() - expected.getScore()) <= SCORE_TOLERANCE;
+            System.out.printf("  %d. %-24s %10.1f | full window %-24s %10.1f %6s%n", i + 1, line.getMove(),
+                line.getScore(), expected.getMove(), expected.getScore(), isLineSame ? "ok" : "FAIL");
+            isSame &= isLineSame;
+        }
+        return isSame;
+    }
+
+    // returns the last finished iteration of a search for some lines, with a fresh table
+    private static AnalysisResult search(Model model, BitBoard board, PlayerColor colorToPlay, int lines, int depth)
+    {
+        AnalysisResult[] lastResult = new AnalysisResult[1];
+        SearchEngine engine = new SearchEngine(model, new TranspositionTable(), depth);
+        engine.setLines(lines);
+        engine.setIterationListener(result -> lastResult[0] = result);
+        engine.search(board, colorToPlay);
+        return lastResult[0];
+    }
+}
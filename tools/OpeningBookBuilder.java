@@ -0,0 +1,212 @@
+package tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import controller.Constants;
+import controller.Move;
+import model.BitBoard;
+import model.Model;
+import model.OpeningBook;
+import model.PackedMove;
+
+/**
+ * Builds the opening book (see model.OpeningBook) from deep searches of the first positions of the game.
+ * Starting from the start position, every position of the first plies is searched by the EXPERT search and by the
+ * HARD search, each with a fixed time. The move of each search is added to the position (the EXPERT move weighs more),
+ * and the positions after all the moves of a position are searched at the next ply.
+ * An existing book is read first, and the positions it already has aren't searched again - so a book grows
+ * by running the builder again with more plies, and a stopped run continues from the last position it searched
+ * (the book is written after every search).
+ * Usage: java tools.OpeningBookBuilder [output] [plies] [secondsPerSearch] [threads]
+ * (by default amazons-book.bin, 3 plies, 10 seconds and all the available cores)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class OpeningBookBuilder implements Constants
+{
+    public static final int EXPERT_WEIGHT = 2, HARD_WEIGHT = 1;
+
+    // the moves of each position, by its canonical key - each move (on the canonical board) with its weight
+    private final Map<Long, Map<Integer, Integer>> book = new HashMap<Long, Map<Integer, Integer>>();
+    private final Model model;
+    private final long searchNanos;
+
+    public OpeningBookBuilder(int threads, double secondsPerSearch)
+    {
+        model = new Model(threads);
+        model.setOpeningBook(null); // the positions must be searched, not looked up in an older book
+        searchNanos = (long) (secondsPerSearch * 1e9);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        Path output = Paths.get(args.length > 0 ? args[0] : OpeningBook.DEFAULT_PATH);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        double secondsPerSearch = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(threads, secondsPerSearch);
+        builder.read(output);
+        builder.grow(startBoard(), PlayerColor.WHITE, plies, output);
+    }
+
+    /**
+     * returns the board of the start of the game
+     */
+    public static BitBoard startBoard()
+    {
+        BitBoard board = new BitBoard();
+        for (int[] square : WHITE_AMAZONS_START_UP)
+            board.setContent(square[0], square[1], CellContent.WHITE_AMAZON);
+        for (int[] square : BLACK_AMAZONS_START_UP)
+            board.setContent(square[0], square[1], CellContent.BLACK_AMAZON);
+        return board;
+    }
+
+    /**
+     * searches the positions of the first plies from a position (breadth first), and writes the book after each search
+     */
+    public void grow(BitBoard board, PlayerColor colorToPlay, int plies, Path output) throws IOException
+    {
+        List<BitBoard> positions = new ArrayList<BitBoard>();
+        positions.add(board);
+        for (int ply = 0; ply < plies; ply++)
+        {
+            List<BitBoard> nextPositions = new ArrayList<BitBoard>();
+            Set<Long> seen = new HashSet<Long>();
+            for (BitBoard position : positions)
+            {
+                int symmetry = OpeningBook.canonicalSymmetry(position, colorToPlay);
+                long key = OpeningBook.keyUnder(position, colorToPlay, symmetry);
+                if(!seen.add(key))
+                    continue; // the same position (or a symmetric one) was reached by other moves
+
+                if(!book.containsKey(key))
+                {
+                    search(position, colorToPlay, key, symmetry);
+                    write(output);
+                }
+                for (int canonicalMove : book.get(key).keySet())
+                {
+                    BitBoard child = new BitBoard(position);
+                    model.doMoveOnBoard(child, colorToPlay, OpeningBook.transformMove(canonicalMove, OpeningBook.inverseOf(symmetry)));
+                    nextPositions.add(child);
+                }
+            }
+            System.out.println("ply " + (ply + 1) + ": " + seen.size() + " positions, the book has " + book.size());
+            positions = nextPositions;
+            colorToPlay = colorToPlay == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+        }
+    }
+
+    /**
+     * searches a position with both searches, and adds their moves to the book
+     */
+    private void search(BitBoard board, PlayerColor colorToPlay, long key, int symmetry)
+    {
+        Map<Integer, Integer> moves = new LinkedHashMap<Integer, Integer>();
+        book.put(key, moves);
+        addMove(moves, board, colorToPlay, OpponentType.EXPERT, EXPERT_WEIGHT, symmetry);
+        addMove(moves, board, colorToPlay, OpponentType.HARD, HARD_WEIGHT, symmetry);
+    }
+
+    private void addMove(Map<Integer, Integer> moves, BitBoard board, PlayerColor colorToPlay, OpponentType opponentType, int weight, int symmetry)
+    {
+        long start = System.nanoTime();
+        Move move = model.getAiMove(board, opponentType, colorToPlay, start + searchNanos, null);
+        if(move == null)
+            return;
+        int canonicalMove = OpeningBook.transformMove(PackedMove.of(move), symmetry);
+        moves.merge(canonicalMove, weight, Integer::sum);
+        System.out.printf("  %s %s: %s (%.1fs)%n", colorToPlay, opponentType, move, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * reads an existing book, if there is one
+     */
+    public void read(Path path) throws IOException
+    {
+        if(!Files.isReadable(path))
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))))
+        {
+            if(in.readInt() != OpeningBook.MAGIC || in.readInt() != OpeningBook.VERSION)
+                throw new IOException("Not an Amazons opening book file: " + path);
+            int positionCount = in.readInt();
+            in.readInt(); // the number of moves
+            long[] keys = new long[positionCount];
+            for (int i = 0; i < positionCount; i++)
+                keys[i] = in.readLong();
+            int[] firstMoves = new int[positionCount + 1];
+            for (int i = 0; i <= positionCount; i++)
+                firstMoves[i] = in.readInt();
+            for (int i = 0; i < positionCount; i++)
+            {
+                Map<Integer, Integer> moves = new LinkedHashMap<Integer, Integer>();
+                for (int j = firstMoves[i]; j < firstMoves[i + 1]; j++)
+                    moves.put(in.readInt(), in.readInt());
+                book.put(keys[i], moves);
+            }
+        }
+        System.out.println("read " + book.size() + " positions from " + path);
+    }
+
+    /**
+     * writes the book (to a temporary file first, so a stopped run never leaves half a book)
+     */
+    public void write(Path path) throws IOException
+    {
+        long[] keys = new long[book.size()];
+        int i = 0;
+        int moveCount = 0;
+        for (Map.Entry<Long, Map<Integer, Integer>> entry : book.entrySet())
+        {
+            keys[i++] = entry.getKey();
+            moveCount += entry.getValue().size();
+        }
+        Arrays.sort(keys);
+
+        Path temporary = Paths.get(path + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))
+        {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(keys.length);
+            out.writeInt(moveCount);
+            for (long key : keys)
+                out.writeLong(key);
+            int firstMove = 0;
+            for (long key : keys)
+            {
+                out.writeInt(firstMove);
+                firstMove += book.get(key).size();
+            }
+            out.writeInt(firstMove);
+            for (long key : keys)
+            {
+                for (Map.Entry<Integer, Integer> move : book.get(key).entrySet())
+                {
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,175 @@
+package tools;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import controller.Constants;
+import model.BitBoard;
+import model.Model;
+import model.PackedMove;
+import model.Perft;
+
+/**
+ * Runs perft (see model.Perft) - the correctness and speed gate of the move generators.
+ * A position is start (the start of the game, white to play), goodForWhite (white to play) or goodForBlack (black to play).
+ * It prints the leaves to the depth, the time and the leaves per second, and with divide the count under every first move.
+ * verify counts every stored reference to a depth (by default 3, the deeper ones take minutes) with every generator,
+ * and fails (exit code 1) if any count is different.
+ * The options are divide, generator=BITBOARD|MODEL|RAYS (by default BITBOARD), cache=BITS (the log2 of the cache entries,
+ * by default 20, 0 for no cache) and threads=N (by default all the available cores).
+ * Usage: java tools.PerftRunner position depth [options...]
+ *        java tools.PerftRunner verify [maxDepth] [options...]
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class PerftRunner implements Constants
+{
+    public static final int DEFAULT_CACHE_BITS = 20, DEFAULT_VERIFY_DEPTH = 3;
+
+    /**
+     * the stored counts - {position, depth, leaves}, checked by the RAYS generator (which shares no code with the others)
+     */
+    public static final Object[][] REFERENCE_COUNTS = {
+        { "start", 1, 2176L },
+        { "start", 2, 4307152L },
+        { "goodForWhite", 1, 553L },
+        { "goodForWhite", 2, 250195L },
+        { "goodForWhite", 3, 126065143L },
+        { "goodForWhite", 4, 55106608891L },
+        { "goodForBlack", 1, 603L },
+        { "goodForBlack", 2, 221597L },
+        { "goodForBlack", 3, 108221537L },
+        { "goodForBlack", 4, 36663903418L },
+    };
+
+    public static void main(String[] args)
+    {
+        if(args.length < 1)
+        {
+            System.out.println("Usage: java tools.PerftRunner position depth [divide] [generator=G] [cache=BITS] [threads=N]");
+            System.out.println("       java tools.PerftRunner verify [maxDepth] [generator=G] [cache=BITS] [threads=N]");
+            return;
+        }
+        boolean isVerify = args[0].equals("verify");
+        int depth = args.length > 1 && Character.isDigit(args[1].charAt(0)) ? Integer.parseInt(args[1]) : isVerify ? DEFAULT_VERIFY_DEPTH : 1;
+        boolean isDivide = false;
+        Perft.Generator generator = null;
+        int cacheBits = DEFAULT_CACHE_BITS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++)
+        {
+            String[] keyValue = args[i].split("=", 2);
+            switch (keyValue[0])
+            {
+                case "divide": isDivide = true; break;
+                case "generator": generator = Perft.Generator.valueOf(keyValue[1].toUpperCase()); break;
+                case "cache": cacheBits = Integer.parseInt(keyValue[1]); break;
+                case "threads": threads = Integer.parseInt(keyValue[1]); break;
+                default:
+                    if(!Character.isDigit(args[i].charAt(0)))
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Model model = new Model();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try
+        {
+            if(isVerify)
+            {
+                Perft.Generator[] generators = generator == null ? Perft.Generator.values() : new Perft.Generator[] { generator };
+                if(!verify(model, generators, depth, cacheBits, pool))
+                    System.exit(1);
+            }
+            else
+                run(new Perft(model, generator == null ? Perft.Generator.BITBOARD : generator, cacheBits), args[0], depth, isDivide, pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * returns the board of a position by its name
+     */
+    public static BitBoard boardOf(String position)
+    {
+        switch (position)
+        {
+            case "start": return OpeningBookBuilder.startBoard();
+            case "goodForWhite": return new BitBoard(goodForWhite);
+            case "goodForBlack": return new BitBoard(goodForBlack);
+            default: throw new IllegalArgumentException("Unknown position: " + position);
+        }
+    }
+
+    /**
+     * returns the player to play in a position by its name
+     */
+    public static PlayerColor colorOf(String position)
+    {
+        return position.equals("goodForBlack") ? PlayerColor.BLACK : PlayerColor.WHITE;
+    }
+
+    /**
+     * counts one position, and prints the count (and the count under every first move with divide)
+     */
+    private static void run(Perft perft, String position, int depth, boolean isDivide, ForkJoinPool pool)
+    {
+        BitBoard board = boardOf(position);
+        long start = System.nanoTime();
+        long leaves;
+        if(isDivide)
+        {
+            Map<Integer, Long> counts = perft.divide(board, colorOf(position), depth, pool);
+            leaves = 0;
+            for (Map.Entry<Integer, Long> count : counts.entrySet())
+            {
+                System.out.println(PackedMove.toMove(count.getKey()) + ": " + count.getValue());
+                leaves += count.getValue();
+            }
+            System.out.println(counts.size() + " moves");
+        }
+        else
+            leaves = perft.perft(board, colorOf(position), depth, pool);
+        report(perft, position, depth, leaves, System.nanoTime() - start);
+    }
+
+    /**
+     * counts the stored references to a depth with every generator
+     * @return whether all the counts are right
+     */
+    private static boolean verify(Model model, Perft.Generator[] generators, int maxDepth, int cacheBits, ForkJoinPool pool)
+    {
+        boolean isRight = true;
+        for (Perft.Generator generator : generators)
+        {
+            Perft perft = new Perft(model, generator, cacheBits);
+            for (Object[] reference : REFERENCE_COUNTS)
+            {
+                String position = (String) reference[0];
+                int depth = (Integer) reference[1];
+                long expected = (Long) reference[2];
+                if(depth > maxDepth)
+                    continue;
+                long start = System.nanoTime();
+                long leaves = perft.perft(boardOf(position), colorOf(position), depth, pool);
+                report(perft, position, depth, leaves, System.nanoTime() - start);
+                if(leaves != expected)
+                {
+                    System.out.println("  WRONG: expected " + expected);
+                    isRight = false;
+                }
+            }
+        }
+        System.out.println(isRight ? "all the counts are right" : "some counts are wrong");
+        return isRight;
+    }
+
+    private static void report(Perft perft, String position, int depth, long leaves, long nanos)
+    {
+        System.out.printf("%-9s %-13s depth %d: %,d leaves in %.3fs (%,.0f leaves/sec)%n", perft.getGenerator(), position, depth,
+            leaves, nanos / 1e9, leaves / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,262 @@
+package tools;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import controller.Constants;
+import controller.Move;
+import model.BitBoard;
+import model.Model;
+import model.MoveBuffer;
+import model.PackedMove;
+import model.SearchEngine;
+
+/**
+ * Plays many games between two engines without the view, in parallel on a pool of threads, and reports
+ * the win rate of the first engine, the Elo difference (with a 95% confidence interval),
+ * and the average time per move and the nodes per second of each engine.
+ * Each opening is a few random moves (from a seeded random, so a run can be repeated), and is played twice,
+ * with each engine as white once.
+ * An engine is a level with options: LEVEL[:option=value,...], where the options are
+ * eval=COMPLEX|TERRITORY, playouts=N (for MCTS), ms=N (the time for each move), threads=N (the search threads of the engine),
+ * book=off and tablebase=off. For example EXPERT:ms=500 or MCTS:playouts=5000,threads=2.
+ * Only the model is used, so no AWT or Swing class is loaded. The engines' own prints are hidden while the games run.
+ * Usage: java tools.SelfPlayTournament engineA engineB [games] [threads] [openingPlies] [seed]
+ * (by default 1000 games, all the available cores, 4 opening plies and seed 1)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class SelfPlayTournament implements Constants
+{
+    /**
+     * an engine - a level of the AI and the settings of its model
+     */
+    public static final class Engine
+    {
+        final String name;
+        final OpponentType level;
+        EvaluationType evaluationType = EvaluationType.COMPLEX;
+        int playouts = -1; // -1 for the model's default
+        long millisPerMove = -1; // -1 for no time limit
+        int searchThreads = 1;
+        boolean useBook = true, useTablebase = true;
+        // the results of the engine, over all the games
+        final LongAdder moves = new LongAdder(), nanos = new LongAdder(), nodes = new LongAdder();
+
+        /**
+         * parses an engine, like EXPERT:ms=500
+         */
+        public Engine(String spec)
+        {
+            name = spec;
+            String[] parts = spec.split(":", 2);
+            level = OpponentType.valueOf(parts[0].toUpperCase());
+            if(level == OpponentType.HUMAN)
+                throw new IllegalArgumentException("A human can't play in a tournament");
+            if(parts.length == 1)
+                return;
+            for (String option : parts[1].split(","))
+            {
+                String[] keyValue = option.split("=", 2);
+                if(keyValue.length != 2)
+                    throw new IllegalArgumentException("Bad engine option: " + option);
+                String value = keyValue[1];
+                switch (keyValue[0])
+                {
+                    case "eval": evaluationType = EvaluationType.valueOf(value.toUpperCase()); break;
+                    case "playouts": playouts = Integer.parseInt(value); break;
+                    case "ms": millisPerMove = Long.parseLong(value); break;
+                    case "threads": searchThreads = Integer.parseInt(value); break;
+                    case "book": useBook = !value.equals("off"); break;
+                    case "tablebase": useTablebase = !value.equals("off"); break;
+                    default: throw new IllegalArgumentException("Unknown engine option: " + keyValue[0]);
+                }
+            }
+        }
+
+        /**
+         * creates a model with the settings of the engine
+         */
+        Model createModel()
+        {
+            Model model = new Model(searchThreads);
+            model.setEvaluationType(evaluationType);
+            if(playouts > 0)
+                model.setMctsPlayouts(playouts);
+            if(!useBook)
+                model.setOpeningBook(null);
+            if(!useTablebase)
+                model.setTablebase(null);
+            return model;
+        }
+    }
+
+    private final Engine engineA, engineB;
+    private final int openingPlies;
+    private final long seed;
+    // each thread of the pool plays with its own models, kept between its games
+    private final ThreadLocal<Model[]> models;
+    private final AtomicInteger winsA = new AtomicInteger(), winsAAsWhite = new AtomicInteger(), finished = new AtomicInteger();
+
+    public SelfPlayTournament(Engine engineA, Engine engineB, int openingPlies, long seed)
+    {
+        this.engineA = engineA;
+        this.engineB = engineB;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+        models = ThreadLocal.withInitial(() -> new Model[] { engineA.createModel(), engineB.createModel() });
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException
+    {
+        if(args.length < 2)
+        {
+            System.out.println("Usage: java tools.SelfPlayTournament engineA engineB [games] [threads] [openingPlies] [seed]");
+            return;
+        }
+        Engine engineA = new Engine(args[0]), engineB = new Engine(args[1]);
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int openingPlies = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the engines print their moves and evaluations
+        try
+        {
+            SelfPlayTournament tournament = new SelfPlayTournament(engineA, engineB, openingPlies, seed);
+            out.println(engineA.name + " vs " + engineB.name + ": " + games + " games on " + threads + " threads");
+            long start = System.nanoTime();
+            tournament.play(games, threads, out);
+            tournament.report(games, (System.nanoTime() - start) / 1e9, out);
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * plays all the games on a pool of threads
+     * @param progress where a line is printed after every tenth of the games
+     */
+    public void play(int games, int threads, PrintStream progress) throws InterruptedException, ExecutionException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int game = 0; game < games; game++)
+            {
+                int gameNumber = game;
+                results.add(pool.submit(() -> {
+                    playGame(gameNumber);
+                    int done = finished.incrementAndGet();
+                    if(done % Math.max(1, games / 10) == 0)
+                        progress.printf("%d/%d games, %s won %d%n", done, games, engineA.name, winsA.get());
+                }));
+            }
+            for (Future<?> result : results)
+                result.get();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * plays one game - engine A is white in the even games, and the two games of each pair have the same opening
+     */
+    private void playGame(int gameNumber)
+    {
+        Model[] gameModels = models.get();
+        boolean isAWhite = gameNumber % 2 == 0;
+        BitBoard board = OpeningBookBuilder.startBoard();
+        PlayerColor colorToPlay = PlayerColor.WHITE;
+
+        Random random = new Random(seed * 1_000_003L + gameNumber / 2);
+        MoveBuffer moves = new MoveBuffer();
+        for (int ply = 0; ply < openingPlies; ply++)
+        {
+            moves.generate(board, colorToPlay);
+            if(moves.size() == 0)
+                break;
+            gameModels[0].doMoveOnBoard(board, colorToPlay, moves.getMove(random.nextInt(moves.size())));
+            colorToPlay = gameModels[0].otherColor(colorToPlay);
+        }
+
+        while(!board.isGameOver(colorToPlay))
+        {
+            boolean isATurn = (colorToPlay == PlayerColor.WHITE) == isAWhite;
+            Engine engine = isATurn ? engineA : engineB;
+            Model model = gameModels[isATurn ? 0 : 1];
+
+            long nodesBefore = model.getSearchedNodes();
+            long start = System.nanoTime();
+            long deadline = engine.millisPerMove < 0 ? SearchEngine.NO_DEADLINE : start + engine.millisPerMove * 1_000_000;
+            Move move = model.getAiMove(board, engine.level, colorToPlay, deadline, null);
+            engine.nanos.add(System.nanoTime() - start);
+            engine.nodes.add(model.getSearchedNodes() - nodesBefore);
+            engine.moves.increment();
+            if(move == null)
+                break;
+            model.doMoveOnBoard(board, colorToPlay, PackedMove.of(move));
+            colorToPlay = model.otherColor(colorToPlay);
+        }
+
+        // the player that can't move loses
+        boolean hasAWon = (colorToPlay == PlayerColor.WHITE) != isAWhite;
+        if(hasAWon)
+        {
+            winsA.incrementAndGet();
+            if(isAWhite)
+                winsAAsWhite.incrementAndGet();
+        }
+    }
+
+    /**
+     * prints the results of the tournament
+     */
+    public void report(int games, double seconds, PrintStream out)
+    {
+        int wins = winsA.get();
+        double score = (double) wins / games;
+        // the 95% interval of the score (a Wilson interval, which stays sensible when one engine won almost every game)
+        double z = 1.96, zz = z * z / games;
+        double center = (score + zz / 2) / (1 + zz);
+        double margin = z * Math.sqrt(score * (1 - score) / games + zz / (4 * games)) / (1 + zz);
+        out.println();
+        out.printf("%s won %d/%d (%.1f%%), %d/%d as white%n", engineA.name, wins, games, 100 * score, winsAAsWhite.get(), (games + 1) / 2);
+        out.printf("Elo difference: %s [%s, %s] (95%%)%n", elo(score), elo(center - margin), elo(center + margin));
+        out.printf("%-30s %12s %14s%n", "engine", "ms/move", "nodes/sec");
+        for (Engine engine : new Engine[] { engineA, engineB })
+        {
+            double engineSeconds = engine.nanos.sum() / 1e9;
+            out.printf("%-30s %12.1f %14.0f%n", engine.name, 1000 * engineSeconds / Math.max(1, engine.moves.sum()),
+                engineSeconds > 0 ? engine.nodes.sum() / engineSeconds : 0);
+        }
+        out.printf("%.1f seconds, %.2f games/sec%n", seconds, games / seconds);
+    }
+
+    /**
+     * the Elo difference of a score (the part of the games won)
+     */
+    private static String elo(double score)
+    {
+        if(score <= 0)
+            return "-inf";
+        if(score >= 1)
+            return "+inf";
+        return String.format("%+.0f", -400 * Math.log10(1 / score - 1));
+    }
+}
@@ -0,0 +1,61 @@
+package tools;
+
+import controller.Constants;
+import controller.Move;
+import model.BitBoard;
+import model.LazySmpSearch;
+import model.Model;
+import model.SearchEngine;
+import model.TranspositionTable;
+
+/**
+ * Measures how the Lazy SMP search scales with the number of threads.
+ * For the goodForWhite and goodForBlack boards and 1 to N threads, it searches to a fixed depth
+ * with a fresh transposition table, and prints the time to reach the depth and the nodes per second.
+ * Usage: java tools.SmpScalingReport [maxThreads] [depth]
+ * (by default, all the available cores and the default depth of the EXPERT search)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class SmpScalingReport implements Constants
+{
+    public static void main(String[] args)
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : SearchEngine.DEFAULT_MAX_DEPTH;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() + ", depth: " + depth);
+
+        report("goodForWhite", goodForWhite, PlayerColor.WHITE, maxThreads, depth);
+        report("goodForBlack", goodForBlack, PlayerColor.BLACK, maxThreads, depth);
+    }
+
+    private static void report(String name, CellContent[][] cells, PlayerColor colorToPlay, int maxThreads, int depth)
+    {
+        System.out.println();
+        System.out.println(name + " (" + colorToPlay + " to play)");
+        System.out.printf("%8s %10s %12s %12s %9s  %s%n", "threads", "time(ms)", "nodes", "nodes/sec", "speedup", "move");
+
+        Model model = new Model();
+        BitBoard board = new BitBoard(cells);
+        search(model, board, colorToPlay, 1, depth); // warm-up, so the JIT compiles the search first
+
+        double baseTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads++)
+        {
+            LazySmpSearch search = new LazySmpSearch(model, new TranspositionTable(), threads, depth);
+            long start = System.nanoTime();
+            Move move = search.search(board, colorToPlay);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if(threads == 1)
+                baseTime = millis;
+
+            System.out.printf("%8d %10.1f %12d %12.0f %8.2fx  %s%n",
+                threads, millis, search.getNodes(), search.getNodes() / (millis / 1000), baseTime / millis, move);
+        }
+    }
+
+    private static Move search(Model model, BitBoard board, PlayerColor colorToPlay, int threads, int depth)
+    {
+        return new LazySmpSearch(model, new TranspositionTable(), threads, depth).search(board, colorToPlay);
+    }
+}
@@ -0,0 +1,340 @@
+package tools;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import controller.Constants;
+import model.BitBoard;
+import model.EndgameSolver;
+import model.Tablebase;
+
+/**
+ * Builds the endgame tablebase (see model.Tablebase) for every area of up to maxCells squares
+ * with one white and one black amazon.
+ * Every move fills a square, so the positions of an area of n squares only lead to areas of fewer squares.
+ * The areas are solved from the smallest up, one size at a time, and all the shapes of a size are solved in parallel.
+ * For a position, with X to move and Y the opponent:
+ * noPass(X) = the smallest surplus with which X wins by playing in the area = min over X's moves of (1 - threshold of Y after it)
+ * threshold(X) = min(noPass(X), max(1, 2 - noPass(Y))) - X may also spend an outside move (with a surplus of at least 1),
+ * and then Y has no outside move to answer with, and has to win in the area.
+ * A move that splits the area leaves each amazon in an area of its own, which is worth its exact number of moves (EndgameSolver).
+ * Each finished size is saved to its own file next to the output (output.levelN), so a stopped run continues from there.
+ * Usage: java tools.TablebaseGenerator [output] [maxCells] [threads]
+ * (by default amazons-tablebase.bin, 8 squares and all the available cores)
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public class TablebaseGenerator implements Constants
+{
+    private static final int INFINITY = 1000; // noPass() of a player that can't move in the area
+
+    private final int maxCells;
+    // the thresholds of every shape that was solved, by its key
+    private final Map<Long, byte[]> thresholds = new HashMap<Long, byte[]>();
+    private final ThreadLocal<EndgameSolver> solvers = ThreadLocal.withInitial(EndgameSolver::new);
+
+    public TablebaseGenerator(int maxCells)
+    {
+        if(maxCells < 2 || maxCells > Tablebase.MAX_SUPPORTED_CELLS)
+            throw new IllegalArgumentException("The areas must have 2 to " + Tablebase.MAX_SUPPORTED_CELLS + " squares");
+        this.maxCells = maxCells;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException
+    {
+        Path output = Paths.get(args.length > 0 ? args[0] : Tablebase.DEFAULT_PATH);
+        int maxCells = args.length > 1 ? Integer.parseInt(args[1]) : Tablebase.MAX_SUPPORTED_CELLS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        TablebaseGenerator generator = new TablebaseGenerator(maxCells);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try
+        {
+            generator.generate(output, pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * solves all the sizes (continuing from the saved ones), and writes the tablebase file
+     */
+    public void generate(Path output, ForkJoinPool pool) throws IOException, InterruptedException, ExecutionException
+    {
+        if(output.toAbsolutePath().getParent() != null)
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        long[] shapes = { 1L }; // the one shape of a single square
+        for (int cells = 2; cells <= maxCells; cells++)
+        {
+            shapes = growShapes(shapes);
+            Path levelFile = Paths.get(output + ".level" + cells);
+            if(loadLevel(levelFile, cells, shapes.length))
+            {
+                System.out.println(cells + " squares: " + shapes.length + " shapes, loaded from " + levelFile);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            long[] levelShapes = shapes;
+            byte[][] levelThresholds = pool.submit(() -> IntStream.range(0, levelShapes.length).parallel()
+                .mapToObj(i -> solveShape(levelShapes[i])).toArray(byte[][]::new)).get();
+            for (int i = 0; i < shapes.length; i++)
+                thresholds.put(shapes[i], levelThresholds[i]);
+            saveLevel(levelFile, cells, shapes, levelThresholds);
+            System.out.printf("%d squares: %d shapes, solved in %.1fs%n", cells, shapes.length, (System.nanoTime() - start) / 1e9);
+        }
+        write(output);
+        System.out.println("wrote " + output + " (" + Files.size(output) + " bytes)");
+    }
+
+    /**
+     * finds all the shapes of one square more - every shape with one more square touching it
+     * @return the keys of the new shapes, sorted
+     */
+    private long[] growShapes(long[] shapes)
+    {
+        Set<Long> grown = new HashSet<Long>();
+        long[] board = new long[2];
+        for (long shape : shapes)
+        {
+            // the shape is put one square away from the corner of the board, so it can grow in every direction
+            keyToBoard(shape, 1, board);
+            long aroundLo = BitBoard.kingStepLo(board[0], board[1]) & ~board[0];
+            long aroundHi = BitBoard.kingStepHi(board[0], board[1]) & ~board[1] & BitBoard.FULL_HI;
+            int[] squares = new int[BitBoard.SQUARES];
+            int count = BitBoard.squaresOf(aroundLo, aroundHi, squares);
+            for (int i = 0; i < count; i++)
+            {
+                int sq = squares[i];
+                long key = Tablebase.shapeKey(board[0] | (sq < 64 ? 1L << sq : 0), board[1] | (sq < 64 ? 0 : 1L << (sq - 64)));
+                if(key != Tablebase.NO_SHAPE)
+                    grown.add(key);
+            }
+        }
+        long[] result = new long[grown.size()];
+        int i = 0;
+        for (long key : grown)
+            result[i++] = key;
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * puts a shape on the board, moved away from the corner
+     * @param offset how many rows and columns the shape is moved by
+     * @param out the squares of the shape - out[0] (low word) and out[1] (high word)
+     */
+    private static void keyToBoard(long key, int offset, long[] out)
+    {
+        long lo = 0, hi = 0;
+        while(key != 0)
+        {
+            int bit = Long.numberOfTrailingZeros(key);
+            key &= key - 1;
+            int sq = BitBoard.square(bit / 8 + offset, bit % 8 + offset);
+            if(sq < 64)
+                lo |= 1L << sq;
+            else
+                hi |= 1L << (sq - 64);
+        }
+        out[0] = lo;
+        out[1] = hi;
+    }
+
+    /**
+     * finds the thresholds of all the positions of a shape
+     */
+    private byte[] solveShape(long key)
+    {
+        int cells = Long.bitCount(key);
+        byte[] values = new byte[cells * cells * 2];
+        long[] board = new long[2];
+        keyToBoard(key, 0, board);
+        int[] squares = new int[cells];
+        BitBoard.squaresOf(board[0], board[1], squares);
+
+        for (int white = 0; white < cells; white++)
+        {
+            for (int black = 0; black < cells; black++)
+            {
+                if(white == black)
+                    continue;
+                int whiteNoPass = noPass(board[0], board[1], squares[white], squares[black], PlayerColor.WHITE);
+                int blackNoPass = noPass(board[0], board[1], squares[white], squares[black], PlayerColor.BLACK);
+                values[Tablebase.valueIndex(cells, white, black, PlayerColor.WHITE)] = (byte) Math.min(whiteNoPass, Math.max(1, 2 - blackNoPass));
+                values[Tablebase.valueIndex(cells, white, black, PlayerColor.BLACK)] = (byte) Math.min(blackNoPass, Math.max(1, 2 - whiteNoPass));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * the smallest surplus with which a player wins by playing a move in the area (INFINITY if they can't move in it)
+     * @param cellsLo the squares of the area (low word), with the amazons, and cellsHi the high word
+     */
+    private int noPass(long cellsLo, long cellsHi, int whiteSq, int blackSq, PlayerColor colorToMove)
+    {
+        int from = colorToMove == PlayerColor.WHITE ? whiteSq : blackSq;
+        int other = colorToMove == PlayerColor.WHITE ? blackSq : whiteSq;
+        long occupiedLo = ~cellsLo | bit(whiteSq, true) | bit(blackSq, true);
+        long occupiedHi = (~cellsHi | bit(whiteSq, false) | bit(blackSq, false)) & BitBoard.FULL_HI;
+        long[] jumps = new long[2], arrows = new long[2];
+        int[] toSquares = new int[BitBoard.SQUARES], arrowSquares = new int[BitBoard.SQUARES];
+
+        int best = INFINITY;
+        BitBoard.queenReach(from, occupiedLo, occupiedHi, jumps);
+        int toCount = BitBoard.squaresOf(jumps[0], jumps[1], toSquares);
+        for (int i = 0; i < toCount; i++)
+        {
+            int to = toSquares[i];
+            long jumpedLo = (occupiedLo & ~bit(from, true)) | bit(to, true);
+            long jumpedHi = (occupiedHi & ~bit(from, false)) | bit(to, false);
+            BitBoard.queenReach(to, jumpedLo, jumpedHi, arrows);
+            int arrowCount = BitBoard.squaresOf(arrows[0], arrows[1], arrowSquares);
+            for (int j = 0; j < arrowCount; j++)
+            {
+                int arrow = arrowSquares[j];
+                int childThreshold = thresholdAfter(cellsLo & ~bit(arrow, true), cellsHi & ~bit(arrow, false),
+                    colorToMove == PlayerColor.WHITE ? to : other, colorToMove == PlayerColor.WHITE ? other : to,
+                    colorToMove == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE);
+                best = Math.min(best, 1 - childThreshold);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * the threshold of a position after a move, for the player to move in it
+     * @param cellsLo the squares left (low word), with the amazons, and cellsHi the high word
+     */
+    private int thresholdAfter(long cellsLo, long cellsHi, int whiteSq, int blackSq, PlayerColor colorToMove)
+    {
+        long[] area = new long[2];
+        BitBoard.floodFill(bit(whiteSq, true), bit(whiteSq, false), cellsLo, cellsHi, area);
+        if((area[0] & bit(blackSq, true)) != 0 || (area[1] & bit(blackSq, false)) != 0)
+        {
+            // still one contested area (the squares cut off from it have no amazon, so they don't matter)
+            long key = Tablebase.shapeKey(area[0], area[1]);
+            byte[] values = thresholds.get(key);
+            int cells = Long.bitCount(key);
+            return values[Tablebase.valueIndex(cells, Tablebase.ordinalOf(area[0], area[1], whiteSq),
+                Tablebase.ordinalOf(area[0], area[1], blackSq), colorToMove)];
+        }
+
+        // the amazons were separated - each one has a fixed number of moves
+        int whiteMoves = movesIn(area[0], area[1], whiteSq);
+        BitBoard.floodFill(bit(blackSq, true), bit(blackSq, false), cellsLo, cellsHi, area);
+        int blackMoves = movesIn(area[0], area[1], blackSq);
+        int difference = colorToMove == PlayerColor.WHITE ? whiteMoves - blackMoves : blackMoves - whiteMoves;
+        return 1 - difference; // the player to move wins if the surplus and the difference give them at least one move more
+    }
+
+    // the number of moves an amazon can make in an area of its own
+    private int movesIn(long areaLo, long areaHi, int amazonSq)
+    {
+        int moves = solvers.get().maxMoves(areaLo & ~bit(amazonSq, true), areaHi & ~bit(amazonSq, false),
+            bit(amazonSq, true), bit(amazonSq, false), Integer.MAX_VALUE);
+        if(moves == EndgameSolver.UNKNOWN)
+            throw new IllegalStateException("An area of " + maxCells + " squares can't go over the node budget");
+        return moves;
+    }
+
+    // the bit of a square in the low or the high word of a bitboard layer (0 if it's in the other word)
+    private static long bit(int sq, boolean lowWord)
+    {
+        if(lowWord)
+            return sq < 64 ? 1L << sq : 0;
+        return sq < 64 ? 0 : 1L << (sq - 64);
+    }
+
+    /**
+     * loads the thresholds of one size from its level file, if a complete one was saved
+     * @return whether the level was loaded
+     */
+    private boolean loadLevel(Path levelFile, int cells, int shapeCount) throws IOException
+    {
+        if(!Files.isReadable(levelFile))
+            return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(levelFile))))
+        {
+            if(in.readInt() != cells || in.readInt() != shapeCount)
+                return false;
+            for (int i = 0; i < shapeCount; i++)
+            {
+                long key = in.readLong();
+                byte[] values = new byte[cells * cells * 2];
+                in.readFully(values);
+                thresholds.put(key, values);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * saves the thresholds of one size (written to a temporary file first, so a stopped run never leaves half a level)
+     */
+    private void saveLevel(Path levelFile, int cells, long[] shapes, byte[][] values) throws IOException
+    {
+        Path temporary = Paths.get(levelFile + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))
+        {
+            out.writeInt(cells);
+            out.writeInt(shapes.length);
+            for (int i = 0; i < shapes.length; i++)
+            {
+                out.writeLong(shapes[i]);
+                out.write(values[i]);
+            }
+        }
+        Files.move(temporary, levelFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * writes the tablebase file (see model.Tablebase for its layout)
+     */
+    private void write(Path output) throws IOException
+    {
+        long[] keys = new long[thresholds.size()];
+        int i = 0;
+        for (long key : thresholds.keySet())
+            keys[i++] = key;
+        Arrays.sort(keys);
+
+        Path temporary = Paths.get(output + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))
+        {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(maxCells);
+            out.writeInt(keys.length);
+            for (long key : keys)
+                out.writeLong(key);
+            int offset = Tablebase.HEADER_BYTES + keys.length * (8 + 4);
+            for (long key : keys)
+            {
+                out.writeInt(offset);
+                offset += thresholds.get(key).length;
+            }
+            for (long key : keys)
+                out.write(thresholds.get(key));
+        }
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -6,6 +6,10 @@ import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.Insets;
 import java.awt.Image;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
@@ -18,10 +22,10 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import controller.Move;
 import controller.Controller;
-import controller.Constants;
 import controller.Position;
 import static controller.Constants.PlayerColor.*;
 import static controller.Constants.CellContent.*;
@@ -39,7 +43,7 @@ import static controller.Constants.OpponentType.*;
  * @author OFIR AVIANI | 23.02.2025
  */
 
-public class View extends JFrame implements IView, Constants
+public class View extends JFrame implements IView, ViewConstants
 {
 
     private Controller controller;
@@ -49,6 +53,7 @@ public class View extends JFrame implements IView, Constants
     private JButton newGameButton, chooseOpponentButton, createBoardButton;
 
     private OpponentType opponent;
+    private CompletableFuture<Move> pendingAiMove; // the AI move that is being searched, null if there isn't one
 
     private boolean wasGameStarted;
     private Position[] gameMovePositions; // The positions of the move - origin / destination / target
@@ -84,6 +89,14 @@ public class View extends JFrame implements IView, Constants
         add(lblInfo, BorderLayout.SOUTH);
         setTitle("Amazons-Game"); 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowClosing(WindowEvent e)
+            {
+                cancelAIMove();
+            }
+        });
         pack();
         setLocationRelativeTo(null);
 
@@ -119,6 +132,8 @@ public class View extends JFrame implements IView, Constants
             JRadioButton easyBtn = new JRadioButton("Easy");
             JRadioButton mediumBtn = new JRadioButton("Medium");
             JRadioButton hardBtn = new JRadioButton("Hard");
+            JRadioButton expertBtn = new JRadioButton("Expert");
+            JRadioButton mctsBtn = new JRadioButton("MCTS");
 
             ButtonGroup group = new ButtonGroup();
             group.add(humanBtn);
@@ -126,6 +141,8 @@ public class View extends JFrame implements IView, Constants
             group.add(easyBtn);
             group.add(mediumBtn);
             group.add(hardBtn);
+            group.add(expertBtn);
+            group.add(mctsBtn);
 
             JPanel radioPanel = new JPanel(new GridLayout(0, 1));
             radioPanel.add(humanBtn);
@@ -133,6 +150,8 @@ public class View extends JFrame implements IView, Constants
             radioPanel.add(easyBtn);
             radioPanel.add(mediumBtn);
             radioPanel.add(hardBtn);
+            radioPanel.add(expertBtn);
+            radioPanel.add(mctsBtn);
 
         chooseOpponentButton.addActionListener(e -> {
             setUIEnabled(false); // disable all UI
@@ -146,6 +165,8 @@ public class View extends JFrame implements IView, Constants
                 else if (easyBtn.isSelected()) opponent = EASY;
                 else if (mediumBtn.isSelected()) opponent = MEDIUM;
                 else if (hardBtn.isSelected()) opponent = HARD;
+                else if (expertBtn.isSelected()) opponent = EXPERT;
+                else if (mctsBtn.isSelected()) opponent = MCTS;
             }
         });
     }
@@ -271,19 +292,58 @@ public class View extends JFrame implements IView, Constants
     }
 
     /**
-     * fetches an AI move from the controller and plays it.
-     * Highlights the move with green background.
+     * asks the controller for an AI move, without waiting for it.
+     * The board is locked while the AI thinks (only "new game" stays enabled),
+     * and the move is played on the event thread when it is found.
      */
     public void AIMove()
     {
         if(!controller.isTheGameOver())
         {
-            Move aiMove = controller.getAIMove(opponent, controller.getCurrentPlayerSign());
-            doMove(aiMove);
-            boardButtonMatrix[aiMove.getJumpsFromRow()][aiMove.getJumpsFromCol()].setBackground(greenAiMoveColor);
-            boardButtonMatrix[aiMove.getJumpsToRow()][aiMove.getJumpsToCol()].setBackground(greenAiMoveColor);
-            boardButtonMatrix[aiMove.getShootsAtRow()][aiMove.getShootsAtCol()].setBackground(greenAiMoveColor);
-            repaint();
+            setUIEnabled(false);
+            newGameButton.setEnabled(true); // a new game cancels the AI move
+            lblInfo.setText("  Computer is thinking...");
+
+            CompletableFuture<Move> aiMoveRequest = controller.getAIMoveAsync(opponent, controller.getCurrentPlayerSign());
+            pendingAiMove = aiMoveRequest;
+            aiMoveRequest.whenComplete((aiMove, error) -> SwingUtilities.invokeLater(() -> aiMoveFound(aiMoveRequest, aiMove, error)));
+        }
+    }
+
+    /**
+     * plays an AI move that was found, and highlights it with green background.
+     * Called on the event thread. A move of a request that was cancelled (or replaced) is ignored.
+     */
+    private void aiMoveFound(CompletableFuture<Move> aiMoveRequest, Move aiMove, Throwable error)
+    {
+        if(aiMoveRequest != pendingAiMove)
+            return;
+        pendingAiMove = null;
+
+        if(error != null || aiMove == null)
+        {
+            if(error != null && !(error instanceof CancellationException))
+                System.out.println("AI move failed: " + error);
+            updateScreen();
+            return;
+        }
+
+        doMove(aiMove);
+        boardButtonMatrix[aiMove.getJumpsFromRow()][aiMove.getJumpsFromCol()].setBackground(greenAiMoveColor);
+        boardButtonMatrix[aiMove.getJumpsToRow()][aiMove.getJumpsToCol()].setBackground(greenAiMoveColor);
+        boardButtonMatrix[aiMove.getShootsAtRow()][aiMove.getShootsAtCol()].setBackground(greenAiMoveColor);
+        repaint();
+    }
+
+    /**
+     * stops the AI move that is being searched, if there is one
+     */
+    public void cancelAIMove()
+    {
+        if(pendingAiMove != null)
+        {
+            pendingAiMove.cancel(true);
+            pendingAiMove = null;
         }
     }
 
@@ -295,6 +355,7 @@ public class View extends JFrame implements IView, Constants
     public void clearBoard()
     {
         System.out.println("Board cleared");
+        cancelAIMove();
         controller.resetGameBoard();
         turnState = WAITING_FOR_SELECTION;
         lblInfo.setText(labelText());
@@ -385,7 +446,14 @@ public class View extends JFrame implements IView, Constants
         if(!controller.isInsideBoard(pos))
             System.out.println("Out of board!");
     
-        CellContent[][] boardCopy = controller.getGameBoardCopy();
+        return isCellAmazon(controller.getGameBoardCopy(), pos);
+    }
+
+    /**
+     * returns whether the given board position contains a black or white Amazon, on a board that was already fetched
+     */
+    private boolean isCellAmazon(CellContent[][] boardCopy, Position pos)
+    {
         if(boardCopy[pos.getRow()][pos.getCol()] == WHITE_AMAZON)
             return true;
         if(boardCopy[pos.getRow()][pos.getCol()] == BLACK_AMAZON)
@@ -525,12 +593,13 @@ public class View extends JFrame implements IView, Constants
         }
 
         Position[] clickablesPositions = clickableSquares(controller.getCurrentPlayerSign());
+        CellContent[][] boardCopy = controller.getGameBoardCopy(); // fetched once, not for every clickable square
         for (int i = 0; i < clickablesPositions.length; i++)
         {
             Position pos = clickablesPositions[i];
             JButton btn = boardButtonMatrix[pos.getRow()][pos.getCol()];
             btn.setEnabled(true);
-            if(!(isCellAmazon(pos) && turnState != WAITING_FOR_SELECTION))
+            if(!(isCellAmazon(boardCopy, pos) && turnState != WAITING_FOR_SELECTION))
                 btn.setBackground(clickableBackGround);
         }
     }
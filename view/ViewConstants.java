@@ -0,0 +1,22 @@
+package view;
+import java.awt.Font;
+import java.awt.Color;
+
+import controller.Constants;
+
+/**
+ * Interface containing the constants of the Swing view - fonts, colors and sizes.
+ * They are kept apart from Constants, so the model and the command line tools never load AWT classes.
+ * @author OFIR AVIANI | 17.10.2026
+ */
+
+public interface ViewConstants extends Constants
+{
+    public static final Font FONT_BUTTONS = new Font("Arial Unicode MS", Font.PLAIN, 15);
+    public static final Font FONT_LABEL = new Font("Arial", Font.PLAIN, 20);
+    public static final int ICON_SIZE = 50;
+    public static final Color lightBrownBackGround = new Color(240, 220, 150);
+    public static final Color darkBrownBackGround = new Color(100, 50, 20);
+    public static final Color clickableBackGround = new Color(200, 150, 95);
+    public static final Color greenAiMoveColor = new Color(30, 180, 60);
+}